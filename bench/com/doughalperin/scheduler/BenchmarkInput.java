@@ -0,0 +1,77 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Reproducible Session input shared by the benchmarks, from the conference generator
+ *
+ * @see ConferenceGenerator
+ */
+public final class BenchmarkInput {
+
+    private static final long SEED = 42;
+
+    private BenchmarkInput() {
+	//not instantiated
+    }
+
+    /**
+     * @param size number of lines
+     * @param distribution the distribution of durations
+     * @return input lines as found in a Session file
+     */
+    static String[] lines(int size, ConferenceGenerator.Distribution distribution) {
+	ConferenceGenerator generator = new ConferenceGenerator(distribution, SEED);
+	String[] lines = new String[size];
+	for (int i = 0; i < size; i++)
+	    lines[i] = generator.nextLine();
+	return lines;
+    }
+
+    /**
+     * @param size number of Sessions
+     * @param distribution the distribution of durations
+     * @return the Sessions of {@link #lines(int, ConferenceGenerator.Distribution)}
+     */
+    static Session[] sessions(int size, ConferenceGenerator.Distribution distribution) {
+	return new ConferenceGenerator(distribution, SEED).nextSessions(size);
+    }
+
+    /**
+     * Writes the lines of {@link #lines(int, ConferenceGenerator.Distribution)} to a temporary file deleted on exit
+     *
+     * @return the file
+     */
+    static File file(int size, ConferenceGenerator.Distribution distribution) throws IOException {
+	File f = File.createTempFile("sessions", ".txt");
+	f.deleteOnExit();
+	new ConferenceGenerator(distribution, SEED).writeFile(f.getPath(), size);
+	return f;
+    }
+
+    /**
+     * A Writer that discards what is written, so rendering is measured without I/O
+     */
+    static class NullWriter extends Writer {
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+	    //discard
+	}
+
+	@Override
+	public void flush() {
+	    //nothing
+	}
+
+	@Override
+	public void close() {
+	    //nothing
+	}
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading Sessions: decoding single lines and reading whole files
+ *
+ * @see Session#getInstanceFromString(String)
+ * @see Schedule#setSessionsFromFile(String, Schedule.FileEncoding)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "LIGHTNING_HEAVY", "LONG_TAIL", "ADVERSARIAL"})
+    ConferenceGenerator.Distribution distribution;
+
+    String[] lines;
+    File file;
+
+    @Setup
+    public void setUp() throws IOException {
+	lines = BenchmarkInput.lines(size, distribution);
+	file = BenchmarkInput.file(size, distribution);
+    }
+
+    @Benchmark
+    public void getInstanceFromString(Blackhole bh) {
+	for (String line : lines)
+	    bh.consume(Session.getInstanceFromString(line));
+    }
+
+    @Benchmark
+    public Schedule setSessionsFromFile() throws IOException {
+	Schedule schedule = new Schedule();
+	schedule.setSessionsFromFile(file.getPath(), Schedule.FileEncoding.UTF8);
+	return schedule;
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures writing a made Schedule as text, with the renderer and with the TimeOffset line by line printing it replaced
+ *
+ * @see ScheduleRenderer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "LIGHTNING_HEAVY", "LONG_TAIL", "ADVERSARIAL"})
+    ConferenceGenerator.Distribution distribution;
+
+    Track[] tracks;
+    final ScheduleRenderer renderer = new ScheduleRenderer();
+    final BenchmarkInput.NullWriter out = new BenchmarkInput.NullWriter();
+
+    @Setup
+    public void setUp() {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : BenchmarkInput.sessions(size, distribution))
+	    schedule.addSession(s);
+	schedule.makeSchedule();
+	tracks = schedule.getTracks();
+    }
+
+    @Benchmark
+    public void render() throws IOException {
+	renderer.render(tracks, out);
+    }
+
+    @Benchmark
+    public void timeOffsetLines(Blackhole bh) {
+	for (Track track : tracks) {
+	    bh.consume(track.getLabel());
+	    for (ScheduleBlock sb : track.getScheduleBlocks())
+		for (Session s : sb.getSessions())
+		    bh.consume((new TimeOffset(s.getStartOffset())) + " " + s.getName() 
+			    + (s.isBlockLevelSession() ? "" : " [" + s.getMinutes() + "min]"));
+	}
+    }
+
+}
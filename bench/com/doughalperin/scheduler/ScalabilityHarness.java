@@ -0,0 +1,122 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Runs strategies end to end - reading a generated file, making the Schedule and rendering it - over a range of
+ * conference sizes, and prints one CSV line per run: wall time, peak heap, bytes allocated, allocation rate and Tracks.
+ * <p>
+ * Command line properties that are read, all optional:
+ * <ul>
+ * <li>sizes - comma separated Session counts; defaults to 100,1000,10000,100000,1000000</li>
+ * <li>distributions - comma separated {@link ConferenceGenerator.Distribution} names; defaults to all</li>
+ * <li>strategies - comma separated SchedulingStrategy class names in this package; defaults to BruteForceStrategy,
+ * FirstFitDecreasingStrategy, ResidualScanStrategy, BestFitDecreasingStrategy and PatternStrategy</li>
+ * <li>seed - the generator seed; defaults to 1</li>
+ * <li>maxSeconds - once a run of a strategy takes longer, larger sizes are skipped for it; defaults to 60</li>
+ * </ul>
+ * </p>
+ * <p>
+ * Bytes allocated are counted for the running thread only, so work a strategy hands to other threads is not included.
+ * A run that fails, for example with a StackOverflowError from deep recursion, is reported with its error.
+ * </p>
+ *
+ * @see ConferenceGenerator
+ */
+public class ScalabilityHarness {
+
+    public static void main(String[] args) throws Exception {
+	String[] sizes = System.getProperty("sizes", "100,1000,10000,100000,1000000").split(",");
+	String[] distributions = System.getProperty("distributions", "UNIFORM,LIGHTNING_HEAVY,LONG_TAIL,ADVERSARIAL")
+		.split(",");
+	String[] strategies = System.getProperty("strategies", 
+		"BruteForceStrategy,FirstFitDecreasingStrategy,ResidualScanStrategy,BestFitDecreasingStrategy,PatternStrategy").split(",");
+	long seed = Long.parseLong(System.getProperty("seed", "1"));
+	double maxSeconds = Double.parseDouble(System.getProperty("maxSeconds", "60"));
+
+	System.out.println("strategy,distribution,sessions,wallMillis,peakHeapBytes,allocatedBytes,allocatedBytesPerSecond,"
+		+ "tracks,error");
+	for (String d : distributions) {
+	    ConferenceGenerator.Distribution distribution = ConferenceGenerator.Distribution.valueOf(d.trim());
+	    HashSet<String> tooSlow = new HashSet<String>();
+	    for (String size : sizes) {
+		long count = Long.parseLong(size.trim());
+		File file = File.createTempFile("conference", ".txt");
+		try {
+		    new ConferenceGenerator(distribution, seed).writeFile(file.getPath(), count);
+		    for (String name : strategies) {
+			if (tooSlow.contains(name))
+			    continue;
+			SchedulingStrategy strategy = (SchedulingStrategy)Class.forName(
+				ScalabilityHarness.class.getPackage().getName() + "." + name.trim())
+				.getDeclaredConstructor().newInstance();
+			double seconds = run(strategy, name.trim(), distribution, count, file);
+			if (seconds > maxSeconds)
+			    tooSlow.add(name);
+		    }
+		} finally {
+		    file.delete();
+		}
+	    }
+	}
+    }
+
+    /**
+     * Runs one strategy end to end and prints its line
+     *
+     * @return the wall time in seconds
+     */
+    private static double run(SchedulingStrategy strategy, String name, ConferenceGenerator.Distribution distribution,
+	    long count, File file) {
+	System.gc();
+	List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+	for (MemoryPoolMXBean pool : pools)
+	    pool.resetPeakUsage();
+	long allocatedBefore = allocatedBytes();
+	long start = System.nanoTime();
+
+	int tracks = -1;
+	String error = "";
+	try {
+	    Schedule schedule = new Schedule();
+	    schedule.setStrategy(strategy);
+	    schedule.setBlocks(Config.BLOCKS);
+	    schedule.setSessionsFromFile(file.getPath(), Schedule.FileEncoding.UTF8);
+	    schedule.makeSchedule();
+	    new ScheduleRenderer().render(schedule.getTracks(), new BenchmarkInput.NullWriter());
+	    tracks = schedule.getTracks().length;
+	} catch (Throwable t) {
+	    error = t.getClass().getSimpleName();
+	}
+
+	long nanos = System.nanoTime() - start;
+	long allocated = allocatedBytes() - allocatedBefore;
+	long peak = 0;
+	for (MemoryPoolMXBean pool : pools)
+	    if (pool.getType() == MemoryType.HEAP)
+		peak += pool.getPeakUsage().getUsed();
+	double seconds = nanos / 1e9;
+	System.out.println(name + "," + distribution + "," + count + "," + nanos / 1000000 + "," + peak + "," + allocated
+		+ "," + (long)(allocated / Math.max(seconds, 1e-9)) + "," + tracks + "," + error);
+	return seconds;
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or 0 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+	java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	if (threads instanceof com.sun.management.ThreadMXBean)
+	    return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+	return 0;
+    }
+
+}
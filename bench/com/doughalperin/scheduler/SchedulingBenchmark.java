@@ -0,0 +1,73 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures scheduling: grouping Sessions, placing them with a strategy, and making a complete Schedule including the
+ * timing of every Track
+ *
+ * @see SchedulingStrategy#groupSessions(Session[])
+ * @see BruteForceStrategy#apply(BlockFormat[], Session[])
+ * @see Schedule#makeSchedule()
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xss16m"})
+public class SchedulingBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"UNIFORM", "LIGHTNING_HEAVY", "LONG_TAIL", "ADVERSARIAL"})
+    ConferenceGenerator.Distribution distribution;
+
+    Session[] sessions;
+    Schedule schedule;
+    final BruteForceStrategy bruteForce = new BruteForceStrategy();
+
+    @Setup
+    public void setUp() {
+	sessions = BenchmarkInput.sessions(size, distribution);
+	schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : sessions)
+	    schedule.addSession(s);
+    }
+
+    @Benchmark
+    public TreeMap<Integer, ArrayList<Session>> groupSessions() {
+	return bruteForce.groupSessions(sessions);
+    }
+
+    @Benchmark
+    public Track[] bruteForceApply() {
+	return bruteForce.apply(Config.BLOCKS, sessions);
+    }
+
+    @Benchmark
+    public Track[] makeSchedule() {
+	schedule.makeSchedule();
+	return schedule.getTracks();
+    }
+
+}
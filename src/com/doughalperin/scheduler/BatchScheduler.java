@@ -0,0 +1,276 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Schedules many conference files in one JVM, several at a time.
+ * <p>
+ * The Blocks are checked once, when the batch is created, and their template shared by every schedule.  Each input gets its own
+ * Schedule and its own output file, the schedule as text named after the input with {@value #OUTPUT_SUFFIX} added, so a
+ * file that cannot be read or scheduled fails alone: its Result gives the reason and no output is left for it.  Outputs
+ * are written to a temporary file and renamed, so a partial output is never seen.  Inputs whose outputs would have the
+ * same file, such as inputs of the same name from different directories written to one output directory, all fail
+ * rather than overwrite each other.
+ * </p>
+ *
+ * @see Scheduler#main(String[])
+ */
+public class BatchScheduler {
+
+    /**
+     * Added to the input file name to name its output
+     */
+    public static final String OUTPUT_SUFFIX = ".schedule";
+
+    private final BlockTemplate template;
+    private final SchedulingStrategy strategy;
+    private final Schedule.FileEncoding encoding;
+    private final int threads;
+
+    /**
+     * The outcome of scheduling one input
+     */
+    public static class Result {
+	private final File input;
+	private final File output;
+	private final int trackCount;
+	private final String error;
+	private final long nanos;
+
+	Result(File input, File output, int trackCount, String error, long nanos) {
+	    this.input = input;
+	    this.output = output;
+	    this.trackCount = trackCount;
+	    this.error = error;
+	    this.nanos = nanos;
+	}
+
+	/**
+	 * @return the input file
+	 */
+	public File getInput() {
+	    return input;
+	}
+
+	/**
+	 * @return the output file; null if the input failed
+	 */
+	public File getOutput() {
+	    return output;
+	}
+
+	/**
+	 * @return the number of Tracks scheduled; 0 if the input failed
+	 */
+	public int getTrackCount() {
+	    return trackCount;
+	}
+
+	/**
+	 * @return why the input failed; null if it succeeded
+	 */
+	public String getError() {
+	    return error;
+	}
+
+	/**
+	 * @return whether the input was scheduled and its output written
+	 */
+	public boolean isSucceeded() {
+	    return error == null;
+	}
+
+	/**
+	 * @return the time taken to read, schedule and write the input
+	 */
+	public long getNanos() {
+	    return nanos;
+	}
+    }
+
+    /**
+     * Instantiates a batch using the configured Blocks and strategy, UTF-8 and a thread per processor
+     */
+    public BatchScheduler() {
+	//not FileEncoding.DEFAULT, which reads null when Config.BLOCKS has just started initializing Config
+	this(Config.BLOCKS, Config.DEFAULT_STRATEGY, Schedule.FileEncoding.UTF8,
+		Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Instantiates a batch
+     *
+     * @param blocks time blocks in which Tracks are divided
+     * @param strategy the strategy used for every input; shared by concurrent schedules
+     * @param encoding character set in use in the input files
+     * @param threads most inputs scheduled at a time
+     * @throws IllegalArgumentException if the Blocks are not in time order, the strategy or encoding is null, or threads
+     * is not positive
+     */
+    public BatchScheduler(BlockFormat[] blocks, SchedulingStrategy strategy, Schedule.FileEncoding encoding, int threads)
+	    throws IllegalArgumentException {
+	template = new BlockTemplate(blocks);
+	if (strategy == null)
+	    throw new IllegalArgumentException("Strategy must be specified.");
+	if (encoding == null)
+	    throw new IllegalArgumentException("Encoding must be specified.");
+	if (threads <= 0)
+	    throw new IllegalArgumentException("Threads must be greater than zero.");
+	this.strategy = strategy;
+	this.encoding = encoding;
+	this.threads = threads;
+    }
+
+    /**
+     * Lists the inputs of a batch: the files of a directory, other than hidden files and earlier outputs, in name order,
+     * or else a comma separated list of files
+     *
+     * @param spec a directory or a comma separated list of files
+     * @return the input files
+     */
+    public static List<File> listInputs(String spec) {
+	ArrayList<File> inputs = new ArrayList<File>();
+	File directory = new File(spec);
+	if (directory.isDirectory()) {
+	    File[] files = directory.listFiles();
+	    if (files != null) {
+		Arrays.sort(files);
+		for (File f : files)
+		    if (f.isFile() && !f.getName().startsWith(".") && !f.getName().endsWith(OUTPUT_SUFFIX))
+			inputs.add(f);
+	    }
+	} else
+	    for (String name : spec.split(","))
+		if (name.trim().length() > 0)
+		    inputs.add(new File(name.trim()));
+	return inputs;
+    }
+
+    /**
+     * Schedules every input, waiting until all are done
+     *
+     * @param inputs the conference files
+     * @param outputDirectory where outputs are written; null to write each beside its input
+     * @return a Result per input, in input order
+     * @throws IllegalArgumentException if the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting; inputs not yet started are abandoned
+     */
+    public List<Result> run(List<File> inputs, final File outputDirectory)
+	    throws IllegalArgumentException, InterruptedException {
+	if (outputDirectory != null && !outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+	    throw new IllegalArgumentException("Output directory " + outputDirectory + " cannot be created.");
+
+	HashMap<File, Integer> outputCounts = new HashMap<File, Integer>();
+	for (File input : inputs) {
+	    File output = outputFor(input, outputDirectory);
+	    Integer c = outputCounts.get(output);
+	    outputCounts.put(output, c == null ? 1 : c + 1);
+	}
+	ArrayList<Callable<Result>> tasks = new ArrayList<Callable<Result>>(inputs.size());
+	for (final File input : inputs) {
+	    final File output = outputFor(input, outputDirectory);
+	    final boolean shared = outputCounts.get(output) > 1;
+	    tasks.add(new Callable<Result>() {
+		@Override
+		public Result call() {
+		    if (shared)
+			return new Result(input, null, 0, "Output " + output + " is the output of more than one input.", 0);
+		    return schedule(input, output);
+		}
+	    });
+	}
+	ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())),
+		new DaemonThreadFactory("batch-"));
+	try {
+	    List<Future<Result>> futures = pool.invokeAll(tasks);
+	    ArrayList<Result> results = new ArrayList<Result>(futures.size());
+	    for (Future<Result> f : futures) {
+		try {
+		    results.add(f.get());
+		} catch (ExecutionException e) {
+		    //schedule catches everything but Errors, which are not isolated
+		    throw new IllegalStateException(e.getCause());
+		}
+	    }
+	    return results;
+	} finally {
+	    pool.shutdownNow();
+	}
+    }
+
+    /**
+     * @param input the conference file
+     * @param outputDirectory where outputs are written; null to write each beside its input
+     * @return the absolute path of the output of the input
+     */
+    static File outputFor(File input, File outputDirectory) {
+	File directory = outputDirectory == null ? input.getAbsoluteFile().getParentFile() : outputDirectory;
+	return new File(directory, input.getName() + OUTPUT_SUFFIX).toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    /**
+     * Schedules one input, catching any failure so it does not reach the other inputs
+     */
+    Result schedule(File input, File output) {
+	long start = System.nanoTime();
+	String error;
+	try {
+	    Schedule schedule = new Schedule();
+	    schedule.setStrategy(strategy);
+	    schedule.setBlocks(template);
+	    schedule.setSessionsFromFile(input.getPath(), encoding);
+	    schedule.makeSchedule();
+	    Track[] tracks = schedule.getTracks();
+	    write(tracks, output);
+	    return new Result(input, output, tracks.length, null, System.nanoTime() - start);
+	} catch (IllegalArgumentException e) {
+	    error = e.getMessage();
+	} catch (IOException e) {
+	    error = e.toString();
+	} catch (RuntimeException e) {
+	    error = e.toString();
+	} catch (StackOverflowError e) {
+	    //a recursive strategy given too many Sessions
+	    error = e.toString();
+	}
+	//an output from an earlier run would no longer match the input
+	output.delete();
+	return new Result(input, null, 0, error, System.nanoTime() - start);
+    }
+
+    private static void write(Track[] tracks, File output) throws IOException {
+	File temp = File.createTempFile(output.getName(), ".tmp", output.getAbsoluteFile().getParentFile());
+	try {
+	    Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), "UTF-8"), 1 << 16);
+	    try {
+		new ScheduleRenderer().render(tracks, out);
+	    } finally {
+		out.close();
+	    }
+	    Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	} finally {
+	    temp.delete();
+	}
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the BatchScheduler class
+ *
+ * @see BatchScheduler
+ */
+public class BatchSchedulerTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+	directory = File.createTempFile("batch", "");
+	directory.delete();
+	directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+	delete(directory);
+    }
+
+    private static void delete(File f) {
+	File[] files = f.listFiles();
+	if (files != null)
+	    for (File child : files)
+		delete(child);
+	f.delete();
+    }
+
+    private File write(String name, String text) throws IOException {
+	File f = new File(directory, name);
+	Writer out = new OutputStreamWriter(new FileOutputStream(f), "UTF-8");
+	try {
+	    out.write(text);
+	} finally {
+	    out.close();
+	}
+	return f;
+    }
+
+    private static String expected(File input) throws IOException {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	schedule.setSessionsFromFile(input.getPath(), Schedule.FileEncoding.UTF8);
+	schedule.makeSchedule();
+	StringWriter out = new StringWriter();
+	new ScheduleRenderer().render(schedule.getTracks(), out);
+	return out.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BatchScheduler#run(List, File)}.
+     */
+    @Test
+    public void testRun() throws IOException, InterruptedException {
+	for (int i = 0; i < 6; i++)
+	    new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, i)
+		    .writeFile(new File(directory, "conference" + i + ".txt").getPath(), 100 + 50 * i);
+	write("conference2.txt", "Valid Talk 30min\nNo Length\n");
+	write("conference4.txt", "Too Long 500min\n");
+
+	List<File> inputs = BatchScheduler.listInputs(directory.getPath());
+	inputs.add(new File(directory, "missing.txt"));
+	BatchScheduler batch = new BatchScheduler(Config.BLOCKS, new FirstFitDecreasingStrategy(),
+		Schedule.FileEncoding.UTF8, 3);
+	List<BatchScheduler.Result> results = batch.run(inputs, null);
+	assertEquals(inputs.size(), results.size());
+	for (int i = 0; i < results.size(); i++) {
+	    BatchScheduler.Result r = results.get(i);
+	    assertEquals(inputs.get(i), r.getInput());
+	    File output = new File(directory, inputs.get(i).getName() + BatchScheduler.OUTPUT_SUFFIX);
+	    if (i == 2 || i == 4 || i == 6) {
+		assertFalse(r.isSucceeded());
+		assertNull(r.getOutput());
+		assertFalse(output.exists());
+	    } else {
+		assertTrue(r.getError(), r.isSucceeded());
+		assertEquals(output, r.getOutput());
+		assertEquals(expected(inputs.get(i)), new String(Files.readAllBytes(output.toPath()), "UTF-8"));
+		assertTrue(r.getTrackCount() > 0);
+	    }
+	}
+	assertTrue(results.get(2).getError(), results.get(2).getError().startsWith("Failed input line 2:"));
+	assertTrue(results.get(4).getError(), results.get(4).getError().startsWith("A viable schedule"));
+	assertTrue(results.get(6).getError(), results.get(6).getError().contains("not found"));
+
+	//outputs are not inputs, and an input that now fails loses its earlier output
+	assertEquals(6, BatchScheduler.listInputs(directory.getPath()).size());
+	write("conference0.txt", "Broken\n");
+	results = batch.run(BatchScheduler.listInputs(directory.getPath()), null);
+	assertFalse(results.get(0).isSucceeded());
+	assertFalse(new File(directory, "conference0.txt" + BatchScheduler.OUTPUT_SUFFIX).exists());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BatchScheduler#run(List, File)}.
+     */
+    @Test
+    public void testSharedOutputs() throws IOException, InterruptedException {
+	File a = new File(directory, "a");
+	File b = new File(directory, "b");
+	a.mkdirs();
+	b.mkdirs();
+	List<File> inputs = new ArrayList<File>();
+	inputs.add(new File(a, "conference.txt"));
+	inputs.add(new File(b, "conference.txt"));
+	inputs.add(new File(b, "other.txt"));
+	for (File f : inputs)
+	    new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 1).writeFile(f.getPath(), 50);
+	File out = new File(directory, "out");
+	BatchScheduler batch = new BatchScheduler(Config.BLOCKS, new FirstFitDecreasingStrategy(),
+		Schedule.FileEncoding.UTF8, 2);
+	List<BatchScheduler.Result> results = batch.run(inputs, out);
+	assertFalse(results.get(0).isSucceeded());
+	assertFalse(results.get(1).isSucceeded());
+	assertTrue(results.get(0).getError(), results.get(0).getError().contains("more than one input"));
+	assertFalse(new File(out, "conference.txt" + BatchScheduler.OUTPUT_SUFFIX).exists());
+	assertTrue(results.get(2).getError(), results.get(2).isSucceeded());
+	assertEquals(expected(inputs.get(2)),
+		new String(Files.readAllBytes(results.get(2).getOutput().toPath()), "UTF-8"));
+
+	//beside their inputs the outputs are distinct
+	results = batch.run(inputs, null);
+	for (BatchScheduler.Result r : results)
+	    assertTrue(r.getError(), r.isSucceeded());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BatchScheduler#listInputs(String)}.
+     */
+    @Test
+    public void testListInputs() {
+	List<File> inputs = BatchScheduler.listInputs("a.txt, b.txt,,c.txt");
+	List<File> expected = new ArrayList<File>();
+	expected.add(new File("a.txt"));
+	expected.add(new File("b.txt"));
+	expected.add(new File("c.txt"));
+	assertEquals(expected, inputs);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BatchScheduler#BatchScheduler(BlockFormat[], SchedulingStrategy, Schedule.FileEncoding, int)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBlocks() {
+	BlockFormat[] blocks = {
+		new BlockFormat("Afternoon", new TimeOffset(0, 13, 0), true, true, 180, 180),
+		new BlockFormat("Morning", new TimeOffset(0, 9, 0), true, true, 180, 180)};
+	new BatchScheduler(blocks, new FirstFitDecreasingStrategy(), Schedule.FileEncoding.UTF8, 2);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BatchScheduler#BatchScheduler()}.  The classes are loaded afresh
+     * so the default batch is built before anything else has initialized Config.
+     */
+    @Test
+    public void testDefaultBatch() throws Exception {
+	URL classes = BatchScheduler.class.getProtectionDomain().getCodeSource().getLocation();
+	URLClassLoader loader = new URLClassLoader(new URL[] {classes}, ClassLoader.getSystemClassLoader().getParent());
+	try {
+	    assertNotNull(loader.loadClass(BatchScheduler.class.getName()).getConstructor().newInstance());
+	} finally {
+	    loader.close();
+	}
+
+	File input = write("conference.txt", "Talk 30min\nLonger Talk 60min\n");
+	List<File> inputs = new ArrayList<File>();
+	inputs.add(input);
+	List<BatchScheduler.Result> results = new BatchScheduler().run(inputs, null);
+	assertTrue(results.get(0).isSucceeded());
+	File output = new File(directory, input.getName() + BatchScheduler.OUTPUT_SUFFIX);
+	assertEquals(expected(input), new String(Files.readAllBytes(output.toPath()), "UTF-8"));
+    }
+
+}
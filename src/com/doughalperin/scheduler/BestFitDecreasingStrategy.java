@@ -0,0 +1,138 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ *
+ * Best Fit Decreasing Strategy iterates through sessions from the longest duration sessions to the shortest ones.  Each
+ * Session is placed into the working Block with the fewest remaining minutes that still fits it, which tends to leave
+ * fewer half-empty Blocks than placing into the first Block that fits.
+ * <p>
+ * Blocks are first considered against their minimum duration; only when no Block fits that way is the Block with the
+ * fewest remaining minutes against its maximum duration extended.  If still no Block fits a new Track is created.
+ * Ties go to the earliest Block of the earliest Track.
+ * </p>
+ * <p>
+ * The Blocks are kept in ordered sets keyed by remaining minutes so each lookup costs O(log blocks), and equal-length
+ * Sessions are placed as a batch.
+ * </p>
+ *
+ * @see FirstFitDecreasingStrategy
+ *
+ */
+public class BestFitDecreasingStrategy extends SchedulingStrategy {
+
+    /* (non-Javadoc)
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	ArrayList<Track> tracks = new ArrayList<Track>();
+
+	//start with 1 track; the rest are made alike
+	BlockTemplate template = new BlockTemplate(blocks);
+	Track first = new Track(template);
+	tracks.add(first);
+
+	if (sessions.length == 0)
+	    return tracks.toArray(new Track[]{});
+
+	int workingCount = template.getWorkingCount();
+	int longestBlock = template.getLongestDuration();
+
+	//slots (track * workingCount + block) ordered by available minutes against min and max duration
+	TreeSet<Long> byMin = new TreeSet<Long>();
+	TreeSet<Long> byMax = new TreeSet<Long>();
+	addSlots(first, 0, byMin, byMax);
+
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions, run);
+
+	//work from the biggest group to the smallest
+	for (Map.Entry<Integer, ArrayList<Session>> group : groups.descendingMap().entrySet()) {
+	    int minutes = group.getKey();
+	    ArrayList<Session> equalLength = group.getValue();
+	    if (minutes > longestBlock)
+		throw new IllegalArgumentException("Session [" + equalLength.get(0).getName() + "] of " + minutes
+			+ " minutes does not fit in any track.");
+
+	    int next = 0;
+	    while (next < equalLength.size()) {
+		checkCancelled();
+		//first try against minDuration, then extend the tightest block that could be extended
+		boolean useMax = false;
+		Long key = byMin.ceiling(key(minutes, 0));
+		if (key == null) {
+		    useMax = true;
+		    key = byMax.ceiling(key(minutes, 0));
+		}
+		run.attempt(useMax ? 2 : 1);
+		if (key == null) {
+		    //add a new track; its blocks are considered like any others
+		    Track t = new Track(template);
+		    tracks.add(t);
+		    addSlots(t, (tracks.size() - 1) * workingCount, byMin, byMax);
+		    continue;
+		}
+
+		if (useMax)
+		    run.maxDurationFallback();
+		int slot = (int)(long)key;
+		ScheduleBlock wb = tracks.get(slot / workingCount).getWorkingBlocks()[slot % workingCount];
+
+		//the block stays the tightest fit as it shrinks, so it takes as many as it can hold
+		int count = Math.min(wb.getAvailableMinutes(useMax) / minutes, equalLength.size() - next);
+		remove(wb, slot, byMin, byMax);
+		wb.place(equalLength.subList(next, next + count));
+		add(wb, slot, byMin, byMax);
+		next += count;
+	    }
+	}
+
+	//return working tracks that were created
+	return tracks.toArray(new Track[]{});
+    }
+
+    /**
+     * @param available minutes remaining in a block
+     * @param slot position of the block among all working blocks
+     * @return ordering key of the block; by available minutes and then by position
+     */
+    private static long key(int available, int slot) {
+	return ((long)available << 32) | slot;
+    }
+
+    /**
+     * Adds the working blocks of a new Track to the ordered sets
+     */
+    private void addSlots(Track t, int firstSlot, TreeSet<Long> byMin, TreeSet<Long> byMax) {
+	ScheduleBlock[] workingBlocks = t.getWorkingBlocks();
+	for (int i = 0; i < workingBlocks.length; i++)
+	    add(workingBlocks[i], firstSlot + i, byMin, byMax);
+    }
+
+    /**
+     * Adds a block to the ordered sets; blocks with no minutes remaining are left out
+     */
+    private void add(ScheduleBlock wb, int slot, TreeSet<Long> byMin, TreeSet<Long> byMax) {
+	if (wb.getAvailableMinutes(false) > 0)
+	    byMin.add(key(wb.getAvailableMinutes(false), slot));
+	if (wb.getAvailableMinutes(true) > 0)
+	    byMax.add(key(wb.getAvailableMinutes(true), slot));
+    }
+
+    /**
+     * Removes a block from the ordered sets before its available minutes change
+     */
+    private void remove(ScheduleBlock wb, int slot, TreeSet<Long> byMin, TreeSet<Long> byMax) {
+	byMin.remove(key(wb.getAvailableMinutes(false), slot));
+	byMax.remove(key(wb.getAvailableMinutes(true), slot));
+    }
+
+}
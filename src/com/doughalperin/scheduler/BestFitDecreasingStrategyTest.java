@@ -0,0 +1,73 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BestFitDecreasingStrategy class
+ *
+ * @see BestFitDecreasingStrategy
+ */
+public class BestFitDecreasingStrategyTest {
+
+    final BlockFormat[] twoBlocks = {
+	    new BlockFormat("Long", new TimeOffset(0, 9, 0), true, true, 100, 100),
+	    new BlockFormat("Short", new TimeOffset(0, 11, 0), true, true, 50, 50)
+    };
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BestFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testPlacesInTightestBlock() {
+	Session session = new Session("Forty", 40);
+	Track[] tracks = new BestFitDecreasingStrategy().apply(twoBlocks, new Session[]{session});
+	assertEquals(1, tracks.length);
+	assertTrue(tracks[0].getWorkingBlocks()[0].getSessions().isEmpty());
+	assertSame(session, tracks[0].getWorkingBlocks()[1].getSessions().get(0));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BestFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testAllPlacedWithinMax() {
+	int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 200};
+	Random random = new Random(7);
+	Session[] sessions = new Session[5000];
+	for (int i = 0; i < sessions.length; i++)
+	    sessions[i] = new Session("Session" + i, durations[random.nextInt(durations.length)]);
+
+	Track[] tracks = new BestFitDecreasingStrategy().apply(Config.BLOCKS, sessions);
+	int placed = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks()) {
+		assertTrue(wb.toString(), wb.getUsedMinutes() <= wb.getMaxDuration());
+		placed += wb.getSessions().size();
+	    }
+	assertEquals(sessions.length, placed);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BestFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testSessionTooLong() {
+	Session[] sessions = {new Session("Short", 30), new Session("Too Long", 241)};
+	boolean exceptionOccurred = false;
+	try {
+	    new BestFitDecreasingStrategy().apply(Config.BLOCKS, sessions);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+}
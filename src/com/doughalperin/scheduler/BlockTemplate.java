@@ -0,0 +1,127 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+/**
+ * A sequence of time Blocks checked once and made ready for building Tracks.
+ * <p>
+ * The Blocks are copied and checked to be in time order when the template is made; the Blocks available for
+ * scheduling, the working blocks, and their minimum and maximum durations are worked out then too, so a Track made
+ * from a template only creates its ScheduleBlocks.  A template is immutable and may be shared between threads.
+ * </p>
+ *
+ * @see Track#Track(BlockTemplate)
+ */
+public final class BlockTemplate {
+
+    private final BlockFormat[] blocks;
+    //index within blocks of each working block
+    private final int[] scheduleIndex;
+    private final int[] minDurations;
+    private final int[] maxDurations;
+    private final int longestDuration;
+
+    /**
+     * Compiles a sequence of Blocks
+     *
+     * @param blocks the time block formats for Tracks; blocks must be in sequential time order
+     * @throws IllegalArgumentException if the blocks are invalid, for example if they are not sequential in time.
+     */
+    public BlockTemplate(BlockFormat[] blocks) throws IllegalArgumentException {
+	BlockFormat.checkBlockOrder(blocks);
+	this.blocks = blocks.clone();
+
+	int workingCount = 0;
+	for (BlockFormat b : blocks)
+	    if (b.isAvailableForScheduling())
+		workingCount++;
+	scheduleIndex = new int[workingCount];
+	minDurations = new int[workingCount];
+	maxDurations = new int[workingCount];
+	int longest = 0;
+	for (int i = 0, w = 0; i < blocks.length; i++)
+	    if (blocks[i].isAvailableForScheduling()) {
+		scheduleIndex[w] = i;
+		minDurations[w] = blocks[i].getMinDuration();
+		maxDurations[w] = blocks[i].getMaxDuration();
+		longest = Math.max(longest, maxDurations[w]);
+		w++;
+	    }
+	longestDuration = longest;
+    }
+
+    /**
+     * @return the Blocks, in time order
+     */
+    public BlockFormat[] getBlocks() {
+	return blocks.clone();
+    }
+
+    /**
+     * @return the Blocks without copying, for Tracks which never change them
+     */
+    BlockFormat[] blocks() {
+	return blocks;
+    }
+
+    /**
+     * @return the number of Blocks
+     */
+    public int getBlockCount() {
+	return blocks.length;
+    }
+
+    /**
+     * @return the number of Blocks available for scheduling
+     */
+    public int getWorkingCount() {
+	return scheduleIndex.length;
+    }
+
+    /**
+     * @param w working block number, from 0
+     * @return the index of the working block among all the Blocks
+     */
+    public int getScheduleIndex(int w) {
+	return scheduleIndex[w];
+    }
+
+    /**
+     * @param w working block number, from 0
+     * @return the minimum duration of the working block
+     */
+    public int getMinDuration(int w) {
+	return minDurations[w];
+    }
+
+    /**
+     * @param w working block number, from 0
+     * @return the maximum duration of the working block
+     */
+    public int getMaxDuration(int w) {
+	return maxDurations[w];
+    }
+
+    /**
+     * @return the minimum duration of each working block
+     */
+    public int[] getMinDurations() {
+	return minDurations.clone();
+    }
+
+    /**
+     * @return the maximum duration of each working block
+     */
+    public int[] getMaxDurations() {
+	return maxDurations.clone();
+    }
+
+    /**
+     * @return the longest maximum duration of any working block; 0 if there are none
+     */
+    public int getLongestDuration() {
+	return longestDuration;
+    }
+
+}
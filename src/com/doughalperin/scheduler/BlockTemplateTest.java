@@ -0,0 +1,63 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests BlockTemplate class
+ *
+ * @see BlockTemplate
+ */
+public class BlockTemplateTest {
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BlockTemplate#BlockTemplate(BlockFormat[])}.
+     */
+    @Test
+    public void testBlockTemplate() {
+	BlockFormat[] blocks = Config.BLOCKS.clone();
+	BlockTemplate template = new BlockTemplate(blocks);
+	assertEquals(4, template.getBlockCount());
+	assertEquals(2, template.getWorkingCount());
+	assertEquals(0, template.getScheduleIndex(0));
+	assertEquals(2, template.getScheduleIndex(1));
+	assertArrayEquals(new int[]{180, 180}, template.getMinDurations());
+	assertArrayEquals(new int[]{180, 240}, template.getMaxDurations());
+	assertEquals(240, template.getLongestDuration());
+
+	//later changes to the arrays given or returned do not reach the template
+	blocks[0] = blocks[2];
+	template.getMaxDurations()[0] = 1;
+	template.getBlocks()[1] = null;
+	assertSame(Config.BLOCKS[0], template.getBlocks()[0]);
+	assertSame(Config.BLOCKS[1], template.getBlocks()[1]);
+	assertEquals(180, template.getMaxDurations()[0]);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BlockTemplate#BlockTemplate(BlockFormat[])}.
+     */
+    @Test
+    public void testInvalidBlocks() {
+	BlockFormat[][] failing = {
+		null,
+		{new BlockFormat("Morning", new TimeOffset(0, 9, 0), true, true, 180, 180), null},
+		{new BlockFormat("Afternoon", new TimeOffset(0, 13, 0), true, true, 180, 180),
+		    new BlockFormat("Morning", new TimeOffset(0, 9, 0), true, true, 180, 180)}};
+	for (int i = 0; i < failing.length; i++) {
+	    boolean exceptionOccurred = false;
+	    try {
+		new BlockTemplate(failing[i]);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("failing case#" + i + " accepted", exceptionOccurred);
+	}
+    }
+
+}
@@ -0,0 +1,400 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * Branch and Bound Strategy searches for the schedule using the fewest Tracks.  It starts from the better of the first fit
+ * and best fit decreasing schedules and then repeatedly searches for a schedule with one Track fewer until either the
+ * lower bound is reached, the search proves no smaller schedule exists, or the time budget runs out.
+ * <p>
+ * A Session may extend a Block to its maximum duration.  The search prunes with bin-packing bounds on the usable
+ * minutes left, treats identical Tracks and equal-length Sessions as interchangeable, and remembers Track states already
+ * shown to fail.
+ * </p>
+ * <p>
+ * The best schedule found so far is always returned; {@link #solve(BlockFormat[], Session[])} also reports whether it
+ * was proven optimal.
+ * </p>
+ *
+ * @see SchedulingStrategy#minimumTracks(BlockFormat[], TreeMap)
+ *
+ */
+public class BranchAndBoundStrategy extends SchedulingStrategy {
+
+    /**
+     * The result of a search: the Tracks and whether no schedule with fewer Tracks exists
+     */
+    public static class Solution {
+	private final Track[] tracks;
+	private final boolean provenOptimal;
+
+	Solution(Track[] tracks, boolean provenOptimal) {
+	    this.tracks = tracks;
+	    this.provenOptimal = provenOptimal;
+	}
+
+	/**
+	 * @return the Tracks with Sessions scheduled
+	 */
+	public Track[] getTracks() {
+	    return tracks;
+	}
+
+	/**
+	 * @return true if the search proved that no schedule uses fewer Tracks
+	 */
+	public boolean isProvenOptimal() {
+	    return provenOptimal;
+	}
+    }
+
+    //how often the clock is checked during the search
+    private static final int NODES_PER_CLOCK_CHECK = 1024;
+
+    //bound on remembered failed states
+    private static final int MAX_FAILED_STATES = 1 << 18;
+
+    private final long timeBudgetMillis;
+
+    /**
+     * Instantiates the strategy with the default time budget
+     *
+     * @see Config#BRANCH_AND_BOUND_TIME_BUDGET_MILLIS
+     */
+    public BranchAndBoundStrategy() {
+	this(Config.BRANCH_AND_BOUND_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param timeBudgetMillis wall-clock time after which the search stops and returns its best schedule
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    public BranchAndBoundStrategy(long timeBudgetMillis) throws IllegalArgumentException {
+	if (timeBudgetMillis < 0)
+	    throw new IllegalArgumentException("Time budget must be zero or greater.");
+	this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * @return wall-clock time after which the search stops
+     */
+    public long getTimeBudgetMillis() {
+	return timeBudgetMillis;
+    }
+
+    /**
+     * @return the class name and the time budget
+     * @see com.doughalperin.scheduler.SchedulingStrategy#getCacheIdentity()
+     */
+    @Override
+    public String getCacheIdentity() {
+	return super.getCacheIdentity() + "(" + timeBudgetMillis + ")";
+    }
+
+    /* (non-Javadoc)
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	return solve(blocks, sessions, run).getTracks();
+    }
+
+    /**
+     * Searches for the schedule with the fewest Tracks within the time budget.  The search is not recorded in the
+     * metrics of the strategy.
+     *
+     * @param blocks time blocks in which Tracks are divided
+     * @param sessions all the Sessions to schedule
+     * @return the best schedule found and whether it is proven optimal
+     * @throws IllegalArgumentException if a Session cannot be scheduled
+     */
+    public Solution solve(BlockFormat[] blocks, Session[] sessions) throws IllegalArgumentException {
+	return solve(blocks, sessions, new StrategyMetrics.Run());
+    }
+
+    /**
+     * Searches as {@link #solve(BlockFormat[], Session[])} does, counting the greedy schedules it starts from into
+     * the run rather than into the metrics of the greedy strategies
+     */
+    private Solution solve(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	long deadline = System.nanoTime() + timeBudgetMillis * 1000000L;
+
+	//incumbent from the greedy strategies
+	Track[] best = new FirstFitDecreasingStrategy().schedule(blocks, sessions, run);
+	Track[] bestFit = new BestFitDecreasingStrategy().schedule(blocks, sessions, run);
+	if (bestFit.length < best.length)
+	    best = bestFit;
+
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions);
+	int lowerBound = minimumTracks(blocks, groups);
+	if (best.length <= lowerBound)
+	    return new Solution(best, true);
+
+	Search search = new Search(blocks, groups, deadline);
+	for (int k = best.length - 1; k >= lowerBound; k--) {
+	    int[] assignment = search.run(k);
+	    if (assignment == null)
+		//either proven infeasible or out of time
+		return new Solution(best, !search.aborted);
+	    best = search.build(assignment, k);
+	}
+	return new Solution(best, true);
+    }
+
+    /**
+     * State of a depth-first search for a schedule with a given number of Tracks.  Sessions are taken longest first; a
+     * slot is a working block of a Track numbered track * workingCount + block.
+     */
+    private static class Search {
+	private final BlockTemplate template;
+	private final long deadline;
+	private final int workingCount;
+	private final int[] capacity;
+	private final Session[] items;
+	private final int[] size;
+	private final boolean[] sameAsPrevious;
+	private final long[] suffixMinutes;
+	private final int smallest;
+
+	private final HashSet<State> failed = new HashSet<State>();
+	private boolean aborted;
+
+	//per search
+	private int tracks;
+	private int[] residual;
+	private int[] itemsInTrack;
+	private int openTracks;
+	private long usable;
+
+	Search(BlockFormat[] blocks, TreeMap<Integer, ArrayList<Session>> groups, long deadline) {
+	    template = new BlockTemplate(blocks);
+	    this.deadline = deadline;
+
+	    workingCount = template.getWorkingCount();
+	    capacity = template.getMaxDurations();
+
+	    int n = 0;
+	    for (ArrayList<Session> group : groups.values())
+		n += group.size();
+	    items = new Session[n];
+	    size = new int[n];
+	    sameAsPrevious = new boolean[n];
+	    int i = 0;
+	    for (Map.Entry<Integer, ArrayList<Session>> group : groups.descendingMap().entrySet()) {
+		boolean first = true;
+		for (Session s : group.getValue()) {
+		    items[i] = s;
+		    size[i] = group.getKey();
+		    sameAsPrevious[i] = !first;
+		    first = false;
+		    i++;
+		}
+	    }
+	    suffixMinutes = new long[n + 1];
+	    for (i = n - 1; i >= 0; i--)
+		suffixMinutes[i] = suffixMinutes[i + 1] + size[i];
+	    smallest = n == 0 ? 0 : size[n - 1];
+	}
+
+	/**
+	 * Searches for a schedule using the given number of Tracks
+	 *
+	 * @param k the number of Tracks
+	 * @return the slot of each item or null if none was found; aborted is set if the search ran out of time
+	 */
+	int[] run(int k) {
+	    tracks = k;
+	    residual = new int[k * workingCount];
+	    for (int t = 0; t < k; t++)
+		System.arraycopy(capacity, 0, residual, t * workingCount, workingCount);
+	    itemsInTrack = new int[k];
+	    openTracks = 0;
+	    usable = 0;
+	    for (int r : residual)
+		if (r >= smallest)
+		    usable += r;
+	    failed.clear();
+
+	    int n = items.length;
+	    int[] choice = new int[n];
+	    State[] entered = new State[n];
+	    long nodes = 0;
+
+	    int i = 0;
+	    choice[0] = -1;
+	    entered[0] = new State(0, residual, k, workingCount);
+	    while (i >= 0) {
+		if (i == n)
+		    return choice;
+
+		int from = choice[i] + 1;
+		if (choice[i] >= 0)
+		    remove(i, choice[i]);
+		int slot = nextSlot(i, from, choice);
+		if (slot < 0) {
+		    //every choice at this depth failed
+		    if (entered[i] != null && failed.size() < MAX_FAILED_STATES)
+			failed.add(entered[i]);
+		    i--;
+		    continue;
+		}
+		place(i, slot);
+		choice[i] = slot;
+
+		if (++nodes % NODES_PER_CLOCK_CHECK == 0
+			&& (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+		    aborted = true;
+		    return null;
+		}
+
+		//enter the next depth unless it can be pruned
+		int next = i + 1;
+		if (next == n) {
+		    i = next;
+		    continue;
+		}
+		if (suffixMinutes[next] > usable)
+		    continue;
+		entered[next] = null;
+		if (!sameAsPrevious[next]) {
+		    //state is fully described by the Track contents only at the start of a group
+		    State state = new State(next, residual, k, workingCount);
+		    if (failed.contains(state))
+			continue;
+		    entered[next] = state;
+		}
+		choice[next] = -1;
+		i = next;
+	    }
+	    return null;
+	}
+
+	/**
+	 * Finds the next slot to try for an item.  Equal-length items are placed in non-decreasing slot order, only the
+	 * first empty Track is tried, and a Track or Block identical to the one before it is skipped.
+	 */
+	private int nextSlot(int i, int from, int[] choice) {
+	    int s = size[i];
+	    boolean symmetric = !sameAsPrevious[i];
+	    if (sameAsPrevious[i])
+		from = Math.max(from, choice[i - 1]);
+	    int limit = Math.min(openTracks + 1, tracks) * workingCount;
+	    for (int slot = from; slot < limit; slot++) {
+		if (residual[slot] < s)
+		    continue;
+		int t = slot / workingCount;
+		int b = slot % workingCount;
+		if (symmetric) {
+		    if (sameBlockBefore(t, b) || (t > 0 && sameTrack(t - 1, t)))
+			continue;
+		}
+		return slot;
+	    }
+	    return -1;
+	}
+
+	private boolean sameBlockBefore(int t, int b) {
+	    int base = t * workingCount;
+	    for (int j = 0; j < b; j++)
+		if (capacity[j] == capacity[b] && residual[base + j] == residual[base + b])
+		    return true;
+	    return false;
+	}
+
+	private boolean sameTrack(int t1, int t2) {
+	    for (int j = 0; j < workingCount; j++)
+		if (residual[t1 * workingCount + j] != residual[t2 * workingCount + j])
+		    return false;
+	    return true;
+	}
+
+	private void place(int i, int slot) {
+	    int before = residual[slot];
+	    int after = before - size[i];
+	    residual[slot] = after;
+	    usable -= usableMinutes(before) - usableMinutes(after);
+	    int t = slot / workingCount;
+	    if (itemsInTrack[t]++ == 0)
+		openTracks++;
+	}
+
+	private void remove(int i, int slot) {
+	    int before = residual[slot];
+	    int after = before + size[i];
+	    residual[slot] = after;
+	    usable += usableMinutes(after) - usableMinutes(before);
+	    int t = slot / workingCount;
+	    if (--itemsInTrack[t] == 0)
+		openTracks--;
+	}
+
+	private int usableMinutes(int r) {
+	    return r >= smallest ? r : 0;
+	}
+
+	/**
+	 * Creates Tracks holding the items in their assigned slots
+	 */
+	Track[] build(int[] assignment, int k) {
+	    Track[] result = new Track[k];
+	    for (int t = 0; t < k; t++)
+		result[t] = new Track(template);
+	    for (int i = 0; i < items.length; i++) {
+		int slot = assignment[i];
+		result[slot / workingCount].getWorkingBlocks()[slot % workingCount].place(items[i]);
+	    }
+	    return result;
+	}
+    }
+
+    /**
+     * Search state at the start of a group of equal-length items: the item reached and the residual minutes of each
+     * Track, with Tracks sorted since they are interchangeable
+     */
+    private static class State {
+	private final int[] key;
+	private final int hash;
+
+	State(int item, int[] residual, int tracks, int workingCount) {
+	    int[][] rows = new int[tracks][];
+	    for (int t = 0; t < tracks; t++)
+		rows[t] = Arrays.copyOfRange(residual, t * workingCount, (t + 1) * workingCount);
+	    Arrays.sort(rows, new Comparator<int[]>() {
+		@Override
+		public int compare(int[] a, int[] b) {
+		    for (int j = 0; j < a.length; j++)
+			if (a[j] != b[j])
+			    return a[j] < b[j] ? -1 : 1;
+		    return 0;
+		}
+	    });
+	    key = new int[tracks * workingCount + 1];
+	    key[0] = item;
+	    for (int t = 0; t < tracks; t++)
+		System.arraycopy(rows[t], 0, key, 1 + t * workingCount, workingCount);
+	    hash = Arrays.hashCode(key);
+	}
+
+	@Override
+	public int hashCode() {
+	    return hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+	    return o instanceof State && Arrays.equals(key, ((State)o).key);
+	}
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests BranchAndBoundStrategy class
+ *
+ * @see BranchAndBoundStrategy
+ */
+public class BranchAndBoundStrategyTest {
+
+    final BlockFormat[] oneBlock = {
+	    new BlockFormat("Sessions", new TimeOffset(0, 9, 0), true, true, 180, 180)
+    };
+
+    /**
+     * Builds the classic instance on which first fit decreasing uses 11 Blocks where 9 suffice
+     */
+    private Session[] firstFitAdversary() {
+	ArrayList<Session> sessions = new ArrayList<Session>();
+	int[][] mix = {{92, 6}, {49, 6}, {47, 6}, {41, 12}};
+	for (int[] m : mix)
+	    for (int i = 0; i < m[1]; i++)
+		sessions.add(new Session("Session" + sessions.size(), m[0]));
+	return sessions.toArray(new Session[]{});
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BranchAndBoundStrategy#solve(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testBeatsFirstFit() {
+	Session[] sessions = firstFitAdversary();
+	assertEquals(11, new FirstFitDecreasingStrategy().apply(oneBlock, sessions).length);
+
+	BranchAndBoundStrategy.Solution solution = new BranchAndBoundStrategy(10000).solve(oneBlock, sessions);
+	assertEquals(9, solution.getTracks().length);
+	assertTrue(solution.isProvenOptimal());
+	assertValid(solution.getTracks(), sessions.length);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BranchAndBoundStrategy#solve(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testNeverWorseThanFirstFit() {
+	int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 75, 200};
+	Random random = new Random(11);
+	for (int c = 0; c < 5; c++) {
+	    Session[] sessions = new Session[40 + c * 40];
+	    for (int i = 0; i < sessions.length; i++)
+		sessions[i] = new Session("Session" + i, durations[random.nextInt(durations.length)]);
+	    Track[] tracks = new BranchAndBoundStrategy(200).apply(Config.BLOCKS, sessions);
+	    assertTrue("case#" + c, tracks.length <= new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions).length);
+	    assertValid(tracks, sessions.length);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.BranchAndBoundStrategy#BranchAndBoundStrategy(long)}.
+     */
+    @Test
+    public void testNegativeBudget() {
+	boolean exceptionOccurred = false;
+	try {
+	    new BranchAndBoundStrategy(-1);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+    /**
+     * Asserts every Session is placed and no Block runs past its maximum duration
+     */
+    private void assertValid(Track[] tracks, int sessionCount) {
+	int placed = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks()) {
+		assertTrue(wb.toString(), wb.getUsedMinutes() <= wb.getMaxDuration());
+		placed += wb.getSessions().size();
+	    }
+	assertEquals(sessionCount, placed);
+    }
+
+}
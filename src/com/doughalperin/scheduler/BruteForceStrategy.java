@@ -4,6 +4,7 @@
 package com.doughalperin.scheduler;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -19,10 +20,11 @@ import java.util.TreeMap;
  */
 public class BruteForceStrategy extends SchedulingStrategy {
     /* (non-Javadoc)
-     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.Block[], com.doughalperin.scheduler.Session[])
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
      */
     @Override
-    public Track[] apply(BlockFormat[] blocks, Session[] sessions) throws IllegalArgumentException {
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
 	ArrayList<Track> tracks = new ArrayList<Track>();
 	
 	//start with 1 track 
@@ -31,10 +33,10 @@ public class BruteForceStrategy extends SchedulingStrategy {
 	if (sessions.length == 0)
 	    return tracks.toArray(new Track[]{});
 	
-	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions);
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions, run);
 	
 	//place groups into tracks
-	execute(groups, tracks);
+	execute(groups, tracks, run);
 
 	//return working tracks that were created 
 	return tracks.toArray(new Track[]{});
@@ -42,80 +44,100 @@ public class BruteForceStrategy extends SchedulingStrategy {
     }
     
     /**
-     * Recursively complete the steps to place Sessions into Tracks. After a Session is placed, this method is called again to
-     * place the remaining Sessions in Tracks.
+     * Recursively complete the steps to place Sessions into Tracks. Equal-length Sessions are placed as a batch: as many
+     * as fit into the chosen Block are placed in one step, and then this method is called again to place the remaining
+     * Sessions in Tracks.
      * 
      * @param groups the remaining groups of Sessions (grouped by duration) to Schedule
      * @param tracks the current set of Tracks that have been created
      * @throws IllegalArgumentException when a schedule cannot be created because a Session is too long to fit in a Track
      */
     public void execute(TreeMap<Integer, ArrayList<Session>> groups, ArrayList<Track> tracks) 
-    		throws IllegalArgumentException {
+		throws IllegalArgumentException {
+	execute(groups, tracks, new StrategyMetrics.Run());
+    }
+
+    private void execute(TreeMap<Integer, ArrayList<Session>> groups, ArrayList<Track> tracks, StrategyMetrics.Run run) 
+		throws IllegalArgumentException {
 
 	if (groups.isEmpty())
 	    //we did it!
 	    return;
+	checkCancelled();
 	
-	//work on biggest item in list
-	Map.Entry<Integer, ArrayList<Session>> largest = (Map.Entry<Integer, ArrayList<Session>>)groups.lastEntry();
+	//work on biggest items in list
+	Map.Entry<Integer, ArrayList<Session>> largest = groups.lastEntry();
 	int minutes = largest.getKey();
 	ArrayList<Session> sessions = largest.getValue();
-	Session session = sessions.remove(0);
-	if (sessions.isEmpty())
-	    groups.remove(minutes);
 	
 	PlacementResult placed = PlacementResult.FAILED;
 	//first try against minDuration
 	Track maxAltTrack = null;
 	for (Track t : tracks) {
-	    placed = place(t, session, false);
+	    placed = place(t, sessions, false, Integer.MAX_VALUE, run);
 	    if (placed == PlacementResult.PLACED)
 		break;
 	    if (placed == PlacementResult.COULD_PLACE_AT_MAX && maxAltTrack == null)
 		maxAltTrack = t;
 	}
 	if (placed != PlacementResult.PLACED && maxAltTrack != null) {
-	    placed = place(maxAltTrack, session, true);
+	    placed = place(maxAltTrack, sessions, true, Integer.MAX_VALUE, run);
 	    assert(placed == PlacementResult.PLACED);
+	    run.maxDurationFallback();
 	}
 	
 	if (placed != PlacementResult.PLACED) {
 	    //add a new track and see if it will fit...otherwise we fail
-	    Track t = new Track(tracks.get(0).getOriginalBlocks());
+	    Track t = new Track(tracks.get(0).getTemplate());
 	
-	    //at this point assume max space available and it will be used if needed
-	    placed = place(t, session, true);
+	    //at this point assume max space available and it will be used if needed; 
+	    //only one Session since the next may fit a later Block without extending this one
+	    placed = place(t, sessions, true, 1, run);
 	    if (placed == PlacementResult.FAILED)
-		throw new IllegalArgumentException("Session [" + session.getName() + "] of " + minutes 
+		throw new IllegalArgumentException("Session [" + sessions.get(0).getName() + "] of " + minutes 
 			+ " minutes does not fit in any track.");
 	    tracks.add(t);
 	}
+	if (sessions.isEmpty())
+	    groups.remove(minutes);
 
 	//place remaining groups into tracks
-	execute(groups, tracks);
+	execute(groups, tracks, run);
 	
     }
 
     /**
-     * Attempts to place Session in the specified Track
+     * Attempts to place a batch of equal-length Sessions in the specified Track.  The Sessions placed are removed from 
+     * the front of the list.
      * 
-     * @param t the Track in which to place the Session
-     * @param session to place
-     * @param placeInMax whether or not the operation will extend a Block (if it can be) in order to accommodate the Session
+     * @param t the Track in which to place the Sessions
+     * @param sessions equal-length Sessions to place, in order
+     * @param placeInMax whether or not the operation will extend a Block (if it can be) in order to accommodate the Sessions
+     * @param limit the most Sessions to place
+     * @param run the counts of the current run
      * @return PlacementResult indicating the success of the placement attempt
      */
-    private PlacementResult place(Track t, Session session, boolean placeInMax) {
+    private PlacementResult place(Track t, ArrayList<Session> sessions, boolean placeInMax, int limit, 
+	    StrategyMetrics.Run run) {
 	//finds first working block that will fit the session
-	int minutes = session.getMinutes();
+	int minutes = sessions.get(0).getMinutes();
 	boolean canPlaceInMax = false;
+	int scanned = 0;
 	for (ScheduleBlock wb : t.getWorkingBlocks()) {
-	    if (wb.getAvailableMinutes(placeInMax) >= minutes) {
-		wb.place(session);
+	    scanned++;
+	    int available = wb.getAvailableMinutes(placeInMax);
+	    if (available >= minutes) {
+		//every Block before this one is still too small, so this Block takes as many as it can hold
+		List<Session> batch = sessions.subList(0, Math.min(Math.min(limit, available / minutes), sessions.size()));
+		wb.place(batch);
+		batch.clear();
+		run.attempt(scanned);
 		return PlacementResult.PLACED;
 	    }
 	    if (!placeInMax && wb.getAvailableMinutes(true) >= minutes)
 		canPlaceInMax = true;
 	}
+	run.attempt(scanned);
 	if (canPlaceInMax)
 	    return PlacementResult.COULD_PLACE_AT_MAX;
 	return PlacementResult.FAILED;
@@ -0,0 +1,122 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Index over the residual capacities of a growing sequence of slots (for example every working ScheduleBlock of every
+ * Track, in Track order).  It answers "which is the first slot with at least N minutes left" in O(log slots).
+ * <p>
+ * The index is a max segment tree stored in a flat array; leaves that are not yet in use hold Integer.MIN_VALUE so they
+ * never satisfy a query.
+ * </p>
+ * <p>
+ * Note this is not thread-safe.
+ * </p>
+ *
+ * @see ResidualScan
+ */
+class CapacityIndex implements SlotIndex {
+    
+    private static final int EMPTY = Integer.MIN_VALUE;
+    
+    //tree[1] is the root; leaves start at tree[capacity]
+    private int[] tree;
+    private int capacity;
+    private int size;
+    
+    /**
+     * Creates an empty index
+     * 
+     * @param initialCapacity the number of slots expected; the index grows as needed
+     */
+    CapacityIndex(int initialCapacity) {
+	capacity = 1;
+	while (capacity < initialCapacity)
+	    capacity <<= 1;
+	tree = new int[capacity * 2];
+	Arrays.fill(tree, EMPTY);
+	size = 0;
+    }
+    
+    /**
+     * @return the number of slots in the index
+     */
+    @Override
+    public int size() {
+	return size;
+    }
+    
+    /**
+     * Appends a slot to the end of the index
+     * 
+     * @param value the residual capacity of the new slot
+     * @return the position of the new slot
+     */
+    @Override
+    public int add(int value) {
+	if (size == capacity)
+	    grow();
+	set(size, value);
+	return size++;
+    }
+    
+    /**
+     * @param slot position of the slot
+     * @return the residual capacity of the slot
+     */
+    @Override
+    public int get(int slot) {
+	return tree[capacity + slot];
+    }
+    
+    /**
+     * Updates the residual capacity of a slot
+     * 
+     * @param slot position of the slot
+     * @param value the new residual capacity
+     */
+    @Override
+    public void set(int slot, int value) {
+	int node = capacity + slot;
+	tree[node] = value;
+	for (node >>= 1; node > 0; node >>= 1) {
+	    int max = Math.max(tree[2 * node], tree[2 * node + 1]);
+	    if (tree[node] == max)
+		break;
+	    tree[node] = max;
+	}
+    }
+    
+    /**
+     * Finds the lowest positioned slot with a residual capacity of at least the value
+     * 
+     * @param value the capacity required
+     * @return the position of the slot or -1 if no slot has enough capacity
+     */
+    @Override
+    public int firstAtLeast(int value) {
+	if (tree[1] < value)
+	    return -1;
+	int node = 1;
+	while (node < capacity) 
+	    node = tree[2 * node] >= value ? 2 * node : 2 * node + 1;
+	return node - capacity;
+    }
+    
+    /**
+     * Doubles the number of leaves and rebuilds the inner nodes
+     */
+    private void grow() {
+	int[] old = tree;
+	capacity <<= 1;
+	tree = new int[capacity * 2];
+	Arrays.fill(tree, EMPTY);
+	System.arraycopy(old, old.length / 2, tree, capacity, old.length / 2);
+	for (int node = capacity - 1; node > 0; node--)
+	    tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+    }
+
+}
@@ -0,0 +1,54 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the CapacityIndex class against a plain scan of the same values
+ *
+ * @see CapacityIndex
+ */
+public class CapacityIndexTest {
+
+    private static int firstAtLeast(int[] values, int size, int value) {
+	for (int i = 0; i < size; i++)
+	    if (values[i] >= value)
+		return i;
+	return -1;
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.CapacityIndex#firstAtLeast(int)}.
+     */
+    @Test
+    public void testFirstAtLeast() {
+	Random random = new Random(3);
+	CapacityIndex index = new CapacityIndex(1);
+	int[] values = new int[5000];
+	int size = 0;
+	assertEquals(-1, index.firstAtLeast(1));
+	for (int step = 0; step < 20000; step++) {
+	    if (size < values.length && (size == 0 || random.nextInt(4) == 0)) {
+		values[size] = random.nextInt(240) - 60;
+		assertEquals(size, index.add(values[size]));
+		size++;
+	    } else {
+		int slot = random.nextInt(size);
+		values[slot] = random.nextInt(240) - 60;
+		index.set(slot, values[slot]);
+	    }
+	    int value = 1 + random.nextInt(240);
+	    assertEquals("step#" + step, firstAtLeast(values, size, value), index.firstAtLeast(value));
+	}
+	assertEquals(size, index.size());
+	for (int i = 0; i < size; i++)
+	    assertEquals(values[i], index.get(i));
+    }
+
+}
@@ -0,0 +1,204 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Generates synthetic conferences: Session lines in the input file format, with lengths drawn from a chosen
+ * distribution.  The same distribution and seed always give the same lines.
+ * <p>
+ * Names are made only of letters, since digits end a Session name, and lengths are written as <i>lightning</i> or in
+ * minutes.
+ * </p>
+ *
+ * @see Session#getInstanceFromString(String)
+ */
+public class ConferenceGenerator {
+
+    /**
+     * Distributions of Session lengths
+     * <ul>
+     * <li>UNIFORM - any multiple of 5 minutes up to an hour, equally likely</li>
+     * <li>LIGHTNING_HEAVY - mostly lightning talks with some 30, 45 and 60 minute Sessions</li>
+     * <li>LONG_TAIL - mostly 30 to 60 minute Sessions with a tail of longer ones up to the 240 minute afternoon
+     * maximum, each step half as likely as the one before</li>
+     * <li>ADVERSARIAL - in shuffled runs of 30, six each of 92, 49 and 47 minutes and twelve of 41, on which first fit
+     * decreasing fills 180 minute Blocks poorly</li>
+     * </ul>
+     */
+    public enum Distribution {UNIFORM, LIGHTNING_HEAVY, LONG_TAIL, ADVERSARIAL}
+
+    private static final int[] ADVERSARIAL_RUN = buildAdversarialRun();
+
+    private final Distribution distribution;
+    private final Random random;
+    private int count;
+    private int[] run;
+    //next position in the current run
+    private int runPosition;
+
+    /**
+     * @param distribution the distribution of Session lengths
+     * @param seed the seed from which the Sessions are generated
+     */
+    public ConferenceGenerator(Distribution distribution, long seed) {
+	if (distribution == null)
+	    throw new IllegalArgumentException("Distribution must be specified.");
+	this.distribution = distribution;
+	random = new Random(seed);
+	count = 0;
+	runPosition = 0;
+    }
+
+    private static int[] buildAdversarialRun() {
+	int[][] mix = {{92, 6}, {49, 6}, {47, 6}, {41, 12}};
+	int[] r = new int[30];
+	int i = 0;
+	for (int[] m : mix)
+	    for (int j = 0; j < m[1]; j++)
+		r[i++] = m[0];
+	return r;
+    }
+
+    /**
+     * @return the length in minutes of the next Session
+     */
+    public int nextMinutes() {
+	switch (distribution) {
+	case LIGHTNING_HEAVY:
+	    if (random.nextInt(10) < 7)
+		return Config.LIGHTNING_MINUTES;
+	    return 30 + 15 * random.nextInt(3);
+	case LONG_TAIL:
+	    if (random.nextInt(10) < 9)
+		return 30 + 15 * random.nextInt(3);
+	    int m = 90;
+	    while (m < 240 && random.nextBoolean())
+		m += 30;
+	    return m;
+	case ADVERSARIAL:
+	    if (runPosition == 0) {
+		run = ADVERSARIAL_RUN.clone();
+		for (int i = run.length - 1; i > 0; i--) {
+		    int j = random.nextInt(i + 1);
+		    int t = run[i];
+		    run[i] = run[j];
+		    run[j] = t;
+		}
+	    }
+	    int k = runPosition;
+	    runPosition = (runPosition + 1) % run.length;
+	    return run[k];
+	default:
+	    return 5 * (1 + random.nextInt(12));
+	}
+    }
+
+    /**
+     * @return the next Session line, without a line terminator
+     */
+    public String nextLine() {
+	int m = nextMinutes();
+	StringBuilder sb = new StringBuilder("Talk ");
+	//the Session number in letters keeps names distinct
+	int n = count++;
+	do {
+	    sb.append((char)('a' + n % 26));
+	    n /= 26;
+	} while (n > 0);
+	sb.append(' ');
+	if (m == Config.LIGHTNING_MINUTES)
+	    sb.append("lightning");
+	else
+	    sb.append(m).append("min");
+	return sb.toString();
+    }
+
+    /**
+     * @param sessions number of Sessions
+     * @return the next Sessions
+     */
+    public Session[] nextSessions(int sessions) {
+	Session[] result = new Session[sessions];
+	for (int i = 0; i < sessions; i++)
+	    result[i] = Session.getInstanceFromString(nextLine());
+	return result;
+    }
+
+    /**
+     * Writes the next Session lines, each followed by a line feed
+     *
+     * @param out where the lines go
+     * @param sessions number of lines
+     * @throws IOException when errors occur in writing
+     */
+    public void write(Writer out, long sessions) throws IOException {
+	for (long i = 0; i < sessions; i++) {
+	    out.write(nextLine());
+	    out.write('\n');
+	}
+	out.flush();
+    }
+
+    /**
+     * Writes the next Session lines to a UTF-8 file
+     *
+     * @param file complete path of the file to write
+     * @param sessions number of lines
+     * @throws IOException when errors occur in writing
+     */
+    public void writeFile(String file, long sessions) throws IOException {
+	Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"), 1 << 16);
+	try {
+	    write(out, sessions);
+	} finally {
+	    out.close();
+	}
+    }
+
+    /**
+     * Writes a synthetic conference file.
+     * <p>
+     * Command line properties that are read:
+     * <ul>
+     * <li>file - the name of the file to write.  This is required.</li>
+     * <li>count - the number of Sessions.  This is optional and defaults to 1000.</li>
+     * <li>distribution - one of <i>UNIFORM</i>, <i>LIGHTNING_HEAVY</i>, <i>LONG_TAIL</i> or <i>ADVERSARIAL</i>.  This
+     * is optional and defaults to UNIFORM.</li>
+     * <li>seed - the seed.  This is optional and defaults to 1.</li>
+     * </ul>
+     * </p>
+     *
+     * @param args unused - use -D options on command line
+     */
+    public static void main(String[] args) {
+	String file = System.getProperty("file");
+	if (file == null) {
+	    System.err.println("File to write not specified.");
+	    return;
+	}
+	ConferenceGenerator generator;
+	long count;
+	try {
+	    count = Long.parseLong(System.getProperty("count", "1000"));
+	    generator = new ConferenceGenerator(Distribution.valueOf(System.getProperty("distribution", "UNIFORM")),
+		    Long.parseLong(System.getProperty("seed", "1")));
+	} catch (IllegalArgumentException e) {
+	    System.err.println("Invalid count, distribution or seed specified.");
+	    return;
+	}
+	try {
+	    generator.writeFile(file, count);
+	} catch (IOException e) {
+	    e.printStackTrace();
+	}
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests ConferenceGenerator class
+ *
+ * @see ConferenceGenerator
+ */
+public class ConferenceGeneratorTest {
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ConferenceGenerator#nextLine()}.
+     */
+    @Test
+    public void testReproducible() {
+	for (ConferenceGenerator.Distribution d : ConferenceGenerator.Distribution.values()) {
+	    ConferenceGenerator a = new ConferenceGenerator(d, 7);
+	    ConferenceGenerator b = new ConferenceGenerator(d, 7);
+	    for (int i = 0; i < 1000; i++)
+		assertEquals(d + " line#" + i, a.nextLine(), b.nextLine());
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ConferenceGenerator#nextSessions(int)}.
+     */
+    @Test
+    public void testDistributions() {
+	for (ConferenceGenerator.Distribution d : ConferenceGenerator.Distribution.values()) {
+	    Session[] sessions = new ConferenceGenerator(d, 3).nextSessions(3000);
+	    int[] counts = new int[241];
+	    for (Session s : sessions) {
+		int m = s.getMinutes();
+		assertTrue(d + " " + s, m > 0 && m <= 240);
+		counts[m]++;
+	    }
+	    switch (d) {
+	    case LIGHTNING_HEAVY:
+		assertTrue(d.toString(), counts[Config.LIGHTNING_MINUTES] > sessions.length / 2);
+		break;
+	    case LONG_TAIL:
+		assertTrue(d.toString(), counts[240] > 0);
+		break;
+	    case ADVERSARIAL:
+		assertEquals(600, counts[92]);
+		assertEquals(600, counts[49]);
+		assertEquals(600, counts[47]);
+		assertEquals(1200, counts[41]);
+		break;
+	    default:
+		for (int m = 5; m <= 60; m += 5)
+		    assertTrue(d + " " + m, counts[m] > 0);
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ConferenceGenerator#nextMinutes()}.
+     */
+    @Test
+    public void testNextMinutes() {
+	ConferenceGenerator g = new ConferenceGenerator(ConferenceGenerator.Distribution.ADVERSARIAL, 5);
+	int[] counts = new int[241];
+	for (int i = 0; i < 300; i++)
+	    counts[g.nextMinutes()]++;
+	assertEquals(60, counts[92]);
+	assertEquals(60, counts[49]);
+	assertEquals(60, counts[47]);
+	assertEquals(120, counts[41]);
+
+	//lines and lengths alike take the next length of the run
+	ConferenceGenerator a = new ConferenceGenerator(ConferenceGenerator.Distribution.ADVERSARIAL, 5);
+	ConferenceGenerator b = new ConferenceGenerator(ConferenceGenerator.Distribution.ADVERSARIAL, 5);
+	for (int i = 0; i < 100; i++)
+	    assertEquals("#" + i, a.nextMinutes(), b.nextSessions(1)[0].getMinutes());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ConferenceGenerator#writeFile(String, long)}.
+     */
+    @Test
+    public void testWriteFile() throws IOException {
+	File f = File.createTempFile("conference", ".txt");
+	f.deleteOnExit();
+	new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, 5).writeFile(f.getPath(), 500);
+	ArrayList<Session> read = new SessionFileParser(Charset.forName("UTF-8")).parseFile(f.getPath());
+	Session[] expected = new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, 5).nextSessions(500);
+	assertEquals(expected.length, read.size());
+	for (int i = 0; i < expected.length; i++) {
+	    assertEquals(expected[i].getName(), read.get(i).getName());
+	    assertEquals(expected[i].getMinutes(), read.get(i).getMinutes());
+	}
+    }
+
+}
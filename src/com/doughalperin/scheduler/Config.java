@@ -17,6 +17,27 @@ public class Config {
      */
     public static Schedule.FileEncoding DEFAULT_FILE_ENCODING = Schedule.FileEncoding.UTF8;
     
+    /**
+     * Size in bytes from which input files are parsed in concurrent chunks
+     * 
+     * @see SessionFileParser
+     */
+    public static final long PARALLEL_PARSE_MIN_BYTES = 8L << 20;
+    
+    /**
+     * Smallest chunk in bytes of an input file parsed on its own
+     * 
+     * @see SessionFileParser
+     */
+    public static final int PARALLEL_PARSE_CHUNK_BYTES = 1 << 20;
+    
+    /**
+     * Most bytes kept in a schedule cache directory
+     * 
+     * @see ScheduleCache
+     */
+    public static final long CACHE_MAX_BYTES = 256L << 20;
+    
     /** 
      * Minutes in a lightning session
      * 
@@ -47,9 +68,65 @@ public class Config {
      * Default Strategy to use for scheduling
      * 
      *  @see SchedulingStrategy
-     *  @see BruteForceStrategy
+     *  @see FirstFitDecreasingStrategy
+     **/
+    public static final SchedulingStrategy DEFAULT_STRATEGY = new FirstFitDecreasingStrategy();
+    
+    /**
+     * Default wall-clock time in milliseconds the branch and bound search may take before returning its best schedule
+     * 
+     *  @see BranchAndBoundStrategy
+     **/
+    public static final long BRANCH_AND_BOUND_TIME_BUDGET_MILLIS = 5000;
+    
+    /**
+     * Default wall-clock time in milliseconds after which the portfolio returns the best schedule found so far
+     * 
+     *  @see PortfolioStrategy
+     **/
+    public static final long PORTFOLIO_TIME_BUDGET_MILLIS = 2000;
+    
+    /**
+     * Most milliseconds a server request waits for its schedule
+     * 
+     *  @see ScheduleServer
+     **/
+    public static final long SERVER_REQUEST_TIMEOUT_MILLIS = 10000;
+    
+    /**
+     * Threads handling server requests when the JVM has no virtual threads
+     * 
+     *  @see ScheduleServer
+     **/
+    public static final int SERVER_THREADS = 64;
+    
+    /**
+     * Largest server request body in bytes
+     * 
+     *  @see ScheduleServer
+     **/
+    public static final int SERVER_MAX_REQUEST_BYTES = 64 << 20;
+    
+    /**
+     * Most distinct sets of Block lines a server keeps parsed
+     * 
+     *  @see ScheduleServer
+     **/
+    public static final int SERVER_MAX_TEMPLATES = 256;
+    
+    /**
+     * Runs of the strategy a server makes before listening
+     * 
+     *  @see ScheduleServer
+     **/
+    public static final int SERVER_WARMUP_RUNS = 50;
+    
+    /**
+     * Most milliseconds a server spends on runs of the strategy before listening
+     * 
+     *  @see ScheduleServer
      **/
-    public static final SchedulingStrategy DEFAULT_STRATEGY = new BruteForceStrategy();
+    public static final long SERVER_WARMUP_MILLIS = 2000;
     
     /** 
      * Prefix on track labels ... before (1-based) numeric index of track
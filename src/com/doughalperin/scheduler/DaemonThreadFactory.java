@@ -0,0 +1,31 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads, numbered after a prefix, so pools of the server, batches and portfolios never keep the JVM
+ * alive once the main thread is done with them
+ */
+class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+    private final String prefix;
+
+    /**
+     * @param prefix start of the name of each thread, followed by its number
+     */
+    DaemonThreadFactory(String prefix) {
+	this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+	Thread t = new Thread(r, prefix + count.incrementAndGet());
+	t.setDaemon(true);
+	return t;
+    }
+
+}
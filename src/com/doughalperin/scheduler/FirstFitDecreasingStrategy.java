@@ -0,0 +1,236 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * First Fit Decreasing Strategy places Sessions exactly as the BruteForceStrategy does - from the longest duration
+ * Sessions to the shortest ones, each into the first available Track Block - but it does so in a loop rather than
+ * recursively, and it finds the first Block that fits by querying an index of residual capacities rather than by
+ * scanning every Track.
+ * <p>
+ * Equal-length Sessions are placed as a batch: as many as fit are placed into the first Block that fits in one step, so
+ * the work grows with the number of distinct durations and Blocks filled rather than with the number of Sessions.  Each
+ * lookup costs O(log blocks) so very large conferences can be scheduled without exhausting the stack.
+ * </p>
+ *
+ * @see BruteForceStrategy
+ * @see CapacityIndex
+ *
+ */
+public class FirstFitDecreasingStrategy extends SchedulingStrategy {
+
+    /* (non-Javadoc)
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	ArrayList<Track> tracks = new ArrayList<Track>();
+
+	//start with 1 track; the rest are made alike
+	BlockTemplate template = new BlockTemplate(blocks);
+	Track first = new Track(template);
+	tracks.add(first);
+
+	if (sessions.length == 0)
+	    return tracks.toArray(new Track[]{});
+
+	int workingCount = first.getWorkingBlocks().length;
+
+	//slots are working blocks of all tracks in order: track * workingCount + block
+	SlotIndex minIndex = newIndex(workingCount * 16);
+	SlotIndex maxIndex = newIndex(workingCount * 16);
+	addSlots(first, minIndex, maxIndex);
+
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions, run);
+
+	//work from the biggest group to the smallest
+	for (Map.Entry<Integer, ArrayList<Session>> group : groups.descendingMap().entrySet()) {
+	    int minutes = group.getKey();
+	    int newTrackBlock = firstBlockAtMax(first, minutes);
+
+	    ArrayList<Session> equalLength = group.getValue();
+	    int next = 0;
+	    while (next < equalLength.size()) {
+		checkCancelled();
+		//first try against minDuration, then extend the first block that could be extended
+		boolean useMax = false;
+		int slot = minIndex.firstAtLeast(minutes);
+		if (slot < 0) {
+		    useMax = true;
+		    slot = maxIndex.firstAtLeast(minutes);
+		}
+		run.attempt(useMax ? 2 : 1);
+
+		int count;
+		if (slot >= 0) {
+		    if (useMax)
+			run.maxDurationFallback();
+		    //every slot before this one is still too small, so this block takes as many as it can hold
+		    ScheduleBlock wb = getWorkingBlock(tracks, slot, workingCount);
+		    count = wb.getAvailableMinutes(useMax) / minutes;
+		} else {
+		    //add a new track and see if it will fit...otherwise we fail
+		    if (newTrackBlock < 0)
+			throw new IllegalArgumentException("Session [" + equalLength.get(next).getName() + "] of " + minutes
+				+ " minutes does not fit in any track.");
+		    Track t = new Track(template);
+		    tracks.add(t);
+		    addSlots(t, minIndex, maxIndex);
+		    slot = (tracks.size() - 1) * workingCount + newTrackBlock;
+		    //only one Session since the next may fit a later block without extending this one
+		    count = 1;
+		}
+		count = Math.min(count, equalLength.size() - next);
+
+		ScheduleBlock wb = getWorkingBlock(tracks, slot, workingCount);
+		wb.place(equalLength.subList(next, next + count));
+		next += count;
+		minIndex.set(slot, wb.getAvailableMinutes(false));
+		maxIndex.set(slot, wb.getAvailableMinutes(true));
+	    }
+	}
+
+	//return working tracks that were created
+	return tracks.toArray(new Track[]{});
+    }
+
+    /**
+     * Places the Sessions of a table exactly as {@link #apply(BlockFormat[], Session[])} does, but without creating
+     * Session or Track objects: the used minutes of each slot are read back from the indexes.
+     * 
+     * @see com.doughalperin.scheduler.SchedulingStrategy#assign(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.SessionTable, com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected int[] assign(BlockFormat[] blocks, SessionTable table, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	BlockTemplate template = new BlockTemplate(blocks);
+	int workingCount = template.getWorkingCount();
+	int[] minDuration = template.getMinDurations();
+	int[] maxDuration = template.getMaxDurations();
+
+	int[] slots = new int[table.size()];
+	if (slots.length == 0)
+	    return slots;
+
+	SlotIndex minIndex = newIndex(workingCount * 16);
+	SlotIndex maxIndex = newIndex(workingCount * 16);
+	addSlots(minDuration, maxDuration, minIndex, maxIndex);
+	int tracks = 1;
+
+	//work from the biggest group to the smallest
+	long start = System.nanoTime();
+	SessionTable.Groups groups = table.group();
+	run.grouped(System.nanoTime() - start);
+	for (int g = groups.count() - 1; g >= 0; g--) {
+	    int minutes = groups.getMinutes(g);
+	    int newTrackBlock = -1;
+	    for (int w = 0; w < workingCount && newTrackBlock < 0; w++)
+		if (maxDuration[w] >= minutes)
+		    newTrackBlock = w;
+
+	    int next = groups.getStart(g);
+	    int end = groups.getEnd(g);
+	    while (next < end) {
+		checkCancelled();
+		//first try against minDuration, then extend the first block that could be extended
+		SlotIndex index = minIndex;
+		int slot = minIndex.firstAtLeast(minutes);
+		if (slot < 0) {
+		    index = maxIndex;
+		    slot = maxIndex.firstAtLeast(minutes);
+		}
+		run.attempt(index == maxIndex ? 2 : 1);
+
+		int count;
+		if (slot >= 0) {
+		    if (index == maxIndex)
+			run.maxDurationFallback();
+		    //every slot before this one is still too small, so this block takes as many as it can hold
+		    count = index.get(slot) / minutes;
+		} else {
+		    //add a new track and see if it will fit...otherwise we fail
+		    if (newTrackBlock < 0)
+			throw new IllegalArgumentException("Session [" + table.getName(groups.getSession(next)) + "] of " 
+				+ minutes + " minutes does not fit in any track.");
+		    addSlots(minDuration, maxDuration, minIndex, maxIndex);
+		    slot = tracks++ * workingCount + newTrackBlock;
+		    //only one Session since the next may fit a later block without extending this one
+		    count = 1;
+		}
+		count = Math.min(count, end - next);
+
+		for (int k = next; k < next + count; k++)
+		    slots[groups.getSession(k)] = slot;
+		next += count;
+		int used = count * minutes;
+		minIndex.set(slot, minIndex.get(slot) - used);
+		maxIndex.set(slot, maxIndex.get(slot) - used);
+	    }
+	}
+	return slots;
+    }
+
+    /**
+     * @param initialCapacity the number of slots expected
+     * @return an empty index of the residual capacities of slots
+     */
+    SlotIndex newIndex(int initialCapacity) {
+	return new CapacityIndex(initialCapacity);
+    }
+
+    /**
+     * Adds the working blocks of a new empty Track to the end of the indexes
+     */
+    private void addSlots(int[] minDuration, int[] maxDuration, SlotIndex minIndex, SlotIndex maxIndex) {
+	for (int w = 0; w < minDuration.length; w++) {
+	    minIndex.add(minDuration[w]);
+	    maxIndex.add(maxDuration[w]);
+	}
+    }
+
+    /**
+     * @param tracks the Tracks created so far
+     * @param slot position of the working block in the indexes
+     * @param workingCount number of working blocks in each Track
+     * @return the working block at the slot
+     */
+    private ScheduleBlock getWorkingBlock(ArrayList<Track> tracks, int slot, int workingCount) {
+	return tracks.get(slot / workingCount).getWorkingBlocks()[slot % workingCount];
+    }
+
+    /**
+     * Adds the working blocks of a new Track to the end of the indexes
+     *
+     * @param t the new Track
+     * @param minIndex index of available minutes against minimum duration
+     * @param maxIndex index of available minutes against maximum duration
+     */
+    private void addSlots(Track t, SlotIndex minIndex, SlotIndex maxIndex) {
+	for (ScheduleBlock wb : t.getWorkingBlocks()) {
+	    minIndex.add(wb.getAvailableMinutes(false));
+	    maxIndex.add(wb.getAvailableMinutes(true));
+	}
+    }
+
+    /**
+     * @param t an empty Track
+     * @param minutes length of the Session to place
+     * @return the index of the first working block of an empty Track that can hold the Session when extended to its maximum
+     * duration or -1 if there is none
+     */
+    private int firstBlockAtMax(Track t, int minutes) {
+	ScheduleBlock[] workingBlocks = t.getWorkingBlocks();
+	for (int i = 0; i < workingBlocks.length; i++)
+	    if (workingBlocks[i].getMaxDuration() >= minutes)
+		return i;
+	return -1;
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+/**
+ * Tests FirstFitDecreasingStrategy class
+ *
+ * @see FirstFitDecreasingStrategy
+ */
+public class FirstFitDecreasingStrategyTest {
+
+    final int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 90, 200};
+
+    /**
+     * Builds a reproducible list of Sessions
+     *
+     * @param count number of Sessions
+     * @param seed random seed
+     * @return the Sessions
+     */
+    private Session[] makeSessions(int count, long seed) {
+	Random random = new Random(seed);
+	Session[] sessions = new Session[count];
+	for (int i = 0; i < count; i++)
+	    sessions[i] = new Session("Session" + i, durations[random.nextInt(durations.length)]);
+	return sessions;
+    }
+
+    /**
+     * Asserts that two sets of Tracks hold the same Sessions in the same Blocks in the same order
+     */
+    static void assertSameTracks(String message, Track[] expected, Track[] actual) {
+	assertEquals(message + " track count", expected.length, actual.length);
+	for (int i = 0; i < expected.length; i++) {
+	    ScheduleBlock[] e = expected[i].getWorkingBlocks();
+	    ScheduleBlock[] a = actual[i].getWorkingBlocks();
+	    assertEquals(message + " block count", e.length, a.length);
+	    for (int j = 0; j < e.length; j++) {
+		ArrayList<Session> es = e[j].getSessions();
+		ArrayList<Session> as = a[j].getSessions();
+		assertEquals(message + " track#" + i + " block#" + j, es.size(), as.size());
+		for (int k = 0; k < es.size(); k++)
+		    assertSame(message + " track#" + i + " block#" + j + " session#" + k, es.get(k), as.get(k));
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testMatchesBruteForce() {
+	int[] counts = {0, 1, 7, 50, 400};
+	for (int i = 0; i < counts.length; i++) {
+	    Session[] sessions = makeSessions(counts[i], i);
+	    Track[] expected = new BruteForceStrategy().apply(Config.BLOCKS, sessions);
+	    Track[] actual = new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions);
+	    assertSameTracks("case#" + i, expected, actual);
+	    actual = new ResidualScanStrategy().apply(Config.BLOCKS, sessions);
+	    assertSameTracks("scan case#" + i, expected, actual);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testLargeInput() {
+	Session[] sessions = makeSessions(200000, 42);
+	Track[] tracks = new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions);
+	int placed = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks())
+		placed += wb.getSessions().size();
+	assertEquals(sessions.length, placed);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testSessionTooLong() {
+	Session[] sessions = {new Session("Short", 30), new Session("Too Long", 241)};
+	boolean exceptionOccurred = false;
+	try {
+	    new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testInterrupted() {
+	SchedulingStrategy[] strategies = {new FirstFitDecreasingStrategy(), new BestFitDecreasingStrategy(),
+		new PatternStrategy(), new BruteForceStrategy()};
+	Session[] sessions = makeSessions(1000, 5);
+	for (SchedulingStrategy strategy : strategies) {
+	    boolean exceptionOccurred = false;
+	    Thread.currentThread().interrupt();
+	    try {
+		strategy.apply(Config.BLOCKS, sessions);
+	    } catch (CancellationException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    } finally {
+		assertTrue(strategy.getClass().getSimpleName(), Thread.interrupted());
+	    }
+	    assertTrue(strategy.getClass().getSimpleName() + " unexpectedly finished", exceptionOccurred);
+	}
+	boolean exceptionOccurred = false;
+	Thread.currentThread().interrupt();
+	try {
+	    new FirstFitDecreasingStrategy().assign(Config.BLOCKS, SessionTable.of(sessions));
+	} catch (CancellationException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	} finally {
+	    Thread.interrupted();
+	}
+	assertTrue("assign unexpectedly finished", exceptionOccurred);
+    }
+
+}
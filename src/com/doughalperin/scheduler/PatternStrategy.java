@@ -0,0 +1,160 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ *
+ * Pattern Strategy works on the count of Sessions of each duration rather than on the Sessions themselves, which suits
+ * conferences with thousands of Sessions but only a handful of distinct durations.
+ * <p>
+ * A fill pattern is the number of Sessions of each duration placed in one Block.  For each working Block in turn the
+ * pattern that fills the most minutes, up to the Block's maximum duration, with the Sessions still unscheduled is found
+ * by a bounded knapsack over the distinct durations.  The resulting Track pattern is then used as many times as the
+ * remaining counts allow, and the process repeats with the counts left over.
+ * </p>
+ * <p>
+ * The work to find the patterns depends on the number of distinct durations and the Block lengths, not on the number of
+ * Sessions; only copying the Sessions into the Tracks is proportional to the number of Sessions.
+ * </p>
+ *
+ */
+public class PatternStrategy extends SchedulingStrategy {
+
+    /* (non-Javadoc)
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	ArrayList<Track> tracks = new ArrayList<Track>();
+
+	//start with 1 track; the rest are made alike
+	BlockTemplate template = new BlockTemplate(blocks);
+	Track first = new Track(template);
+	tracks.add(first);
+
+	if (sessions.length == 0)
+	    return tracks.toArray(new Track[]{});
+
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions, run);
+	//fails if some Session cannot fit
+	minimumTracks(blocks, groups);
+
+	//distinct durations longest first
+	int types = groups.size();
+	int[] minutes = new int[types];
+	int[] remaining = new int[types];
+	int[] next = new int[types];
+	List<ArrayList<Session>> lists = new ArrayList<ArrayList<Session>>(types);
+	int d = 0;
+	for (Integer m : groups.descendingKeySet()) {
+	    minutes[d] = m;
+	    lists.add(groups.get(m));
+	    remaining[d] = lists.get(d).size();
+	    d++;
+	}
+
+	ScheduleBlock[] working = first.getWorkingBlocks();
+	int unscheduled = sessions.length;
+	boolean useFirst = true;
+	while (unscheduled > 0) {
+	    checkCancelled();
+	    //find the pattern of each block of a track given what is left
+	    int[][] pattern = new int[working.length][];
+	    int[] trackPattern = new int[types];
+	    int[] available = remaining.clone();
+	    for (int b = 0; b < working.length; b++) {
+		pattern[b] = fill(minutes, available, working[b].getMaxDuration());
+		run.attempt(1);
+		for (d = 0; d < types; d++) {
+		    available[d] -= pattern[b][d];
+		    trackPattern[d] += pattern[b][d];
+		}
+	    }
+
+	    //use the track pattern as often as the remaining counts allow
+	    int repeat = Integer.MAX_VALUE;
+	    for (d = 0; d < types; d++)
+		if (trackPattern[d] > 0)
+		    repeat = Math.min(repeat, remaining[d] / trackPattern[d]);
+	    assert(repeat != Integer.MAX_VALUE && repeat > 0);
+
+	    for (int r = 0; r < repeat; r++) {
+		checkCancelled();
+		Track t = useFirst ? first : new Track(template);
+		if (!useFirst)
+		    tracks.add(t);
+		useFirst = false;
+		ScheduleBlock[] tw = t.getWorkingBlocks();
+		for (int b = 0; b < tw.length; b++)
+		    for (d = 0; d < types; d++) {
+			int count = pattern[b][d];
+			if (count == 0)
+			    continue;
+			tw[b].place(lists.get(d).subList(next[d], next[d] + count));
+			next[d] += count;
+		    }
+	    }
+	    for (int b = 0; b < working.length; b++) {
+		int used = 0;
+		for (d = 0; d < types; d++)
+		    used += pattern[b][d] * minutes[d];
+		if (used > working[b].getMinDuration())
+		    run.maxDurationFallbacks(repeat);
+	    }
+	    for (d = 0; d < types; d++) {
+		remaining[d] -= repeat * trackPattern[d];
+		unscheduled -= repeat * trackPattern[d];
+	    }
+	}
+
+	//return working tracks that were created
+	return tracks.toArray(new Track[]{});
+    }
+
+    /**
+     * Finds the fill pattern using the most minutes of a Block with a bounded knapsack over the distinct durations.
+     * Among patterns using the same minutes, longer Sessions are preferred.
+     *
+     * @param minutes the distinct durations, longest first
+     * @param available how many Sessions of each duration may be used
+     * @param capacity the maximum duration of the Block
+     * @return the number of Sessions of each duration to place in the Block
+     */
+    private int[] fill(int[] minutes, int[] available, int capacity) {
+	int types = minutes.length;
+	//count[d][c] is how many of duration d are used to reach c minutes with durations 0..d; -1 if unreachable
+	int[][] count = new int[types][capacity + 1];
+	boolean[] reach = new boolean[capacity + 1];
+	reach[0] = true;
+	for (int d = 0; d < types; d++) {
+	    int m = minutes[d];
+	    int[] cd = count[d];
+	    for (int c = 0; c <= capacity; c++) {
+		if (reach[c])
+		    cd[c] = 0;
+		else if (c >= m && cd[c - m] >= 0 && cd[c - m] < available[d]) {
+		    cd[c] = cd[c - m] + 1;
+		    reach[c] = true;
+		} else
+		    cd[c] = -1;
+	    }
+	}
+
+	int c = capacity;
+	while (!reach[c])
+	    c--;
+	int[] pattern = new int[types];
+	for (int d = types - 1; d >= 0; d--) {
+	    pattern[d] = count[d][c];
+	    c -= pattern[d] * minutes[d];
+	}
+	return pattern;
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests PatternStrategy class
+ *
+ * @see PatternStrategy
+ */
+public class PatternStrategyTest {
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PatternStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testFillsTracks() {
+	//4 of 45 fill a morning, 5 of 48 fill an afternoon at its maximum
+	Session[] sessions = new Session[18];
+	for (int i = 0; i < 8; i++)
+	    sessions[i] = new Session("Morning" + i, 45);
+	for (int i = 8; i < sessions.length; i++)
+	    sessions[i] = new Session("Afternoon" + i, 48);
+	Track[] tracks = new PatternStrategy().apply(Config.BLOCKS, sessions);
+	assertEquals(2, tracks.length);
+	for (Track t : tracks) {
+	    assertEquals(180, t.getWorkingBlocks()[0].getUsedMinutes());
+	    assertEquals(240, t.getWorkingBlocks()[1].getUsedMinutes());
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PatternStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testLargeInput() {
+	int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60};
+	Random random = new Random(5);
+	Session[] sessions = new Session[100000];
+	for (int i = 0; i < sessions.length; i++)
+	    sessions[i] = new Session("Session" + i, durations[random.nextInt(durations.length)]);
+
+	Track[] tracks = new PatternStrategy().apply(Config.BLOCKS, sessions);
+	int placed = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks()) {
+		assertTrue(wb.toString(), wb.getUsedMinutes() <= wb.getMaxDuration());
+		placed += wb.getSessions().size();
+	    }
+	assertEquals(sessions.length, placed);
+	assertTrue(tracks.length <= new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions).length);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PatternStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testSessionTooLong() {
+	Session[] sessions = {new Session("Short", 30), new Session("Too Long", 241)};
+	boolean exceptionOccurred = false;
+	try {
+	    new PatternStrategy().apply(Config.BLOCKS, sessions);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+}
@@ -0,0 +1,190 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Portfolio Strategy runs several strategies at once, one per thread, and keeps the best result: the fewest Tracks and
+ * then the fewest minutes that Blocks run past their minimum duration.
+ * <p>
+ * As soon as a result reaches the lower bound on Tracks the remaining strategies are cancelled.  Once the time budget
+ * has passed the best result so far is returned and the rest are cancelled; if no strategy has finished by then all are
+ * cancelled and the portfolio fails with an IllegalArgumentException, as a strategy that cannot schedule does.  Equally good results go to the strategy listed first.  Cancelled strategies stop
+ * at their next step, since strategies check for interruption as they go.
+ * </p>
+ * <p>
+ * All portfolios share one pool with a thread per processor, so concurrent portfolios queue rather than each starting
+ * threads of their own; time spent queued counts against the budget.
+ * </p>
+ * <p>
+ * Strategies only read Sessions while placing them, so each run gets its own copy of the Session array and builds its own
+ * Tracks; nothing is shared between runs.  Each strategy is applied in full on its own thread, so its run is recorded
+ * in its own metrics as well as the portfolio being recorded in the portfolio's.
+ * </p>
+ *
+ * @see SchedulingStrategy#minimumTracks(BlockFormat[], java.util.TreeMap)
+ *
+ */
+public class PortfolioStrategy extends SchedulingStrategy {
+
+    //shared by every portfolio
+    private static final ExecutorService pool = Executors.newFixedThreadPool(
+	    Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory("portfolio-"));
+
+    private final SchedulingStrategy[] strategies;
+    private final long timeBudgetMillis;
+
+    /**
+     * Instantiates a portfolio of first fit, best fit, pattern and branch and bound strategies with the default time budget
+     *
+     * @see Config#PORTFOLIO_TIME_BUDGET_MILLIS
+     */
+    public PortfolioStrategy() {
+	this(Config.PORTFOLIO_TIME_BUDGET_MILLIS, new FirstFitDecreasingStrategy(), new BestFitDecreasingStrategy(),
+		new PatternStrategy(), new BranchAndBoundStrategy(Config.PORTFOLIO_TIME_BUDGET_MILLIS));
+    }
+
+    /**
+     * @param timeBudgetMillis wall-clock time after which the best result so far is returned
+     * @param strategies the strategies to run
+     * @throws IllegalArgumentException if no strategies are given or the budget is not greater than zero
+     */
+    public PortfolioStrategy(long timeBudgetMillis, SchedulingStrategy... strategies) throws IllegalArgumentException {
+	if (strategies == null || strategies.length == 0)
+	    throw new IllegalArgumentException("At least one Strategy must be specified.");
+	for (SchedulingStrategy s : strategies)
+	    if (s == null)
+		throw new IllegalArgumentException("A Strategy cannot be null.");
+	if (timeBudgetMillis <= 0)
+	    throw new IllegalArgumentException("Time budget must be greater than zero.");
+	this.strategies = strategies.clone();
+	this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Runs the strategies and picks the best result
+     * 
+     * @see com.doughalperin.scheduler.SchedulingStrategy#schedule(com.doughalperin.scheduler.BlockFormat[], com.doughalperin.scheduler.Session[], com.doughalperin.scheduler.StrategyMetrics.Run)
+     */
+    @Override
+    protected Track[] schedule(final BlockFormat[] blocks, final Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	long deadline = System.nanoTime() + timeBudgetMillis * 1000000L;
+	//fails early if some Session cannot fit
+	int lowerBound = minimumTracks(blocks, groupSessions(sessions));
+
+	CompletionService<Track[]> completion = new ExecutorCompletionService<Track[]>(pool);
+	ArrayList<Future<Track[]>> submitted = new ArrayList<Future<Track[]>>();
+	try {
+	    for (final SchedulingStrategy strategy : strategies)
+		submitted.add(completion.submit(new Callable<Track[]>() {
+		    @Override
+		    public Track[] call() {
+			return strategy.apply(blocks, sessions.clone());
+		    }
+		}));
+
+	    Track[] best = null;
+	    int bestIndex = -1;
+	    IllegalArgumentException failure = null;
+	    for (int received = 0; received < strategies.length; received++) {
+		Future<Track[]> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		if (done == null) {
+		    //out of time
+		    if (best == null)
+			throw new IllegalArgumentException("No schedule within budget: no strategy finished within "
+				+ timeBudgetMillis + " ms.");
+		    break;
+		}
+
+		try {
+		    Track[] result = done.get();
+		    //equally good results go to the strategy listed first
+		    int index = submitted.indexOf(done);
+		    int order = best == null ? -1 : compare(result, best);
+		    if (order < 0 || (order == 0 && index < bestIndex)) {
+			best = result;
+			bestIndex = index;
+		    }
+		} catch (ExecutionException e) {
+		    if (e.getCause() instanceof Error)
+			throw (Error)e.getCause();
+		    if (!(e.getCause() instanceof IllegalArgumentException))
+			throw new IllegalStateException("Strategy failed unexpectedly: " + e.getCause(), e.getCause());
+		    if (failure == null)
+			failure = (IllegalArgumentException)e.getCause();
+		}
+		if (best != null && best.length <= lowerBound)
+		    //cannot do better
+		    break;
+	    }
+
+	    if (best == null)
+		throw failure;
+	    return best;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException("Interrupted while scheduling.", e);
+	} finally {
+	    //cancel whatever is still queued or running
+	    for (Future<Track[]> f : submitted)
+		f.cancel(true);
+	}
+    }
+
+    /**
+     * Orders results by number of Tracks and then by minutes that Blocks run past their minimum duration
+     *
+     * @return negative if a is better than b, positive if worse, zero if equally good
+     */
+    static int compare(Track[] a, Track[] b) {
+	if (a.length != b.length)
+	    return a.length < b.length ? -1 : 1;
+	long overA = overflowMinutes(a);
+	long overB = overflowMinutes(b);
+	return overA < overB ? -1 : (overA == overB ? 0 : 1);
+    }
+
+    /**
+     * @param tracks scheduled Tracks
+     * @return the total minutes by which working Blocks run past their minimum duration
+     */
+    static long overflowMinutes(Track[] tracks) {
+	long over = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks())
+		over += Math.max(0, wb.getUsedMinutes() - wb.getMinDuration());
+	return over;
+    }
+
+    /**
+     * @return the strategies in the portfolio
+     */
+    public SchedulingStrategy[] getStrategies() {
+	return strategies.clone();
+    }
+
+    /**
+     * @return the class name, the time budget and the identity of each strategy, in order
+     * @see com.doughalperin.scheduler.SchedulingStrategy#getCacheIdentity()
+     */
+    @Override
+    public String getCacheIdentity() {
+	StringBuilder sb = new StringBuilder(super.getCacheIdentity()).append('(').append(timeBudgetMillis);
+	for (SchedulingStrategy s : strategies)
+	    sb.append(", ").append(s.getCacheIdentity());
+	return sb.append(')').toString();
+    }
+
+}
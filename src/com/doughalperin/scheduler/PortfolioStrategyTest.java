@@ -0,0 +1,133 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests PortfolioStrategy class
+ *
+ * @see PortfolioStrategy
+ */
+public class PortfolioStrategyTest {
+
+    /**
+     * Keeps the processor busy until cancelled
+     */
+    static class SpinStrategy extends FirstFitDecreasingStrategy {
+	@Override
+	protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+		throws IllegalArgumentException {
+	    while (true)
+		checkCancelled();
+	}
+    }
+
+    final BlockFormat[] oneBlock = {
+	    new BlockFormat("Sessions", new TimeOffset(0, 9, 0), true, true, 180, 180)
+    };
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testKeepsBestResult() {
+	//first fit decreasing uses 11 Blocks where 9 suffice
+	Session[] sessions = new Session[30];
+	for (int i = 0; i < sessions.length; i++)
+	    sessions[i] = new Session("Session" + i, i < 6 ? 92 : i < 12 ? 49 : i < 18 ? 47 : 41);
+
+	Track[] tracks = new PortfolioStrategy(10000, new FirstFitDecreasingStrategy(),
+		new BranchAndBoundStrategy(10000)).apply(oneBlock, sessions);
+	assertEquals(9, tracks.length);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testDefaultPortfolio() {
+	Session[] sessions = {new Session("A", 60), new Session("B", 45), new Session("C", Config.LIGHTNING_MINUTES)};
+	Track[] tracks = new PortfolioStrategy().apply(Config.BLOCKS, sessions);
+	assertEquals(1, tracks.length);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testSessionTooLong() {
+	Session[] sessions = {new Session("Short", 30), new Session("Too Long", 241)};
+	boolean exceptionOccurred = false;
+	try {
+	    new PortfolioStrategy().apply(Config.BLOCKS, sessions);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#PortfolioStrategy(long, SchedulingStrategy...)}.
+     */
+    @Test
+    public void testNoStrategies() {
+	boolean exceptionOccurred = false;
+	try {
+	    new PortfolioStrategy(100);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#PortfolioStrategy(long, SchedulingStrategy...)}.
+     */
+    @Test
+    public void testNoBudget() {
+	long[] invalid = {0, -1};
+	for (long budget : invalid) {
+	    boolean exceptionOccurred = false;
+	    try {
+		new PortfolioStrategy(budget, new FirstFitDecreasingStrategy());
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Unexpectedly succeeded for " + budget, exceptionOccurred);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.PortfolioStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testBudgetEnforced() {
+	Session[] sessions = {new Session("A", 60), new Session("B", 45)};
+	for (int i = 0; i < 3; i++) {
+	    long start = System.nanoTime();
+	    boolean exceptionOccurred = false;
+	    try {
+		new PortfolioStrategy(200, new SpinStrategy()).apply(Config.BLOCKS, sessions);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Unexpectedly finished", exceptionOccurred);
+	    assertTrue("Budget overrun", System.nanoTime() - start < 2000000000L);
+	}
+
+	//the spinning strategies were stopped, so the shared pool is free again
+	long start = System.nanoTime();
+	Track[] tracks = new PortfolioStrategy(5000, new FirstFitDecreasingStrategy()).apply(Config.BLOCKS, sessions);
+	assertEquals(1, tracks.length);
+	assertTrue("Pool still busy", System.nanoTime() - start < 2000000000L);
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Schedule being edited while other threads read it.
+ * <p>
+ * Every edit is made to the Schedule and then published as a new {@link ScheduleSnapshot} with one atomic swap.  Readers
+ * take the current version with {@link #getCurrent()}, never block, and see the whole of an edit or none of it for as
+ * long as they hold that version.  A new version shares the Sessions of the Tracks the edit did not change with the
+ * version before it, so publishing costs the changed Tracks rather than the whole schedule.
+ * </p>
+ * <p>
+ * Edits are made one at a time.  The Schedule given belongs to this object from then on and must not be used directly.
+ * </p>
+ *
+ * @see Schedule#getSnapshot()
+ */
+public class PublishedSchedule {
+
+    /**
+     * Several changes to a Schedule published as one version
+     */
+    public interface Edit {
+	/**
+	 * @param schedule the Schedule to change
+	 * @throws IllegalArgumentException if a change is not valid
+	 */
+	void apply(Schedule schedule) throws IllegalArgumentException;
+    }
+
+    private final Schedule schedule;
+    private final AtomicReference<ScheduleSnapshot> current = new AtomicReference<ScheduleSnapshot>();
+
+    /**
+     * Publishes a Schedule, as it is now if it has been made
+     *
+     * @param schedule the Schedule to edit
+     * @throws IllegalArgumentException if the Schedule is null
+     */
+    public PublishedSchedule(Schedule schedule) throws IllegalArgumentException {
+	if (schedule == null)
+	    throw new IllegalArgumentException("Schedule cannot be null.");
+	this.schedule = schedule;
+	current.set(schedule.getSnapshot());
+    }
+
+    /**
+     * @return the latest version published; null until the schedule has been made
+     */
+    public ScheduleSnapshot getCurrent() {
+	return current.get();
+    }
+
+    /**
+     * Makes the schedule again and publishes it
+     *
+     * @return the version published
+     * @throws IllegalArgumentException if a schedule cannot be created for some reason
+     * @see Schedule#makeSchedule()
+     */
+    public synchronized ScheduleSnapshot makeSchedule() throws IllegalArgumentException {
+	schedule.makeSchedule();
+	return publish();
+    }
+
+    /**
+     * @param session the Session to add
+     * @return the version published
+     * @throws IllegalArgumentException if the Session cannot be added
+     * @see Schedule#addSession(Session)
+     */
+    public synchronized ScheduleSnapshot addSession(Session session) throws IllegalArgumentException {
+	schedule.addSession(session);
+	return publish();
+    }
+
+    /**
+     * @param session the Session to remove, as given to the Schedule
+     * @return the version published
+     * @throws IllegalArgumentException if the Session is not in the Schedule
+     * @see Schedule#removeSession(Session)
+     */
+    public synchronized ScheduleSnapshot removeSession(Session session) throws IllegalArgumentException {
+	schedule.removeSession(session);
+	return publish();
+    }
+
+    /**
+     * @param session the Session to change, as given to the Schedule
+     * @param minutes the new length in minutes
+     * @return the version published
+     * @throws IllegalArgumentException if the length cannot be changed
+     * @see Schedule#changeDuration(Session, int)
+     */
+    public synchronized ScheduleSnapshot changeDuration(Session session, int minutes) throws IllegalArgumentException {
+	schedule.changeDuration(session, minutes);
+	return publish();
+    }
+
+    /**
+     * Makes several changes and publishes them together.  Each change the edit makes is recorded as it is made, and if
+     * the edit throws they are undone, last first, so the Schedule is left as it was and none of them are ever
+     * published.  An edit may add, remove and change the length of Sessions and set the Blocks and Strategy, but not
+     * make the schedule again.
+     *
+     * @param edit the changes
+     * @return the version published
+     * @throws IllegalArgumentException if a change is not valid
+     */
+    public synchronized ScheduleSnapshot edit(Edit edit) throws IllegalArgumentException {
+	schedule.beginEdit();
+	boolean succeeded = false;
+	try {
+	    edit.apply(schedule);
+	    succeeded = true;
+	} finally {
+	    if (succeeded)
+		schedule.endEdit();
+	    else
+		schedule.undoEdit();
+	}
+	return publish();
+    }
+
+    private ScheduleSnapshot publish() {
+	ScheduleSnapshot version = schedule.getSnapshot();
+	current.set(version);
+	return version;
+    }
+
+}
@@ -0,0 +1,232 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests the PublishedSchedule class
+ *
+ * @see PublishedSchedule
+ */
+public class PublishedScheduleTest {
+
+    private static PublishedSchedule newPublished(Session[] sessions) {
+	Schedule schedule = new Schedule();
+	schedule.setStrategy(new FirstFitDecreasingStrategy());
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : sessions)
+	    schedule.addSession(s);
+	return new PublishedSchedule(schedule);
+    }
+
+    /**
+     * An edit inside one Track shares the other Tracks with the version before
+     */
+    @Test
+    public void testSharing() {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 3).nextSessions(120);
+	PublishedSchedule published = newPublished(sessions);
+	assertNull(published.getCurrent());
+	ScheduleSnapshot before = published.makeSchedule();
+	assertSame(before, published.getCurrent());
+	assertTrue(before.getTrackCount() > 2);
+
+	//shortening a morning Session moves nothing after lunch, which starts at a fixed time
+	ScheduledSession morning = null;
+	for (ScheduledSession s : before.getTrack(1))
+	    if (!s.isBlockLevelSession() && s.getMinutes() > 5 && s.getBlockName().equals(Config.BLOCKS[0].getName()))
+		morning = s;
+	assertNotNull(morning);
+	ScheduleSnapshot after = published.changeDuration(sessions[morning.getId()], morning.getMinutes() - 5);
+	assertSame(after, published.getCurrent());
+	assertEquals(before.getVersion() + 1, after.getVersion());
+	for (int t = 0; t < before.getTrackCount(); t++)
+	    if (t == 1)
+		assertNotSame(before.getTrack(t), after.getTrack(t));
+	    else
+		assertSame(before.getTrack(t), after.getTrack(t));
+	assertEquals(morning.getMinutes(), before.getSession(morning.getId()).getMinutes());
+	assertEquals(morning.getMinutes() - 5, after.getSession(morning.getId()).getMinutes());
+	assertEquals(sessions.length, after.getScheduledCount());
+    }
+
+    /**
+     * A failed edit publishes nothing
+     */
+    @Test
+    public void testFailedEdit() {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 5).nextSessions(20);
+	PublishedSchedule published = newPublished(sessions);
+	ScheduleSnapshot before = published.makeSchedule();
+	boolean exceptionOccurred = false;
+	try {
+	    published.changeDuration(sessions[0], 500);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Session too long for any Block", exceptionOccurred);
+	assertSame(before, published.getCurrent());
+    }
+
+    /**
+     * An edit whose second change fails leaves none of its first change in any later version
+     */
+    @Test
+    public void testFailedEditIsUndone() {
+	final Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 5).nextSessions(20);
+	PublishedSchedule published = newPublished(sessions);
+	ScheduleSnapshot before = published.makeSchedule();
+	final Session added = new Session("Added", 30);
+	boolean exceptionOccurred = false;
+	try {
+	    published.edit(new PublishedSchedule.Edit() {
+		@Override
+		public void apply(Schedule schedule) {
+		    schedule.removeSession(sessions[1]);
+		    schedule.changeDuration(sessions[0], 500);
+		}
+	    });
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Session too long for any Block", exceptionOccurred);
+	assertSame(before, published.getCurrent());
+
+	ScheduleSnapshot after = published.addSession(added);
+	assertEquals(before.getVersion() + 1, after.getVersion());
+	assertEquals(sessions.length + 1, after.getScheduledCount());
+	assertNotNull(after.getSession(1));
+	assertEquals(sessions[1].getName(), after.getSession(1).getName());
+	assertEquals(sessions[0].getMinutes(), after.getSession(0).getMinutes());
+	assertEquals("Added", after.getSession(sessions.length).getName());
+
+	//the Sessions are still found by the objects given
+	after = published.edit(new PublishedSchedule.Edit() {
+	    @Override
+	    public void apply(Schedule schedule) {
+		schedule.removeSession(sessions[1]);
+		schedule.removeSession(added);
+	    }
+	});
+	assertEquals(sessions.length - 1, after.getScheduledCount());
+	assertNull(after.getSession(1));
+	for (int t = 0; t < after.getTrackCount(); t++)
+	    for (ScheduledSession s : after.getTrack(t))
+		if (!s.isBlockLevelSession())
+		    assertSame(s, after.getSession(s.getId()));
+    }
+
+    /**
+     * Readers following a schedule being edited only ever see whole edits: every edit below keeps the number of
+     * Sessions and their total minutes, so every version must have the same
+     */
+    @Test
+    public void testConcurrentReaders() throws InterruptedException {
+	final Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, 7)
+		.nextSessions(200);
+	final PublishedSchedule published = newPublished(sessions);
+	published.makeSchedule();
+	int total = 0;
+	for (Session s : sessions)
+	    total += s.getMinutes();
+	final int totalMinutes = total;
+
+	final AtomicBoolean done = new AtomicBoolean();
+	final AtomicReference<String> failure = new AtomicReference<String>();
+	Thread[] readers = new Thread[2];
+	for (int r = 0; r < readers.length; r++) {
+	    readers[r] = new Thread(new Runnable() {
+		@Override
+		public void run() {
+		    long lastVersion = 0;
+		    while (!done.get() && failure.get() == null) {
+			ScheduleSnapshot snapshot = published.getCurrent();
+			String problem = check(snapshot, sessions.length, totalMinutes);
+			if (problem == null && snapshot.getVersion() < lastVersion)
+			    problem = "version " + snapshot.getVersion() + " after " + lastVersion;
+			if (problem != null)
+			    failure.compareAndSet(null, problem);
+			lastVersion = snapshot.getVersion();
+		    }
+		}
+	    });
+	    readers[r].start();
+	}
+
+	final List<Session> current = new ArrayList<Session>(Arrays.asList(sessions));
+	final Random random = new Random(11);
+	try {
+	    for (int i = 0; i < 400 && failure.get() == null; i++)
+		published.edit(new PublishedSchedule.Edit() {
+		    @Override
+		    public void apply(Schedule schedule) {
+			if (random.nextBoolean()) {
+			    //replace a Session by an equal one
+			    int k = random.nextInt(current.size());
+			    Session old = current.get(k);
+			    Session replacement = new Session(old.getName(), old.getMinutes());
+			    schedule.removeSession(old);
+			    schedule.addSession(replacement);
+			    current.set(k, replacement);
+			    return;
+			}
+			//move five minutes from one Session to another
+			Session from;
+			Session to;
+			do {
+			    from = current.get(random.nextInt(current.size()));
+			    to = current.get(random.nextInt(current.size()));
+			} while (from == to || from.getMinutes() <= 5 || to.getMinutes() > 200);
+			schedule.changeDuration(from, from.getMinutes() - 5);
+			schedule.changeDuration(to, to.getMinutes() + 5);
+			from.setMinutes(from.getMinutes() - 5);
+			to.setMinutes(to.getMinutes() + 5);
+		    }
+		});
+	} finally {
+	    done.set(true);
+	    for (Thread reader : readers)
+		reader.join();
+	}
+	assertNull(failure.get(), failure.get());
+	assertNull(check(published.getCurrent(), sessions.length, totalMinutes));
+	assertTrue(published.getCurrent().getVersion() > 400);
+    }
+
+    /**
+     * @return what is wrong with a version, or null
+     */
+    private static String check(ScheduleSnapshot snapshot, int sessionCount, int totalMinutes) {
+	if (snapshot.getScheduledCount() != sessionCount)
+	    return "version " + snapshot.getVersion() + " has " + snapshot.getScheduledCount() + " Sessions";
+	int minutes = 0;
+	for (int t = 0; t < snapshot.getTrackCount(); t++) {
+	    ScheduledSession previous = null;
+	    for (ScheduledSession s : snapshot.getTrack(t)) {
+		if (s.isBlockLevelSession())
+		    continue;
+		minutes += s.getMinutes();
+		if (previous != null && previous.getStartOffset() + previous.getMinutes() > s.getStartOffset())
+		    return "version " + snapshot.getVersion() + " overlaps " + previous + " and " + s;
+		previous = s;
+	    }
+	}
+	if (minutes != totalMinutes)
+	    return "version " + snapshot.getVersion() + " has " + minutes + " minutes";
+	return null;
+    }
+
+}
@@ -0,0 +1,126 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * The residual capacities of a growing sequence of slots held in one flat int array and scanned in order for the first
+ * slot with at least N minutes left, the slot a Track by Track scan of the working blocks finds.
+ * <p>
+ * A lookup costs O(slots) rather than the O(log slots) of {@link CapacityIndex}, but it runs over contiguous ints with
+ * no objects or branches between them and an update is one store, so it suits schedules of a few hundred slots and is
+ * the kernel a vector compare speeds up.  The scan is done by a {@link Kernel}: {@code VectorResidualKernel}, built from
+ * the vector sources with the JDK Vector API, when its class is on the class path and the jdk.incubator.vector module
+ * is resolved, and otherwise a scalar loop.  Both return the same slot.
+ * </p>
+ * <p>
+ * Note this is not thread-safe.
+ * </p>
+ *
+ * @see ResidualScanStrategy
+ */
+class ResidualScan implements SlotIndex {
+
+    /**
+     * Finds the first slot of a flat array with at least a given residual capacity
+     */
+    interface Kernel {
+
+	/**
+	 * @param residual the residual capacity of each slot
+	 * @param size the number of slots in use, from the start of the array
+	 * @param value the capacity required
+	 * @return the position of the first slot with a residual capacity of at least the value or -1 if there is none
+	 */
+	int firstAtLeast(int[] residual, int size, int value);
+    }
+
+    /**
+     * Compares one slot at a time
+     */
+    static class ScalarKernel implements Kernel {
+	@Override
+	public int firstAtLeast(int[] residual, int size, int value) {
+	    for (int i = 0; i < size; i++)
+		if (residual[i] >= value)
+		    return i;
+	    return -1;
+	}
+    }
+
+    /**
+     * The kernel scans use unless they are given one
+     */
+    static final Kernel KERNEL = loadKernel();
+
+    private final Kernel kernel;
+    private int[] residual;
+    private int size;
+
+    /**
+     * Creates an empty scan using the vector kernel when it is available
+     *
+     * @param initialCapacity the number of slots expected; the scan grows as needed
+     */
+    ResidualScan(int initialCapacity) {
+	this(initialCapacity, KERNEL);
+    }
+
+    /**
+     * Creates an empty scan
+     *
+     * @param initialCapacity the number of slots expected; the scan grows as needed
+     * @param kernel the scan of the residual capacities
+     */
+    ResidualScan(int initialCapacity, Kernel kernel) {
+	this.kernel = kernel;
+	residual = new int[Math.max(1, initialCapacity)];
+	size = 0;
+    }
+
+    /**
+     * @return the vector kernel if it can be loaded, otherwise the scalar kernel
+     */
+    private static Kernel loadKernel() {
+	try {
+	    return (Kernel)Class.forName(ResidualScan.class.getPackage().getName() + ".VectorResidualKernel")
+		    .getDeclaredConstructor().newInstance();
+	} catch (ReflectiveOperationException e) {
+	    //not built
+	} catch (LinkageError e) {
+	    //built, but jdk.incubator.vector is not resolved
+	}
+	return new ScalarKernel();
+    }
+
+    @Override
+    public int size() {
+	return size;
+    }
+
+    @Override
+    public int add(int value) {
+	if (size == residual.length)
+	    residual = Arrays.copyOf(residual, residual.length * 2);
+	residual[size] = value;
+	return size++;
+    }
+
+    @Override
+    public int get(int slot) {
+	return residual[slot];
+    }
+
+    @Override
+    public void set(int slot, int value) {
+	residual[slot] = value;
+    }
+
+    @Override
+    public int firstAtLeast(int value) {
+	return kernel.firstAtLeast(residual, size, value);
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+/**
+ * 
+ * Residual Scan Strategy places Sessions exactly as the FirstFitDecreasingStrategy does, and so as the
+ * BruteForceStrategy does, but it finds the first Block that fits by scanning the residual minutes of every working
+ * block, Track by Track, in a flat array rather than by querying a tree.
+ * <p>
+ * Each lookup costs O(blocks), done a vector of blocks at a time when the JDK Vector API is available, so it is meant
+ * for schedules with few Tracks; the FirstFitDecreasingStrategy stays ahead once there are many.
+ * </p>
+ *
+ * @see ResidualScan
+ * @see FirstFitDecreasingStrategy
+ *
+ */
+public class ResidualScanStrategy extends FirstFitDecreasingStrategy {
+
+    /* (non-Javadoc)
+     * @see com.doughalperin.scheduler.FirstFitDecreasingStrategy#newIndex(int)
+     */
+    @Override
+    SlotIndex newIndex(int initialCapacity) {
+	return new ResidualScan(initialCapacity);
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the ResidualScan class and its kernels against a plain scan of the same values
+ *
+ * @see ResidualScan
+ */
+public class ResidualScanTest {
+
+    private static int firstAtLeast(int[] values, int size, int value) {
+	for (int i = 0; i < size; i++)
+	    if (values[i] >= value)
+		return i;
+	return -1;
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ResidualScan#firstAtLeast(int)}.
+     */
+    @Test
+    public void testFirstAtLeast() {
+	ResidualScan.Kernel[] kernels = {new ResidualScan.ScalarKernel(), ResidualScan.KERNEL};
+	for (ResidualScan.Kernel kernel : kernels) {
+	    String name = kernel.getClass().getSimpleName();
+	    Random random = new Random(3);
+	    ResidualScan scan = new ResidualScan(1, kernel);
+	    int[] values = new int[5000];
+	    int size = 0;
+	    assertEquals(name, -1, scan.firstAtLeast(1));
+	    for (int step = 0; step < 20000; step++) {
+		if (size < values.length && (size == 0 || random.nextInt(4) == 0)) {
+		    values[size] = random.nextInt(240) - 60;
+		    assertEquals(name, size, scan.add(values[size]));
+		    size++;
+		} else {
+		    int slot = random.nextInt(size);
+		    values[slot] = random.nextInt(240) - 60;
+		    scan.set(slot, values[slot]);
+		}
+		int value = 1 + random.nextInt(240);
+		assertEquals(name + " step#" + step, firstAtLeast(values, size, value), scan.firstAtLeast(value));
+	    }
+	    assertEquals(name, size, scan.size());
+	    for (int i = 0; i < size; i++)
+		assertEquals(name, values[i], scan.get(i));
+	}
+    }
+
+}
@@ -3,21 +3,33 @@
  */
 package com.doughalperin.scheduler;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.TreeMap;
 
 
 /**
  * The primary class in the Track Management system.  The Schedule provides all the methods that leads to successfully
  * slotting Sessions into Tracks.
  * <p>
- * Note this is not thread-safe.
+ * Once a schedule has been made it can be edited with {@link #addSession(Session)}, {@link #removeSession(Session)} and
+ * {@link #changeDuration(Session, int)}.  An edit changes only the Block holding the Session and, if the most minutes
+ * used in that Block across Tracks changed, the start of the Block after it in each Track; the Strategy is not run
+ * again.  Tracks emptied by edits are kept so Track labels do not change; making the schedule again compacts them.
+ * </p>
+ * <p>
+ * Sessions given to a Schedule are copied and never changed; the Tracks hold the copies, and edits may name a Session
+ * by the object given or by its copy.  Each made schedule is also returned as an immutable {@link ScheduleSnapshot}, so
+ * any number of Schedules may be made at the same time in one JVM sharing the same strategy and Blocks.  A snapshot
+ * taken after edits shares the Tracks the edits did not change with the snapshot before it.
+ * </p>
+ * <p>
+ * Note a single Schedule is not thread-safe; {@link PublishedSchedule} lets readers follow one being edited.
  * </p>
  *
  */
@@ -51,17 +63,55 @@ public class Schedule {
 	}
     }
     
+    /**
+     * Reverses one change made during an edit
+     */
+    private interface Undo {
+	void undo();
+    }
+
+    //the Schedule's own copies by number, null once removed, and the copy of each Session given to addSession
     private ArrayList<Session> sessions;
+    private int sessionCount;
+    private IdentityHashMap<Session, Session> copies;
+    private IdentityHashMap<Session, Session> givens;
+    private int nextNumber;
     private BlockFormat[] blocks;
+    private BlockTemplate template;
     private SchedulingStrategy strategy;
     private Track[] tracks;
     
+    //the last snapshot taken, and the Tracks edited since
+    private ScheduleSnapshot published;
+    private BitSet changedTracks;
+    
+    //most minutes used in each block across tracks, kept as the schedule is edited
+    private int[] maxBlockUsedMinutes;
+    
+    //built on the first edit after a schedule is made; slots are track * workingCount + working block
+    private int workingCount;
+    private int[] scheduleIndex;
+    private IdentityHashMap<Session, Integer> slots;
+    private List<TreeMap<Integer, Integer>> usedCounts;
+    private CapacityIndex minIndex;
+    private CapacityIndex maxIndex;
+    
+    //the changes of the edit in progress, if any, and what they cannot undo one by one
+    private ArrayList<Undo> undoLog;
+    private int editTrackCount;
+    private ScheduleSnapshot editPublished;
+    private BitSet editChangedTracks;
+    
     /**
      * Instantiates a new empty Schedule 
      */
     public Schedule() {
 	sessions = new ArrayList<Session>();
-	blocks = new BlockFormat[]{};
+	copies = new IdentityHashMap<Session, Session>();
+	givens = new IdentityHashMap<Session, Session>();
+	changedTracks = new BitSet();
+	template = new BlockTemplate(new BlockFormat[]{});
+	blocks = template.blocks();
 	strategy = Config.DEFAULT_STRATEGY;
 	tracks = null;
     }
@@ -70,50 +120,39 @@ public class Schedule {
 
     /**
      * Takes specified input file and reads line by line to get the Sessions that need to be scheduled.
+     * <p>
+     * The file is memory-mapped and scanned without regular expressions.
+     * </p>
      * 
      * @param file complete path to file to read
      * @param encoding character set in use in the file
      * @throws IllegalArgumentException when file not found or lines of the file are not valid Session data
      * @throws IOException when errors occur in reading the file
      * @see Session
+     * @see SessionFileParser
      */
     public void setSessionsFromFile(String file, FileEncoding encoding)
     		throws IllegalArgumentException, IOException {
+	if (undoLog != null)
+	    throw new IllegalArgumentException("Sessions cannot be read during an edit.");
 	
-	sessions = new ArrayList<Session>();
-	InputStream fis;
-	BufferedReader br = null;
+	ScheduleEvents.ParseSessions event = new ScheduleEvents.ParseSessions();
+	event.begin();
+	boolean succeeded = false;
 	try {
-	    String line;
-	    fis = new FileInputStream(file);
-	    br = new BufferedReader(new InputStreamReader(fis, Charset.forName(encoding.getName())));
-	    while ((line = br.readLine()) != null) {
-	        Session s;
-		try {
-		    s = Session.getInstanceFromString(line);
-		} catch (IllegalArgumentException e) {
-		    throw new IllegalArgumentException("Failed input line:" + line + "\n" + e.getMessage(), e);
-		}
-	        //no value on the line
-	        if (s == null)
-	            continue;
-	        sessions.add(s);
-	    }
-	} catch (FileNotFoundException e) {
-	    throw new IllegalArgumentException("File " + file + " not found.", e);
+	    sessions = new SessionFileParser(Charset.forName(encoding.getName())).parseFile(file);
+	    copies.clear();
+	    givens.clear();
+	    numberSessions();
+	    succeeded = true;
 	} finally {
-	    // Done with the file
-	    if (br != null)
-		try {
-		    br.close();
-		} catch (IOException e) {
-		    e.printStackTrace();
-		}
-	    else
-		br = null;
-	    fis = null;
+	    if (event.shouldCommit()) {
+		event.file = file;
+		event.sessionCount = succeeded ? sessionCount : 0;
+		event.succeeded = succeeded;
+		event.commit();
+	    }
 	}
-
     }
 
     /**
@@ -127,24 +166,174 @@ public class Schedule {
     /**
      * Applies the SchedulingStrategy to schedule all the sessions
      * 
+     * @return an immutable copy of the schedule made
      * @throws IllegalArgumentException if a schedule cannot be created for some reason.
      */
-    public void makeSchedule() throws IllegalArgumentException {
+    public ScheduleSnapshot makeSchedule() throws IllegalArgumentException {
     	if (strategy == null)
     	    throw new IllegalArgumentException("No Strategy is specifed, so no schedule can be created");
+    	if (undoLog != null)
+    	    throw new IllegalArgumentException("A schedule cannot be made during an edit.");
     	
+	ScheduleEvents.MakeSchedule event = new ScheduleEvents.MakeSchedule();
+	event.begin();
+	boolean succeeded = false;
+	try {
+	    finishSchedule(applyStrategy());
+	    succeeded = true;
+	    return getSnapshot();
+	} finally {
+	    commit(event, succeeded);
+	}
+    }
+
+    /**
+     * Makes the schedule of the Sessions in a file, taking it from the cache when the same Sessions were scheduled
+     * before with the same Blocks and Strategy.  The Sessions of the Schedule become those of the file, numbered in
+     * the order of the file as {@link #setSessionsFromFile(String, FileEncoding)} numbers them.
+     * 
+     * @param file complete path to file to read
+     * @param encoding character set in use in the file
+     * @param cache where schedules are kept between runs
+     * @throws IllegalArgumentException when file not found, lines of the file are not valid Session data or a schedule
+     * cannot be created for some reason
+     * @return an immutable copy of the schedule made
+     * @throws IOException when errors occur in reading the file
+     * @see ScheduleCache
+     */
+    public ScheduleSnapshot makeSchedule(String file, FileEncoding encoding, ScheduleCache cache)
+		throws IllegalArgumentException, IOException {
+	if (strategy == null)
+	    throw new IllegalArgumentException("No Strategy is specifed, so no schedule can be created");
+	if (undoLog != null)
+	    throw new IllegalArgumentException("A schedule cannot be made during an edit.");
+	
+	ScheduleEvents.MakeSchedule event = new ScheduleEvents.MakeSchedule();
+	event.begin();
+	boolean succeeded = false;
+	try {
+	    ArrayList<Session> read = new ArrayList<Session>();
+	    Track[] result = cache.apply(file, Charset.forName(encoding.getName()), blocks, strategy, read);
+	    sessions = read;
+	    copies.clear();
+	    givens.clear();
+	    numberSessions();
+	    finishSchedule(result);
+	    succeeded = true;
+	    return getSnapshot();
+	} finally {
+	    commit(event, succeeded);
+	}
+    }
+
+    /**
+     * Records the making of a schedule, if the event is being recorded
+     */
+    private void commit(ScheduleEvents.MakeSchedule event, boolean succeeded) {
+	if (event.shouldCommit()) {
+	    event.strategy = strategy.getClass().getName();
+	    event.sessionCount = sessionCount;
+	    event.trackCount = succeeded ? tracks.length : 0;
+	    event.succeeded = succeeded;
+	    event.commit();
+	}
+    }
+
+    /**
+     * Copies the schedule as it is now, including any edits since it was made
+     * 
+     * @return an immutable copy of the schedule; null until a schedule has been created
+     */
+    public ScheduleSnapshot getSnapshot() {
+	if (tracks == null)
+	    return null;
+	if (published == null || !changedTracks.isEmpty() || published.getTrackCount() != tracks.length) {
+	    published = new ScheduleSnapshot(tracks, published, changedTracks, nextNumber);
+	    changedTracks.clear();
+	}
+	return published;
+    }
+
+    /**
+     * Starts an edit: the changes made until {@link #endEdit()} are recorded so that {@link #undoEdit()} can reverse
+     * them, at a cost in proportion to the changes rather than to the schedule.  The schedule cannot be made again, nor
+     * its Sessions read from a file, while an edit is in progress.
+     */
+    void beginEdit() {
+	undoLog = new ArrayList<Undo>();
+	editTrackCount = tracks == null ? 0 : tracks.length;
+	editPublished = published;
+	editChangedTracks = (BitSet)changedTracks.clone();
+    }
+
+    /**
+     * Keeps the changes of the edit in progress
+     */
+    void endEdit() {
+	undoLog = null;
+	editPublished = null;
+	editChangedTracks = null;
+    }
+
+    /**
+     * Reverses the changes of the edit in progress, last first, and ends it.  Tracks the edit added are taken off again
+     * and the next snapshot follows the last one taken before the edit.
+     */
+    void undoEdit() {
+	ArrayList<Undo> log = undoLog;
+	undoLog = null;
+	for (int i = log.size() - 1; i >= 0; i--)
+	    log.get(i).undo();
+	if (tracks != null && tracks.length > editTrackCount) {
+	    tracks = Arrays.copyOf(tracks, editTrackCount);
+	    //the edit indexes cannot drop slots, so they are built again on the next edit
+	    slots = null;
+	}
+	published = editPublished;
+	changedTracks = editChangedTracks;
+	endEdit();
+    }
+
+    /**
+     * Numbers the Sessions afresh, in order, so each is at its number in the list
+     */
+    private void numberSessions() {
+	nextNumber = 0;
+	for (Session s : sessions)
+	    s.setNumber(nextNumber++);
+	sessionCount = sessions.size();
+    }
+
+    /**
+     * @return the Tracks made by the SchedulingStrategy
+     * @throws IllegalArgumentException if a schedule cannot be created for some reason.
+     */
+    private Track[] applyStrategy() throws IllegalArgumentException {
 	try {
-	    tracks = strategy.apply(blocks, sessions.toArray(new Session[]{}));
+	    return strategy.apply(blocks, liveSessions());
 	} catch (IllegalArgumentException e) {
 	    throw new IllegalArgumentException("A viable schedule could not be made:" + e.getMessage(), e);
 	}
+    }
+
+    /**
+     * Gives every Session of the Tracks its time
+     * 
+     * @param result the Tracks made by the SchedulingStrategy
+     */
+    private void finishSchedule(Track[] result) {
+	tracks = result;
+	published = null;
+	changedTracks.clear();
 	
 	/*
 	 * now immortalize result in tracks 
 	 * assign times to each session, etc.
 	 */
+	long start = System.nanoTime();
 	//first get maxUsedMinutes of each block
-	int[] maxBlockUsedMinutes = null;
+	maxBlockUsedMinutes = null;
+	slots = null;
 	for (int i = 0; i < tracks.length; i++) {
 	    Track t = tracks[i];
 	    int[] trackUsedMinutes = t.getBlockUsedMinutes();
@@ -161,9 +350,359 @@ public class Schedule {
 	    t.setLabel(Config.TRACK_LABEL_PREFIX + (i + 1));
 	    t.setSchedule(maxBlockUsedMinutes);
 	}
+	strategy.getMetrics().recordFinalize(System.nanoTime() - start, tracks);
 
     }
 
+    /**
+     * Adds a Session.  Once a schedule has been made the Session is placed into the first Block it fits, extending a
+     * Block to its maximum duration if need be, or else into a new Track.
+     * 
+     * @param session the Session to add
+     * @throws IllegalArgumentException if the Session is null, already in the Schedule, or too long for any Block
+     */
+    public void addSession(Session session) throws IllegalArgumentException {
+	if (session == null)
+	    throw new IllegalArgumentException("Session cannot be null.");
+	if (copies.containsKey(session))
+	    throw new IllegalArgumentException("Session [" + session.getName() + "] is already in the Schedule.");
+	Session copy = new Session(session.getName(), session.getMinutes());
+	if (tracks == null) {
+	    addCopy(session, copy);
+	    return;
+	}
+	buildEditIndex();
+	if (slots.containsKey(session))
+	    throw new IllegalArgumentException("Session [" + session.getName() + "] is already scheduled.");
+	checkFits(copy, copy.getMinutes());
+	addCopy(session, copy);
+	place(copy);
+    }
+
+    /**
+     * Keeps the copy of a Session given to addSession at its number
+     */
+    private void addCopy(final Session given, final Session copy) {
+	copy.setNumber(nextNumber++);
+	copies.put(given, copy);
+	givens.put(copy, given);
+	sessions.add(copy);
+	sessionCount++;
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    sessions.remove(sessions.size() - 1);
+		    sessionCount--;
+		    nextNumber--;
+		    copies.remove(given);
+		    givens.remove(copy);
+		}
+	    });
+    }
+
+    /**
+     * @return the Schedule's own copy of a Session given to it, or the Session itself if it is a copy
+     */
+    private Session own(Session session) {
+	Session copy = copies.get(session);
+	return copy == null ? session : copy;
+    }
+
+    /**
+     * Removes a Session.  Once a schedule has been made the Session is taken out of its Block and loses its start time.
+     * 
+     * @param given the Session to remove, as given to the Schedule or its copy
+     * @throws IllegalArgumentException if the Session is null or not in the Schedule
+     */
+    public void removeSession(Session given) throws IllegalArgumentException {
+	if (given == null)
+	    throw new IllegalArgumentException("Session cannot be null.");
+	final Session session = own(given);
+	if (tracks != null) {
+	    buildEditIndex();
+	    if (!slots.containsKey(session))
+		throw new IllegalArgumentException("Session [" + session + "] is not scheduled.");
+	    takeOut(session);
+	    session.setStartOffset(null);
+	}
+	if (!removeBySession(session))
+	    throw new IllegalArgumentException("Session [" + session + "] is not in the Schedule.");
+	//removed by its copy, the Session given is forgotten too
+	final Session original = givens.remove(session);
+	if (original == null)
+	    return;
+	copies.remove(original);
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    copies.put(original, session);
+		    givens.put(session, original);
+		}
+	    });
+    }
+
+    /**
+     * Changes the length of a Session.  Once a schedule has been made the Session stays in its Block if the Block can
+     * still hold it within its maximum duration; otherwise it moves as if removed and added again.
+     * 
+     * @param given the Session to change, as given to the Schedule or its copy
+     * @param minutes the new length in minutes
+     * @throws IllegalArgumentException if the Session is null or not in the Schedule, minutes are not greater than zero,
+     * or the Session would be too long for any Block
+     */
+    public void changeDuration(Session given, int minutes) throws IllegalArgumentException {
+	if (given == null)
+	    throw new IllegalArgumentException("Session cannot be null.");
+	final Session session = own(given);
+	if (minutes <= 0) 
+	    throw new IllegalArgumentException("Minutes must be greater than zero.");
+	if (tracks == null) {
+	    if (!isListed(session))
+		throw new IllegalArgumentException("Session [" + session + "] is not in the Schedule.");
+	    setMinutes(session, minutes);
+	    return;
+	}
+	buildEditIndex();
+	final Integer slot = slots.get(session);
+	if (slot == null)
+	    throw new IllegalArgumentException("Session [" + session + "] is not scheduled.");
+	checkFits(session, minutes);
+
+	final ScheduleBlock wb = getWorkingBlock(slot);
+	int before = wb.getUsedMinutes();
+	if (before - session.getMinutes() + minutes <= wb.getMaxDuration()) {
+	    final int old = session.getMinutes();
+	    wb.changeMinutes(session, minutes);
+	    blockChanged(slot, before);
+	    if (undoLog != null)
+		undoLog.add(new Undo() {
+		    @Override
+		    public void undo() {
+			int before = wb.getUsedMinutes();
+			wb.changeMinutes(session, old);
+			blockChanged(slot, before);
+		    }
+		});
+	    return;
+	}
+	//move it
+	takeOut(session);
+	setMinutes(session, minutes);
+	place(session);
+    }
+
+    /**
+     * Changes the length of a Session not in a Block
+     */
+    private void setMinutes(final Session session, int minutes) {
+	final int old = session.getMinutes();
+	session.setMinutes(minutes);
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    session.setMinutes(old);
+		}
+	    });
+    }
+
+    /**
+     * Builds the indexes used to edit a schedule, unless already built
+     */
+    private void buildEditIndex() {
+	if (slots != null)
+	    return;
+	ScheduleBlock[] first = tracks[0].getScheduleBlocks();
+	workingCount = tracks[0].getWorkingBlocks().length;
+	scheduleIndex = new int[workingCount];
+	for (int i = 0, w = 0; i < first.length; i++)
+	    if (first[i].isAvailableForScheduling())
+		scheduleIndex[w++] = i;
+
+	slots = new IdentityHashMap<Session, Integer>(sessionCount * 2);
+	usedCounts = new ArrayList<TreeMap<Integer, Integer>>(workingCount);
+	for (int w = 0; w < workingCount; w++)
+	    usedCounts.add(new TreeMap<Integer, Integer>());
+	minIndex = new CapacityIndex(tracks.length * workingCount);
+	maxIndex = new CapacityIndex(tracks.length * workingCount);
+	for (Track t : tracks)
+	    addSlots(t);
+    }
+
+    /**
+     * Adds the working blocks of a Track to the edit indexes
+     */
+    private void addSlots(Track t) {
+	ScheduleBlock[] working = t.getWorkingBlocks();
+	for (int w = 0; w < working.length; w++) {
+	    ScheduleBlock wb = working[w];
+	    int slot = minIndex.add(wb.getAvailableMinutes(false));
+	    maxIndex.add(wb.getAvailableMinutes(true));
+	    count(w, wb.getUsedMinutes(), 1);
+	    for (Session s : wb.getSessions())
+		slots.put(s, slot);
+	}
+    }
+
+    /**
+     * @throws IllegalArgumentException if a Session of the given length fits in no Block
+     */
+    private void checkFits(Session session, int minutes) throws IllegalArgumentException {
+	if (template.getLongestDuration() >= minutes)
+	    return;
+	throw new IllegalArgumentException("Session [" + session.getName() + "] of " + minutes
+		+ " minutes does not fit in any track.");
+    }
+
+    /**
+     * Places a Session into the first Block that fits, against the minimum then the maximum duration, adding a Track if
+     * none does
+     */
+    private void place(final Session session) {
+	int minutes = session.getMinutes();
+	int slot = minIndex.firstAtLeast(minutes);
+	if (slot < 0)
+	    slot = maxIndex.firstAtLeast(minutes);
+	if (slot < 0) {
+	    Track t = new Track(template);
+	    t.setLabel(Config.TRACK_LABEL_PREFIX + (tracks.length + 1));
+	    tracks = Arrays.copyOf(tracks, tracks.length + 1);
+	    tracks[tracks.length - 1] = t;
+	    addSlots(t);
+	    t.setSchedule(maxBlockUsedMinutes);
+	    slot = minIndex.firstAtLeast(minutes);
+	    if (slot < 0)
+		slot = maxIndex.firstAtLeast(minutes);
+	}
+	final int at = slot;
+	final ScheduleBlock wb = getWorkingBlock(at);
+	int before = wb.getUsedMinutes();
+	wb.place(session);
+	slots.put(session, at);
+	blockChanged(at, before);
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    int before = wb.getUsedMinutes();
+		    wb.remove(session);
+		    slots.remove(session);
+		    blockChanged(at, before);
+		}
+	    });
+    }
+
+    /**
+     * Takes a placed Session out of its Block
+     */
+    private void takeOut(final Session session) {
+	final int slot = slots.remove(session);
+	final ScheduleBlock wb = getWorkingBlock(slot);
+	final int index = wb.indexOf(session);
+	int before = wb.getUsedMinutes();
+	wb.remove(session);
+	blockChanged(slot, before);
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    int before = wb.getUsedMinutes();
+		    wb.place(index, session);
+		    slots.put(session, slot);
+		    blockChanged(slot, before);
+		}
+	    });
+    }
+
+    /**
+     * Brings indexes and times up to date after the used minutes of a Block changed: the Block itself and, if the most
+     * minutes used in that Block across Tracks changed, the Block after it in every Track get new times
+     * 
+     * @param slot the Block that changed
+     * @param before the minutes it used before the change
+     */
+    private void blockChanged(int slot, int before) {
+	int w = slot % workingCount;
+	int i = scheduleIndex[w];
+	ScheduleBlock wb = getWorkingBlock(slot);
+	minIndex.set(slot, wb.getAvailableMinutes(false));
+	maxIndex.set(slot, wb.getAvailableMinutes(true));
+	count(w, before, -1);
+	count(w, wb.getUsedMinutes(), 1);
+
+	tracks[slot / workingCount].setBlockSchedule(i, maxBlockUsedMinutes);
+	changedTracks.set(slot / workingCount);
+	int max = usedCounts.get(w).lastKey();
+	if (max == maxBlockUsedMinutes[i])
+	    return;
+	maxBlockUsedMinutes[i] = max;
+	if (i + 1 < maxBlockUsedMinutes.length && !tracks[0].getScheduleBlocks()[i + 1].isFixedStart()) {
+	    for (Track t : tracks)
+		t.setBlockSchedule(i + 1, maxBlockUsedMinutes);
+	    changedTracks.set(0, tracks.length);
+	}
+    }
+
+    /**
+     * Adjusts the number of Tracks whose working block uses the given minutes
+     */
+    private void count(int w, int minutes, int delta) {
+	TreeMap<Integer, Integer> counts = usedCounts.get(w);
+	Integer c = counts.get(minutes);
+	int n = (c == null ? 0 : c) + delta;
+	if (n == 0)
+	    counts.remove(minutes);
+	else
+	    counts.put(minutes, n);
+    }
+
+    private ScheduleBlock getWorkingBlock(int slot) {
+	return tracks[slot / workingCount].getWorkingBlocks()[slot % workingCount];
+    }
+
+    /**
+     * @return true if the Session itself is in the list of Sessions, found by its number
+     */
+    private boolean isListed(Session session) {
+	int n = session.getNumber();
+	return n >= 0 && n < sessions.size() && sessions.get(n) == session;
+    }
+
+    /**
+     * Removes a Session from the list of Sessions, leaving its number unused so the others keep theirs
+     * 
+     * @return true if it was there
+     */
+    private boolean removeBySession(final Session session) {
+	if (!isListed(session))
+	    return false;
+	sessions.set(session.getNumber(), null);
+	sessionCount--;
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    sessions.set(session.getNumber(), session);
+		    sessionCount++;
+		}
+	    });
+	return true;
+    }
+
+    /**
+     * @return the Sessions not removed, in number order
+     */
+    private Session[] liveSessions() {
+	Session[] live = new Session[sessionCount];
+	int i = 0;
+	for (Session s : sessions)
+	    if (s != null)
+		live[i++] = s;
+	return live;
+    }
+
     /**
      * Sets the blocks of time to be used in all Schedule Tracks
      * 
@@ -174,8 +713,30 @@ public class Schedule {
     		throws IllegalArgumentException {
 	
 	//./static check
-	BlockFormat.checkBlockOrder(bks);
-	blocks = bks;
+	setBlocks(new BlockTemplate(bks));
+    }
+
+    /**
+     * Sets the blocks of time to be used in all Schedule Tracks, as already checked
+     * 
+     * @param template the time Blocks, which may be shared by many Schedules
+     * @throws IllegalArgumentException if the template is null
+     */
+    public void setBlocks(BlockTemplate template) throws IllegalArgumentException {
+	if (template == null)
+	    throw new IllegalArgumentException("Blocks must be specified");
+	final BlockTemplate oldTemplate = this.template;
+	final BlockFormat[] oldBlocks = blocks;
+	this.template = template;
+	blocks = template.blocks();
+	if (undoLog != null)
+	    undoLog.add(new Undo() {
+		@Override
+		public void undo() {
+		    Schedule.this.template = oldTemplate;
+		    blocks = oldBlocks;
+		}
+	    });
     }
     
     /**
@@ -193,7 +754,15 @@ public class Schedule {
      * @see SchedulingStrategy
      */
     public void setStrategy(SchedulingStrategy strategy) {
+        final SchedulingStrategy old = this.strategy;
         this.strategy = strategy;
+        if (undoLog != null)
+            undoLog.add(new Undo() {
+        	@Override
+        	public void undo() {
+        	    Schedule.this.strategy = old;
+        	}
+            });
     }
 
 
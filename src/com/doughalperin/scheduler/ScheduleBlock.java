@@ -4,6 +4,7 @@
 package com.doughalperin.scheduler;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class is an actual time Block within a Track.  Once scheduling is complete it includes the Sessions that have been slotted
@@ -99,6 +100,68 @@ public class ScheduleBlock {
 	usedMinutes += session.getMinutes();
     }
 
+    /**
+     * Adds a batch of Sessions to the block in one step
+     * 
+     * @param batch the sessions to place, in order
+     */
+    public void place(List<Session> batch) {
+	sessions.addAll(batch);
+	for (Session s : batch)
+	    usedMinutes += s.getMinutes();
+    }
+
+    /**
+     * Adds a Session to the block at a position among the others
+     * 
+     * @param index the position of the session in the block
+     * @param session the session to place
+     */
+    public void place(int index, Session session) {
+	sessions.add(index, session);
+	usedMinutes += session.getMinutes();
+    }
+
+    /**
+     * @param session a session
+     * @return the position of the session in the block or -1 if it is not in the block
+     */
+    public int indexOf(Session session) {
+	//identity, since distinct Sessions may share name and length
+	for (int i = 0; i < sessions.size(); i++) 
+	    if (sessions.get(i) == session) 
+		return i;
+	return -1;
+    }
+
+    /**
+     * Takes a Session out of the block
+     * 
+     * @param session the session to remove
+     * @return true if the session was in the block
+     */
+    public boolean remove(Session session) {
+	int i = indexOf(session);
+	if (i < 0)
+	    return false;
+	sessions.remove(i);
+	usedMinutes -= session.getMinutes();
+	return true;
+    }
+
+    /**
+     * Changes the length of a Session in the block, keeping the used minutes in step
+     * 
+     * @param session a session in the block
+     * @param minutes the new length in minutes
+     * @throws IllegalArgumentException if minutes are less than or equal to zero
+     */
+    public void changeMinutes(Session session, int minutes) throws IllegalArgumentException {
+	int old = session.getMinutes();
+	session.setMinutes(minutes);
+	usedMinutes += minutes - old;
+    }
+
     /**
      * @param startMinuteOffset the startMinuteOffset to set
      */
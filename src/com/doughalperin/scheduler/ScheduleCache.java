@@ -0,0 +1,588 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A content-addressed cache of schedules on local disk, so runs on unchanged input skip both parsing and the
+ * SchedulingStrategy.
+ * <p>
+ * A schedule is keyed by a SHA-256 hash of the Block formats, the strategy with its settings
+ * ({@link SchedulingStrategy#getCacheIdentity()}) and the multiset of Session names and lengths; the order of the input
+ * lines does not matter.  The Track layout stored is the Sessions of each working Block of each Track in order, so a
+ * hit rebuilds the same Tracks the strategy made.
+ * </p>
+ * <p>
+ * Below that the parsed Sessions of each input file are kept, keyed by a hash of the file content, and the size,
+ * modification time and hashes of each input path are remembered so an unchanged file is not even read.  As with
+ * other tools trusting modification times, a file is read again while its time is too close to when it was hashed.  Entries are
+ * evicted least recently used first once the directory holds more than its limit.
+ * </p>
+ * <p>
+ * Strategies with a time budget can give different schedules on different runs; the cache keeps the first.  Failing to
+ * write the cache never fails a run.  Instances may be shared by processes using the same directory, since entries are
+ * written to a temporary file and then renamed.
+ * </p>
+ *
+ * @see Schedule#makeSchedule(String, Schedule.FileEncoding, ScheduleCache)
+ */
+public class ScheduleCache {
+
+    private static final int TABLE_MAGIC = 0x53435431;
+    private static final int LAYOUT_MAGIC = 0x53434c31;
+    private static final int STAT_MAGIC = 0x53435331;
+
+    private static final String TABLE_SUFFIX = ".table";
+    private static final String LAYOUT_SUFFIX = ".layout";
+    private static final String STAT_SUFFIX = ".stat";
+
+    //a file changed this soon after it was hashed could change again within the same modification time
+    private static final long RACY_MILLIS = 2000;
+
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory where entries are kept; created if need be
+     * @param maxBytes the most bytes of entries kept
+     * @throws IllegalArgumentException if the directory cannot be used or the limit is not positive
+     */
+    public ScheduleCache(File directory, long maxBytes) throws IllegalArgumentException {
+	if (maxBytes <= 0)
+	    throw new IllegalArgumentException("Cache size must be greater than zero.");
+	if (!directory.isDirectory() && !directory.mkdirs())
+	    throw new IllegalArgumentException("Cache directory " + directory + " cannot be created.");
+	this.directory = directory;
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Schedules the Sessions of a file, from the cache if possible.  On a miss the file is parsed, or its Sessions are
+     * taken from the cache, and the strategy is applied; the result is then stored.
+     *
+     * @param file complete path to file to read
+     * @param charset the encoding of the file
+     * @param blocks time blocks in which Tracks are divided
+     * @param strategy the strategy used on a miss
+     * @return Tracks holding the Sessions, not yet given times
+     * @throws IllegalArgumentException when file not found, lines of the file are not valid Session data or a Session
+     * cannot be scheduled
+     * @throws IOException when errors occur in reading the file
+     */
+    public Track[] apply(String file, Charset charset, BlockFormat[] blocks, SchedulingStrategy strategy)
+	    throws IllegalArgumentException, IOException {
+	return apply(file, charset, blocks, strategy, null);
+    }
+
+    /**
+     * Schedules the Sessions of a file as {@link #apply(String, Charset, BlockFormat[], SchedulingStrategy)} does,
+     * giving the Sessions of the file as well.  A cached layout is filled with those Sessions, equal Sessions in the
+     * order of the file.
+     *
+     * @param file complete path to file to read
+     * @param charset the encoding of the file
+     * @param blocks time blocks in which Tracks are divided
+     * @param strategy the strategy used on a miss
+     * @param sessions where the Sessions of the file are added, in the order of the file; null if not wanted
+     * @return Tracks holding the Sessions, not yet given times
+     * @throws IllegalArgumentException when file not found, lines of the file are not valid Session data or a Session
+     * cannot be scheduled
+     * @throws IOException when errors occur in reading the file
+     */
+    Track[] apply(String file, Charset charset, BlockFormat[] blocks, SchedulingStrategy strategy,
+	    List<Session> sessions) throws IllegalArgumentException, IOException {
+	File input = new File(file);
+	if (!input.isFile())
+	    throw new IllegalArgumentException("File " + file + " not found.");
+	String path = input.getCanonicalPath();
+	long size = input.length();
+	long modified = input.lastModified();
+
+	//unchanged file: its hashes are known without reading it
+	File statFile = entry(hash(path.getBytes("UTF-8")), STAT_SUFFIX);
+	String contentHash = null;
+	String sessionsHash = null;
+	String[] stat = readStat(statFile, path, size, modified);
+	if (stat != null) {
+	    contentHash = stat[0];
+	    sessionsHash = stat[1];
+	}
+
+	SessionTable table = null;
+	if (contentHash == null) {
+	    contentHash = hashFile(input);
+	    table = readSessions(file, charset, contentHash);
+	    sessionsHash = hashSessions(table);
+	    writeStat(statFile, path, size, modified, contentHash, sessionsHash);
+	}
+
+	File layoutFile = entry(resultKey(blocks, strategy, sessionsHash), LAYOUT_SUFFIX);
+	Session[] read = null;
+	if (sessions != null) {
+	    if (table == null)
+		table = readSessions(file, charset, contentHash);
+	    read = sessionsOf(table);
+	}
+	Track[] tracks = readLayout(layoutFile, blocks, read);
+	if (tracks == null) {
+	    if (read == null) {
+		if (table == null)
+		    table = readSessions(file, charset, contentHash);
+		read = sessionsOf(table);
+	    }
+	    try {
+		tracks = strategy.apply(blocks, read);
+	    } catch (IllegalArgumentException e) {
+		throw new IllegalArgumentException("A viable schedule could not be made:" + e.getMessage(), e);
+	    }
+	    writeLayout(layoutFile, tracks);
+	}
+	if (sessions != null)
+	    Collections.addAll(sessions, read);
+	return tracks;
+    }
+
+    /**
+     * Gets the Sessions of a file from the cache, or parses the file and caches them, recording a ParseSessions event
+     *
+     * @param contentHash the hex SHA-256 of the content of the file
+     * @return the Sessions of the file
+     */
+    private SessionTable readSessions(String file, Charset charset, String contentHash)
+	    throws IllegalArgumentException, IOException {
+	ScheduleEvents.ParseSessions event = new ScheduleEvents.ParseSessions();
+	event.begin();
+	SessionTable table = null;
+	try {
+	    table = readTable(entry(contentHash, TABLE_SUFFIX));
+	    if (table == null) {
+		table = new SessionFileParser(charset).parseFileToTable(file);
+		writeTable(entry(contentHash, TABLE_SUFFIX), table);
+	    }
+	    return table;
+	} finally {
+	    if (event.shouldCommit()) {
+		event.file = file;
+		event.sessionCount = table == null ? 0 : table.size();
+		event.succeeded = table != null;
+		event.commit();
+	    }
+	}
+    }
+
+    /**
+     * @return a new Session for each row of the table, in order
+     */
+    private static Session[] sessionsOf(SessionTable table) {
+	Session[] sessions = new Session[table.size()];
+	for (int i = 0; i < sessions.length; i++)
+	    sessions[i] = table.getSession(i);
+	return sessions;
+    }
+
+    /**
+     * @return the hex SHA-256 of the Block formats, the strategy identity and the Session multiset hash
+     */
+    static String resultKey(BlockFormat[] blocks, SchedulingStrategy strategy, String sessionsHash) {
+	MessageDigest digest = sha256();
+	StringBuilder sb = new StringBuilder();
+	for (BlockFormat b : blocks)
+	    sb.append(b.getName()).append('\0').append(b.getStartMinuteOffset()).append(',')
+		    .append(b.isAvailableForScheduling()).append(',').append(b.isFixedStart()).append(',')
+		    .append(b.getMinDuration()).append(',').append(b.getMaxDuration()).append('\n');
+	sb.append(strategy.getCacheIdentity()).append('\n').append(sessionsHash);
+	digest.update(sb.toString().getBytes(Charset.forName("UTF-8")));
+	return hex(digest.digest());
+    }
+
+    /**
+     * Hashes the multiset of (name, minutes) of a table: the distinct pairs in a canonical order, each with its count
+     *
+     * @return the hex SHA-256
+     */
+    static String hashSessions(SessionTable table) {
+	//rank the distinct names
+	int names = table.getNameCount();
+	Integer[] byName = new Integer[names];
+	for (int j = 0; j < names; j++)
+	    byName[j] = j;
+	final SessionTable t = table;
+	Arrays.sort(byName, new Comparator<Integer>() {
+	    @Override
+	    public int compare(Integer a, Integer b) {
+		return t.getNameById(a).compareTo(t.getNameById(b));
+	    }
+	});
+	int[] rank = new int[names];
+	for (int r = 0; r < names; r++)
+	    rank[byName[r]] = r;
+
+	long[] keys = new long[table.size()];
+	for (int i = 0; i < keys.length; i++)
+	    keys[i] = ((long)table.getMinutes(i) << 32) | rank[table.getNameId(i)];
+	Arrays.sort(keys);
+
+	MessageDigest digest = sha256();
+	ByteBuffer buffer = ByteBuffer.allocate(12);
+	Charset utf8 = Charset.forName("UTF-8");
+	for (int i = 0; i < keys.length; ) {
+	    int j = i;
+	    while (j < keys.length && keys[j] == keys[i])
+		j++;
+	    byte[] name = table.getNameById(byName[(int)keys[i]]).getBytes(utf8);
+	    buffer.clear();
+	    buffer.putInt(name.length).putInt((int)(keys[i] >>> 32)).putInt(j - i);
+	    digest.update(buffer.array());
+	    digest.update(name);
+	    i = j;
+	}
+	return hex(digest.digest());
+    }
+
+    /**
+     * @return the hex SHA-256 of the content of a file
+     */
+    private static String hashFile(File file) throws IOException {
+	MessageDigest digest = sha256();
+	RandomAccessFile raf = new RandomAccessFile(file, "r");
+	try {
+	    FileChannel channel = raf.getChannel();
+	    long size = channel.size();
+	    for (long position = 0; position < size; position += Integer.MAX_VALUE)
+		digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+			Math.min(Integer.MAX_VALUE, size - position)));
+	} finally {
+	    raf.close();
+	}
+	return hex(digest.digest());
+    }
+
+    private static String hash(byte[] bytes) {
+	return hex(sha256().digest(bytes));
+    }
+
+    private static MessageDigest sha256() {
+	try {
+	    return MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    //every Java platform has SHA-256
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    private static String hex(byte[] bytes) {
+	char[] digits = "0123456789abcdef".toCharArray();
+	char[] c = new char[bytes.length * 2];
+	for (int i = 0; i < bytes.length; i++) {
+	    c[2 * i] = digits[(bytes[i] >> 4) & 0xf];
+	    c[2 * i + 1] = digits[bytes[i] & 0xf];
+	}
+	return new String(c);
+    }
+
+    private File entry(String key, String suffix) {
+	return new File(directory, key + suffix);
+    }
+
+    /**
+     * @return the content and Session hashes of the path if its size and modification time are unchanged, else null
+     */
+    private String[] readStat(File entry, String path, long size, long modified) {
+	DataInputStream in = open(entry);
+	if (in == null)
+	    return null;
+	try {
+	    if (in.readInt() != STAT_MAGIC || !in.readUTF().equals(path) || in.readLong() != size
+		    || in.readLong() != modified || in.readLong() <= modified + RACY_MILLIS)
+		return null;
+	    String[] hashes = new String[] {in.readUTF(), in.readUTF()};
+	    touch(entry);
+	    return hashes;
+	} catch (IOException e) {
+	    return null;
+	} finally {
+	    close(in);
+	}
+    }
+
+    private void writeStat(File entry, String path, long size, long modified, String contentHash, String sessionsHash) {
+	try {
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    DataOutputStream out = new DataOutputStream(bytes);
+	    out.writeInt(STAT_MAGIC);
+	    out.writeUTF(path);
+	    out.writeLong(size);
+	    out.writeLong(modified);
+	    out.writeLong(System.currentTimeMillis());
+	    out.writeUTF(contentHash);
+	    out.writeUTF(sessionsHash);
+	    store(entry, bytes);
+	} catch (IOException e) {
+	    //not cached
+	}
+    }
+
+    /**
+     * @return the parsed Sessions, or null if not cached
+     */
+    private SessionTable readTable(File entry) {
+	DataInputStream in = open(entry);
+	if (in == null)
+	    return null;
+	try {
+	    if (in.readInt() != TABLE_MAGIC)
+		return null;
+	    String[] names = readNames(in);
+	    int size = in.readInt();
+	    SessionTable table = new SessionTable(size);
+	    for (int i = 0; i < size; i++) {
+		String name = names[in.readInt()];
+		table.add(name, in.readInt());
+	    }
+	    touch(entry);
+	    return table;
+	} catch (IOException e) {
+	    return null;
+	} catch (RuntimeException e) {
+	    //corrupt entry
+	    return null;
+	} finally {
+	    close(in);
+	}
+    }
+
+    private void writeTable(File entry, SessionTable table) {
+	try {
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    DataOutputStream out = new DataOutputStream(bytes);
+	    out.writeInt(TABLE_MAGIC);
+	    out.writeInt(table.getNameCount());
+	    for (int j = 0; j < table.getNameCount(); j++)
+		out.writeUTF(table.getNameById(j));
+	    out.writeInt(table.size());
+	    for (int i = 0; i < table.size(); i++) {
+		out.writeInt(table.getNameId(i));
+		out.writeInt(table.getMinutes(i));
+	    }
+	    store(entry, bytes);
+	} catch (IOException e) {
+	    //not cached, for example a name too long to write
+	}
+    }
+
+    /**
+     * @param read the Sessions to place, equal Sessions in order; null to place new Sessions
+     * @return new Tracks holding Sessions as stored, or null if not cached or the stored Sessions are not those read
+     */
+    private Track[] readLayout(File entry, BlockFormat[] blocks, Session[] read) {
+	DataInputStream in = open(entry);
+	if (in == null)
+	    return null;
+	try {
+	    if (in.readInt() != LAYOUT_MAGIC)
+		return null;
+	    //the Sessions read by name and length
+	    HashMap<String, ArrayDeque<Session>> equal = null;
+	    if (read != null) {
+		equal = new HashMap<String, ArrayDeque<Session>>();
+		for (Session s : read) {
+		    String key = s.getName() + '\0' + s.getMinutes();
+		    ArrayDeque<Session> queue = equal.get(key);
+		    if (queue == null) {
+			queue = new ArrayDeque<Session>();
+			equal.put(key, queue);
+		    }
+		    queue.add(s);
+		}
+	    }
+	    int placed = 0;
+	    String[] names = readNames(in);
+	    Track[] tracks = new Track[in.readInt()];
+	    BlockTemplate template = new BlockTemplate(blocks);
+	    for (int t = 0; t < tracks.length; t++) {
+		tracks[t] = new Track(template);
+		ScheduleBlock[] working = tracks[t].getWorkingBlocks();
+		if (in.readInt() != working.length)
+		    return null;
+		for (ScheduleBlock wb : working) {
+		    int count = in.readInt();
+		    for (int k = 0; k < count; k++) {
+			String name = names[in.readInt()];
+			int minutes = in.readInt();
+			if (equal == null) {
+			    wb.place(new Session(name, minutes));
+			    continue;
+			}
+			ArrayDeque<Session> queue = equal.get(name + '\0' + minutes);
+			if (queue == null || queue.isEmpty())
+			    return null;
+			wb.place(queue.poll());
+			placed++;
+		    }
+		}
+	    }
+	    if (read != null && placed != read.length)
+		return null;
+	    touch(entry);
+	    return tracks;
+	} catch (IOException e) {
+	    return null;
+	} catch (RuntimeException e) {
+	    //corrupt entry
+	    return null;
+	} finally {
+	    close(in);
+	}
+    }
+
+    private void writeLayout(File entry, Track[] tracks) {
+	try {
+	    //name dictionary in order of first use
+	    ArrayList<String> names = new ArrayList<String>();
+	    HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	    for (Track t : tracks)
+		for (ScheduleBlock wb : t.getWorkingBlocks())
+		    for (Session s : wb.getSessions())
+			if (!ids.containsKey(s.getName())) {
+			    ids.put(s.getName(), names.size());
+			    names.add(s.getName());
+			}
+
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	    DataOutputStream out = new DataOutputStream(bytes);
+	    out.writeInt(LAYOUT_MAGIC);
+	    out.writeInt(names.size());
+	    for (String name : names)
+		out.writeUTF(name);
+	    out.writeInt(tracks.length);
+	    for (Track t : tracks) {
+		ScheduleBlock[] working = t.getWorkingBlocks();
+		out.writeInt(working.length);
+		for (ScheduleBlock wb : working) {
+		    out.writeInt(wb.getSessions().size());
+		    for (Session s : wb.getSessions()) {
+			out.writeInt(ids.get(s.getName()));
+			out.writeInt(s.getMinutes());
+		    }
+		}
+	    }
+	    store(entry, bytes);
+	} catch (IOException e) {
+	    //not cached
+	}
+    }
+
+    private static String[] readNames(DataInputStream in) throws IOException {
+	String[] names = new String[in.readInt()];
+	for (int j = 0; j < names.length; j++)
+	    names[j] = in.readUTF();
+	return names;
+    }
+
+    private DataInputStream open(File entry) {
+	try {
+	    return new DataInputStream(new BufferedInputStream(new FileInputStream(entry), 1 << 16));
+	} catch (IOException e) {
+	    return null;
+	}
+    }
+
+    private static void close(DataInputStream in) {
+	try {
+	    in.close();
+	} catch (IOException e) {
+	    //nothing more to do
+	}
+    }
+
+    /**
+     * Writes an entry to a temporary file and renames it, so readers never see part of an entry, then evicts
+     */
+    private void store(File entry, ByteArrayOutputStream bytes) throws IOException {
+	File temp = File.createTempFile("entry", ".tmp", directory);
+	try {
+	    FileOutputStream out = new FileOutputStream(temp);
+	    try {
+		bytes.writeTo(out);
+	    } finally {
+		out.close();
+	    }
+	    Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	} finally {
+	    temp.delete();
+	}
+	evict();
+    }
+
+    /**
+     * Marks an entry as recently used
+     */
+    private static void touch(File entry) {
+	entry.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Deletes the least recently used entries until the directory is within its limit
+     */
+    private void evict() {
+	//temporary files may be entries being written by another process
+	File[] files = directory.listFiles(new FileFilter() {
+	    @Override
+	    public boolean accept(File f) {
+		return f.isFile() && !f.getName().endsWith(".tmp");
+	    }
+	});
+	if (files == null)
+	    return;
+	long total = 0;
+	for (File f : files)
+	    total += f.length();
+	if (total <= maxBytes)
+	    return;
+	final long[] used = new long[files.length];
+	Integer[] order = new Integer[files.length];
+	for (int i = 0; i < files.length; i++) {
+	    used[i] = files[i].lastModified();
+	    order[i] = i;
+	}
+	Arrays.sort(order, new Comparator<Integer>() {
+	    @Override
+	    public int compare(Integer a, Integer b) {
+		return Long.compare(used[a], used[b]);
+	    }
+	});
+	for (int i = 0; i < order.length && total > maxBytes; i++) {
+	    File f = files[order[i]];
+	    long length = f.length();
+	    if (f.delete())
+		total -= length;
+	}
+    }
+
+}
@@ -0,0 +1,257 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the ScheduleCache class
+ *
+ * @see ScheduleCache
+ */
+public class ScheduleCacheTest {
+
+    private File directory;
+    private File input;
+
+    @Before
+    public void setUp() throws IOException {
+	directory = File.createTempFile("cache", "");
+	directory.delete();
+	input = File.createTempFile("conference", ".txt");
+	new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 3).writeFile(input.getPath(), 200);
+    }
+
+    @After
+    public void tearDown() {
+	File[] files = directory.listFiles();
+	if (files != null)
+	    for (File f : files)
+		f.delete();
+	directory.delete();
+	input.delete();
+    }
+
+    private static void write(File file, String text) throws IOException {
+	Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+	try {
+	    out.write(text);
+	} finally {
+	    out.close();
+	}
+    }
+
+    private static String layout(Track[] tracks) {
+	StringBuilder sb = new StringBuilder();
+	for (Track t : tracks) {
+	    for (ScheduleBlock wb : t.getWorkingBlocks()) {
+		for (Session s : wb.getSessions())
+		    sb.append(s.getName()).append(' ').append(s.getMinutes()).append(',');
+		sb.append('|');
+	    }
+	    sb.append('\n');
+	}
+	return sb.toString();
+    }
+
+    private static String numbered(ScheduleSnapshot snapshot) {
+	StringBuilder sb = new StringBuilder();
+	for (ScheduledSession s : snapshot.getSessions())
+	    sb.append(s.getId()).append(' ').append(s).append(" in ").append(s.getTrack()).append('\n');
+	return sb.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleCache#apply(String, Charset, BlockFormat[], SchedulingStrategy)}.
+     */
+    @Test
+    public void testHit() throws IOException {
+	ScheduleCache cache = new ScheduleCache(directory, Config.CACHE_MAX_BYTES);
+	SchedulingStrategy strategy = new FirstFitDecreasingStrategy();
+	Charset utf8 = Charset.forName("UTF-8");
+	Track[] first = cache.apply(input.getPath(), utf8, Config.BLOCKS, strategy);
+	assertEquals(layout(strategy.apply(Config.BLOCKS,
+		new SessionFileParser(utf8).parseFile(input.getPath()).toArray(new Session[] {}))), layout(first));
+
+	long runs = strategy.getMetrics().getRuns();
+	Track[] second = new ScheduleCache(directory, Config.CACHE_MAX_BYTES).apply(input.getPath(), utf8,
+		Config.BLOCKS, strategy);
+	assertEquals("strategy not run on a hit", runs, strategy.getMetrics().getRuns());
+	assertEquals(layout(first), layout(second));
+    }
+
+    /**
+     * The same Sessions in another order or another file share a schedule; other Sessions or Blocks do not
+     */
+    @Test
+    public void testKey() throws IOException {
+	ScheduleCache cache = new ScheduleCache(directory, Config.CACHE_MAX_BYTES);
+	SchedulingStrategy strategy = new FirstFitDecreasingStrategy();
+	Charset utf8 = Charset.forName("UTF-8");
+	write(input, "A 60min\nB 45min\nC lightning\n");
+	Track[] first = cache.apply(input.getPath(), utf8, Config.BLOCKS, strategy);
+
+	File other = File.createTempFile("conference", ".txt");
+	other.deleteOnExit();
+	write(other, "C lightning\nA 60min\nB 45min\n");
+	long runs = strategy.getMetrics().getRuns();
+	assertEquals(layout(first), layout(cache.apply(other.getPath(), utf8, Config.BLOCKS, strategy)));
+	assertEquals("reordered Sessions hit", runs, strategy.getMetrics().getRuns());
+
+	//changed content, even with the same size and time, is read again
+	write(input, "A 60min\nB 30min\nC lightning\n");
+	Track[] changed = cache.apply(input.getPath(), utf8, Config.BLOCKS, strategy);
+	assertEquals(runs + 1, strategy.getMetrics().getRuns());
+	assertEquals(30, changed[0].getWorkingBlocks()[0].getSessions().get(1).getMinutes());
+
+	BlockFormat[] blocks = {
+		new BlockFormat("Morning Sessions", new TimeOffset(0, 9, 0), true, true, 90, 90),
+		new BlockFormat("Afternoon Sessions", new TimeOffset(0, 13, 0), true, true, 90, 90)};
+	Track[] other2 = cache.apply(input.getPath(), utf8, blocks, strategy);
+	assertEquals(runs + 2, strategy.getMetrics().getRuns());
+	assertEquals(2, other2[0].getWorkingBlocks().length);
+    }
+
+    /**
+     * Strategies of one class with other settings do not share a schedule
+     */
+    @Test
+    public void testStrategyKey() {
+	String hash = "sessions";
+	assertEquals(ScheduleCache.resultKey(Config.BLOCKS, new BranchAndBoundStrategy(50), hash),
+		ScheduleCache.resultKey(Config.BLOCKS, new BranchAndBoundStrategy(50), hash));
+	assertFalse(ScheduleCache.resultKey(Config.BLOCKS, new BranchAndBoundStrategy(50), hash).equals(
+		ScheduleCache.resultKey(Config.BLOCKS, new BranchAndBoundStrategy(60), hash)));
+
+	String portfolio = ScheduleCache.resultKey(Config.BLOCKS,
+		new PortfolioStrategy(50, new FirstFitDecreasingStrategy(), new BranchAndBoundStrategy(50)), hash);
+	assertEquals(portfolio, ScheduleCache.resultKey(Config.BLOCKS,
+		new PortfolioStrategy(50, new FirstFitDecreasingStrategy(), new BranchAndBoundStrategy(50)), hash));
+	assertFalse(portfolio.equals(ScheduleCache.resultKey(Config.BLOCKS,
+		new PortfolioStrategy(50, new FirstFitDecreasingStrategy(), new BranchAndBoundStrategy(60)), hash)));
+	assertFalse(portfolio.equals(ScheduleCache.resultKey(Config.BLOCKS,
+		new PortfolioStrategy(50, new BestFitDecreasingStrategy(), new BranchAndBoundStrategy(50)), hash)));
+	assertFalse(portfolio.equals(ScheduleCache.resultKey(Config.BLOCKS,
+		new PortfolioStrategy(60, new FirstFitDecreasingStrategy(), new BranchAndBoundStrategy(50)), hash)));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#makeSchedule(String, Schedule.FileEncoding, ScheduleCache)}.
+     */
+    @Test
+    public void testMakeSchedule() throws IOException {
+	ScheduleCache cache = new ScheduleCache(directory, Config.CACHE_MAX_BYTES);
+	Schedule expected = new Schedule();
+	expected.setBlocks(Config.BLOCKS);
+	expected.setSessionsFromFile(input.getPath(), Schedule.FileEncoding.UTF8);
+	ScheduleSnapshot expectedSnapshot = expected.makeSchedule();
+	for (int run = 0; run < 2; run++) {
+	    Schedule schedule = new Schedule();
+	    schedule.setBlocks(Config.BLOCKS);
+	    ScheduleSnapshot snapshot = schedule.makeSchedule(input.getPath(), Schedule.FileEncoding.UTF8, cache);
+	    //numbered in the order of the file, as without the cache
+	    assertEquals(numbered(expectedSnapshot), numbered(snapshot));
+	    Track[] tracks = schedule.getTracks();
+	    assertEquals(expected.getTracks().length, tracks.length);
+	    for (int t = 0; t < tracks.length; t++) {
+		assertEquals(expected.getTracks()[t].getLabel(), tracks[t].getLabel());
+		ScheduleBlock[] e = expected.getTracks()[t].getScheduleBlocks();
+		ScheduleBlock[] a = tracks[t].getScheduleBlocks();
+		for (int b = 0; b < e.length; b++)
+		    for (int s = 0; s < e[b].getSessions().size(); s++)
+			assertEquals(e[b].getSessions().get(s).toString(), a[b].getSessions().get(s).toString());
+	    }
+	}
+    }
+
+    /**
+     * A file of the same Sessions in another order is scheduled from the cached layout, numbered in its own order
+     */
+    @Test
+    public void testMakeScheduleReordered() throws IOException {
+	ScheduleCache cache = new ScheduleCache(directory, Config.CACHE_MAX_BYTES);
+	Schedule first = new Schedule();
+	first.setBlocks(Config.BLOCKS);
+	first.makeSchedule(input.getPath(), Schedule.FileEncoding.UTF8, cache);
+
+	Charset utf8 = Charset.forName("UTF-8");
+	List<Session> lines = new SessionFileParser(utf8).parseFile(input.getPath());
+	Collections.reverse(lines);
+	File other = File.createTempFile("conference", ".txt");
+	other.deleteOnExit();
+	StringBuilder sb = new StringBuilder();
+	for (Session s : lines)
+	    sb.append(s.getName()).append(' ').append(s.getMinutes()).append("min\n");
+	write(other, sb.toString());
+
+	StrategyMetrics metrics = Config.DEFAULT_STRATEGY.getMetrics();
+	long runs = metrics.getRuns();
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	ScheduleSnapshot snapshot = schedule.makeSchedule(other.getPath(), Schedule.FileEncoding.UTF8, cache);
+	assertEquals("layout reused", runs, metrics.getRuns());
+	assertEquals(layout(first.getTracks()), layout(schedule.getTracks()));
+	assertEquals(lines.size(), snapshot.getScheduledCount());
+	for (int i = 0; i < lines.size(); i++) {
+	    assertEquals(lines.get(i).getName(), snapshot.getSession(i).getName());
+	    assertEquals(lines.get(i).getMinutes(), snapshot.getSession(i).getMinutes());
+	}
+    }
+
+    /**
+     * Test method for eviction once the cache is over its limit.
+     */
+    @Test
+    public void testEviction() throws IOException {
+	ScheduleCache cache = new ScheduleCache(directory, 4096);
+	SchedulingStrategy strategy = new FirstFitDecreasingStrategy();
+	Charset utf8 = Charset.forName("UTF-8");
+	for (int seed = 0; seed < 10; seed++) {
+	    new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, seed).writeFile(input.getPath(), 50);
+	    cache.apply(input.getPath(), utf8, Config.BLOCKS, strategy);
+	    long total = 0;
+	    for (File f : directory.listFiles())
+		total += f.length();
+	    assertTrue("cache holds " + total, total <= 4096);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleCache#ScheduleCache(File, long)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+	new ScheduleCache(directory, 0);
+    }
+
+    /**
+     * Parse errors are reported as without a cache, and nothing is cached
+     */
+    @Test
+    public void testInvalidInput() throws IOException {
+	write(input, "A 60min\nB\n");
+	try {
+	    new ScheduleCache(directory, Config.CACHE_MAX_BYTES).apply(input.getPath(), Charset.forName("UTF-8"),
+		    Config.BLOCKS, new FirstFitDecreasingStrategy());
+	    fail("invalid input scheduled");
+	} catch (IllegalArgumentException e) {
+	    assertTrue(e.getMessage(), e.getMessage().startsWith("Failed input line 2:"));
+	}
+	assertEquals(0, directory.listFiles().length);
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the phases of making a Schedule.  Each is begun before and committed after its
+ * phase, with the fields set only when {@link Event#shouldCommit()} says the event is being recorded; when recording is
+ * off the events are never kept and the JIT removes them.
+ * <p>
+ * The event for each Track is disabled by default, since a large Schedule has very many Tracks; enable
+ * <i>com.doughalperin.scheduler.TrackSchedule</i> in the recording settings to see them.
+ * </p>
+ *
+ */
+final class ScheduleEvents {
+
+    private ScheduleEvents() {
+	//holder only
+    }
+
+    @Name("com.doughalperin.scheduler.ParseSessions")
+    @Label("Parse Sessions")
+    @Category("Scheduler")
+    @Description("Reading the Sessions of an input file")
+    static final class ParseSessions extends Event {
+	@Label("File")
+	String file;
+
+	@Label("Session Count")
+	int sessionCount;
+
+	@Label("Succeeded")
+	boolean succeeded;
+    }
+
+    @Name("com.doughalperin.scheduler.ApplyStrategy")
+    @Label("Apply Strategy")
+    @Category("Scheduler")
+    @Description("Placing the Sessions into Tracks with a SchedulingStrategy")
+    static final class ApplyStrategy extends Event {
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Session Count")
+	int sessionCount;
+
+	@Label("Track Count")
+	int trackCount;
+
+	@Label("Succeeded")
+	boolean succeeded;
+    }
+
+    @Name("com.doughalperin.scheduler.MakeSchedule")
+    @Label("Make Schedule")
+    @Category("Scheduler")
+    @Description("Applying the strategy and giving every Session its time")
+    static final class MakeSchedule extends Event {
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Session Count")
+	int sessionCount;
+
+	@Label("Track Count")
+	int trackCount;
+
+	@Label("Succeeded")
+	boolean succeeded;
+    }
+
+    @Name("com.doughalperin.scheduler.TrackSchedule")
+    @Label("Track Schedule")
+    @Category("Scheduler")
+    @Description("Giving the Sessions of one Track their times")
+    @Enabled(false)
+    static final class TrackSchedule extends Event {
+	@Label("Track")
+	String track;
+
+	@Label("Session Count")
+	int sessionCount;
+    }
+
+}
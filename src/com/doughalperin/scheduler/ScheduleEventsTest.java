@@ -0,0 +1,165 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+/**
+ * Tests that ScheduleEvents are recorded by Java Flight Recorder
+ *
+ * @see ScheduleEvents
+ */
+public class ScheduleEventsTest {
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#makeSchedule()}.
+     */
+    @Test
+    public void testEventsRecorded() throws IOException {
+	File input = File.createTempFile("conference", ".txt");
+	input.deleteOnExit();
+	new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 1).writeFile(input.getPath(), 100);
+	File output = File.createTempFile("events", ".jfr");
+	output.deleteOnExit();
+
+	Recording recording = new Recording();
+	recording.enable(ScheduleEvents.ParseSessions.class);
+	recording.enable(ScheduleEvents.ApplyStrategy.class);
+	recording.enable(ScheduleEvents.MakeSchedule.class);
+	recording.enable(ScheduleEvents.TrackSchedule.class);
+	recording.start();
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	schedule.setSessionsFromFile(input.getPath(), Schedule.FileEncoding.UTF8);
+	schedule.makeSchedule();
+	recording.stop();
+	recording.dump(output.toPath());
+	recording.close();
+
+	int tracks = schedule.getTracks().length;
+	HashMap<String, Integer> counts = new HashMap<String, Integer>();
+	List<RecordedEvent> events = RecordingFile.readAllEvents(output.toPath());
+	for (RecordedEvent e : events) {
+	    String name = e.getEventType().getName();
+	    if (!name.startsWith("com.doughalperin.scheduler."))
+		continue;
+	    Integer c = counts.get(name);
+	    counts.put(name, c == null ? 1 : c + 1);
+	    if (name.endsWith("ParseSessions"))
+		assertEquals(100, e.getInt("sessionCount"));
+	    else if (name.endsWith("ApplyStrategy") || name.endsWith("MakeSchedule")) {
+		assertEquals(100, e.getInt("sessionCount"));
+		assertEquals(tracks, e.getInt("trackCount"));
+		assertEquals(Config.DEFAULT_STRATEGY.getClass().getName(), e.getString("strategy"));
+		assertTrue(e.getBoolean("succeeded"));
+	    }
+	}
+	assertEquals(Integer.valueOf(1), counts.get("com.doughalperin.scheduler.ParseSessions"));
+	assertEquals(Integer.valueOf(1), counts.get("com.doughalperin.scheduler.ApplyStrategy"));
+	assertEquals(Integer.valueOf(1), counts.get("com.doughalperin.scheduler.MakeSchedule"));
+	assertEquals(Integer.valueOf(tracks), counts.get("com.doughalperin.scheduler.TrackSchedule"));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SchedulingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testApplyRecorded() throws IOException {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 2).nextSessions(50);
+	File output = File.createTempFile("events", ".jfr");
+	output.deleteOnExit();
+
+	Recording recording = new Recording();
+	recording.enable(ScheduleEvents.ApplyStrategy.class);
+	recording.start();
+	int tracks = new BestFitDecreasingStrategy().apply(Config.BLOCKS, sessions).length;
+	try {
+	    new BestFitDecreasingStrategy().apply(Config.BLOCKS, new Session[] {new Session("Too Long", 500)});
+	    fail("Unexpectedly succeeded");
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	}
+	recording.stop();
+	recording.dump(output.toPath());
+	recording.close();
+
+	int succeeded = 0;
+	int failed = 0;
+	for (RecordedEvent e : RecordingFile.readAllEvents(output.toPath()))
+	    if (e.getEventType().getName().equals("com.doughalperin.scheduler.ApplyStrategy")) {
+		assertEquals(BestFitDecreasingStrategy.class.getName(), e.getString("strategy"));
+		if (e.getBoolean("succeeded")) {
+		    succeeded++;
+		    assertEquals(50, e.getInt("sessionCount"));
+		    assertEquals(tracks, e.getInt("trackCount"));
+		} else
+		    failed++;
+	    }
+	assertEquals(1, succeeded);
+	assertEquals(1, failed);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#makeSchedule(String, Schedule.FileEncoding, ScheduleCache)}.
+     */
+    @Test
+    public void testCachedEventsRecorded() throws IOException {
+	File input = File.createTempFile("conference", ".txt");
+	input.deleteOnExit();
+	new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 5).writeFile(input.getPath(), 80);
+	File directory = File.createTempFile("cache", "");
+	directory.delete();
+	ScheduleCache cache = new ScheduleCache(directory, Config.CACHE_MAX_BYTES);
+	try {
+	    for (int run = 0; run < 2; run++) {
+		File output = File.createTempFile("events", ".jfr");
+		output.deleteOnExit();
+		Recording recording = new Recording();
+		recording.enable(ScheduleEvents.ParseSessions.class);
+		recording.enable(ScheduleEvents.ApplyStrategy.class);
+		recording.enable(ScheduleEvents.MakeSchedule.class);
+		recording.start();
+		Schedule schedule = new Schedule();
+		schedule.setBlocks(Config.BLOCKS);
+		schedule.makeSchedule(input.getPath(), Schedule.FileEncoding.UTF8, cache);
+		recording.stop();
+		recording.dump(output.toPath());
+		recording.close();
+
+		HashMap<String, Integer> counts = new HashMap<String, Integer>();
+		for (RecordedEvent e : RecordingFile.readAllEvents(output.toPath())) {
+		    String name = e.getEventType().getName();
+		    if (!name.startsWith("com.doughalperin.scheduler."))
+			continue;
+		    Integer c = counts.get(name);
+		    counts.put(name, c == null ? 1 : c + 1);
+		    assertEquals(name, 80, e.getInt("sessionCount"));
+		    assertTrue(name, e.getBoolean("succeeded"));
+		}
+		//the Sessions are read from the file and then from the cache; the strategy runs only on the miss
+		assertEquals(Integer.valueOf(1), counts.get("com.doughalperin.scheduler.ParseSessions"));
+		assertEquals(run == 0 ? Integer.valueOf(1) : null, counts.get("com.doughalperin.scheduler.ApplyStrategy"));
+		assertEquals(Integer.valueOf(1), counts.get("com.doughalperin.scheduler.MakeSchedule"));
+	    }
+	} finally {
+	    File[] files = directory.listFiles();
+	    if (files != null)
+		for (File f : files)
+		    f.delete();
+	    directory.delete();
+	}
+    }
+
+}
@@ -0,0 +1,213 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads a schedule written by {@link ScheduleFileWriter}.  Each table of the file is memory-mapped and rows are read in
+ * place, so finding a Track or Session costs the same however large the schedule, and only the pages touched are
+ * loaded.
+ * <p>
+ * Each table must be under 2GB, about 89 million Sessions.  Instances are safe to share between threads.
+ * </p>
+ *
+ * @see ScheduleFileWriter
+ */
+public class ScheduleFileReader implements Closeable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final RandomAccessFile file;
+    private final int trackCount;
+    private final int blockCount;
+    private final int sessionCount;
+    private final int nameCount;
+    private final ByteBuffer tracks;
+    private final ByteBuffer blocks;
+    private final ByteBuffer sessions;
+    private final ByteBuffer nameIndex;
+    private final ByteBuffer nameData;
+
+    /**
+     * Opens and maps a schedule file
+     *
+     * @param path complete path of the file to read
+     * @throws IllegalArgumentException if the file is not a schedule file of a supported version
+     * @throws IOException when errors occur in reading the file
+     */
+    public ScheduleFileReader(String path) throws IllegalArgumentException, IOException {
+	file = new RandomAccessFile(path, "r");
+	boolean opened = false;
+	try {
+	    FileChannel channel = file.getChannel();
+	    long size = channel.size();
+	    if (size < ScheduleFileWriter.HEADER_BYTES)
+		throw new IllegalArgumentException(path + " is not a schedule file.");
+	    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ScheduleFileWriter.HEADER_BYTES);
+	    if (header.getInt() != ScheduleFileWriter.MAGIC)
+		throw new IllegalArgumentException(path + " is not a schedule file.");
+	    int version = header.getInt();
+	    if (version != ScheduleFileWriter.VERSION)
+		throw new IllegalArgumentException(path + " has unsupported version " + version);
+	    trackCount = header.getInt();
+	    blockCount = header.getInt();
+	    sessionCount = header.getInt();
+	    nameCount = header.getInt();
+	    long trackTable = header.getLong();
+	    long blockTable = header.getLong();
+	    long sessionTable = header.getLong();
+	    long nameIndexTable = header.getLong();
+	    long nameDataTable = header.getLong();
+
+	    tracks = map(channel, trackTable, (long)ScheduleFileWriter.TRACK_BYTES * trackCount, size, path);
+	    blocks = map(channel, blockTable, (long)ScheduleFileWriter.BLOCK_BYTES * blockCount, size, path);
+	    sessions = map(channel, sessionTable, (long)ScheduleFileWriter.SESSION_BYTES * sessionCount, size, path);
+	    nameIndex = map(channel, nameIndexTable, 8L * (nameCount + 1), size, path);
+	    nameData = map(channel, nameDataTable, nameIndex.getLong(8 * nameCount), size, path);
+	    opened = true;
+	} finally {
+	    if (!opened)
+		file.close();
+	}
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length, long size, String path)
+	    throws IllegalArgumentException, IOException {
+	if (position < 0 || length < 0 || position + length > size)
+	    throw new IllegalArgumentException(path + " is truncated or corrupt.");
+	if (length > Integer.MAX_VALUE)
+	    throw new IllegalArgumentException(path + " has a table too large to map.");
+	return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    /**
+     * Releases the file; the mapped tables stay readable until collected
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+	file.close();
+    }
+
+    /**
+     * @return the number of Tracks
+     */
+    public int getTrackCount() {
+	return trackCount;
+    }
+
+    /**
+     * @return the number of Blocks across all Tracks
+     */
+    public int getBlockCount() {
+	return blockCount;
+    }
+
+    /**
+     * @return the number of Sessions across all Tracks, including block level Sessions
+     */
+    public int getSessionCount() {
+	return sessionCount;
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the Track label
+     */
+    public String getTrackLabel(int track) {
+	return name(tracks.getInt(trackRow(track)));
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the Sessions of the Track in time order
+     */
+    public ScheduledSession[] getTrack(int track) {
+	int row = trackRow(track);
+	int first = tracks.getInt(row + 12);
+	ScheduledSession[] result = new ScheduledSession[tracks.getInt(row + 16)];
+	for (int k = 0; k < result.length; k++)
+	    result[k] = getSession(first + k);
+	return result;
+    }
+
+    /**
+     * @param block Block number across all Tracks, from 0
+     * @return the Block name
+     */
+    public String getBlockName(int block) {
+	return name(blocks.getInt(blockRow(block)));
+    }
+
+    /**
+     * @param block Block number across all Tracks, from 0
+     * @return the offset in minutes from time zero of the beginning of the Block
+     */
+    public int getBlockStartOffset(int block) {
+	return blocks.getInt(blockRow(block) + 4);
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the number of the first Block of the Track
+     */
+    public int getFirstBlock(int track) {
+	return tracks.getInt(trackRow(track) + 4);
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the number of Blocks in the Track
+     */
+    public int getTrackBlockCount(int track) {
+	return tracks.getInt(trackRow(track) + 8);
+    }
+
+    /**
+     * @param id Session number across all Tracks, from 0
+     * @return the Session
+     */
+    public ScheduledSession getSession(int id) {
+	if (id < 0 || id >= sessionCount)
+	    throw new IndexOutOfBoundsException("Session " + id + " of " + sessionCount);
+	int row = id * ScheduleFileWriter.SESSION_BYTES;
+	return new ScheduledSession(id, name(sessions.getInt(row)), sessions.getInt(row + 4),
+		sessions.getInt(row + 8), sessions.getInt(row + 12), getBlockName(sessions.getInt(row + 16)),
+		(sessions.getInt(row + 20) & ScheduleFileWriter.FLAG_BLOCK_LEVEL) != 0);
+    }
+
+    private int trackRow(int track) {
+	if (track < 0 || track >= trackCount)
+	    throw new IndexOutOfBoundsException("Track " + track + " of " + trackCount);
+	return track * ScheduleFileWriter.TRACK_BYTES;
+    }
+
+    private int blockRow(int block) {
+	if (block < 0 || block >= blockCount)
+	    throw new IndexOutOfBoundsException("Block " + block + " of " + blockCount);
+	return block * ScheduleFileWriter.BLOCK_BYTES;
+    }
+
+    private String name(int id) {
+	if (id < 0 || id >= nameCount)
+	    throw new IllegalArgumentException("Corrupt name reference " + id);
+	int start = (int)nameIndex.getLong(8 * id);
+	int end = (int)nameIndex.getLong(8 * (id + 1));
+	if (start < 0 || end < start || end > nameData.capacity())
+	    throw new IllegalArgumentException("Corrupt name " + id);
+	byte[] bytes = new byte[end - start];
+	//absolute reads keep the shared buffer's position untouched
+	for (int i = 0; i < bytes.length; i++)
+	    bytes[i] = nameData.get(start + i);
+	return new String(bytes, UTF8);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+/**
+ * Tests the ScheduleFileWriter and ScheduleFileReader classes
+ *
+ * @see ScheduleFileWriter
+ * @see ScheduleFileReader
+ */
+public class ScheduleFileTest {
+
+    private static Track[] makeTracks(int count) {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 7).nextSessions(count))
+	    schedule.addSession(s);
+	schedule.addSession(new Session("Caf\u00e9 Chat", 30));
+	schedule.makeSchedule();
+	return schedule.getTracks();
+    }
+
+    private static File write(Track[] tracks) throws IOException {
+	File f = File.createTempFile("schedule", ".bin");
+	f.deleteOnExit();
+	new ScheduleFileWriter().writeFile(tracks, f.getPath());
+	return f;
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleFileReader#getTrack(int)}.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+	Track[] tracks = makeTracks(300);
+	ScheduleFileReader reader = new ScheduleFileReader(write(tracks).getPath());
+	try {
+	    assertEquals(tracks.length, reader.getTrackCount());
+	    int id = 0;
+	    int block = 0;
+	    for (int t = 0; t < tracks.length; t++) {
+		assertEquals(tracks[t].getLabel(), reader.getTrackLabel(t));
+		assertEquals(block, reader.getFirstBlock(t));
+		assertEquals(tracks[t].getScheduleBlocks().length, reader.getTrackBlockCount(t));
+		ScheduledSession[] read = reader.getTrack(t);
+		int k = 0;
+		for (ScheduleBlock sb : tracks[t].getScheduleBlocks()) {
+		    assertEquals(sb.getBlockName(), reader.getBlockName(block));
+		    assertEquals(sb.getStartMinuteOffset(), reader.getBlockStartOffset(block));
+		    for (Session s : sb.getSessions()) {
+			ScheduledSession r = read[k++];
+			assertEquals(id++, r.getId());
+			assertEquals(s.getName(), r.getName());
+			assertEquals(s.getMinutes(), r.getMinutes());
+			assertEquals(s.getStartOffset(), r.getStartOffset());
+			assertEquals(s.isBlockLevelSession(), r.isBlockLevelSession());
+			assertEquals(t, r.getTrack());
+			assertEquals(sb.getBlockName(), r.getBlockName());
+			assertEquals(s.toString(), r.toString());
+		    }
+		    block++;
+		}
+		assertEquals(k, read.length);
+	    }
+	    assertEquals(id, reader.getSessionCount());
+	    assertEquals(block, reader.getBlockCount());
+	    assertEquals(reader.getTrack(tracks.length - 1)[0].getName(),
+		    reader.getSession(reader.getSessionCount() - reader.getTrack(tracks.length - 1).length).getName());
+	} finally {
+	    reader.close();
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleFileReader#getSession(int)}.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSessionOutOfRange() throws IOException {
+	ScheduleFileReader reader = new ScheduleFileReader(write(makeTracks(20)).getPath());
+	try {
+	    reader.getSession(reader.getSessionCount());
+	} finally {
+	    reader.close();
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleFileReader#ScheduleFileReader(String)}.
+     */
+    @Test
+    public void testInvalidFile() throws IOException {
+	File f = File.createTempFile("schedule", ".bin");
+	f.deleteOnExit();
+	FileOutputStream out = new FileOutputStream(f);
+	out.write(new byte[ScheduleFileWriter.HEADER_BYTES]);
+	out.close();
+	try {
+	    new ScheduleFileReader(f.getPath());
+	    fail("not a schedule file");
+	} catch (IllegalArgumentException e) {
+	    assertTrue(e.getMessage(), e.getMessage().endsWith("is not a schedule file."));
+	}
+
+	File truncated = write(makeTracks(20));
+	RandomAccessFile raf = new RandomAccessFile(truncated, "rw");
+	raf.setLength(raf.length() - 1);
+	raf.close();
+	try {
+	    new ScheduleFileReader(truncated.getPath());
+	    fail("truncated schedule file");
+	} catch (IllegalArgumentException e) {
+	    assertTrue(e.getMessage(), e.getMessage().endsWith("is truncated or corrupt."));
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleFileWriter#write(Track[], java.io.OutputStream)}.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testUnscheduled() throws IOException {
+	Track track = new Track(Config.BLOCKS);
+	track.getWorkingBlocks()[0].place(new Session("Unscheduled", 30));
+	new ScheduleFileWriter().write(new Track[] {track}, new ByteArrayOutputStream());
+    }
+
+}
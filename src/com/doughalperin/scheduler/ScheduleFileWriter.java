@@ -0,0 +1,170 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Writes scheduled Tracks in a compact binary format that {@link ScheduleFileReader} can read a Track or Session at a
+ * time without loading the rest.
+ * <p>
+ * The file is big-endian, made of a header and fixed-size tables, so any row is found from its number:
+ * <ul>
+ * <li>header - magic, version, the counts of Tracks, Blocks, Sessions and names, and the file offset of each table</li>
+ * <li>tracks - per Track: label name, first Block, Block count, first Session and Session count</li>
+ * <li>blocks - per Block of each Track: name, start offset, first Session and Session count</li>
+ * <li>sessions - per Session in time order within each Track: name, minutes, start offset, Track, Block and flags</li>
+ * <li>name index - the offset of each name in the name data, and the end of the data</li>
+ * <li>name data - each distinct name once, in UTF-8</li>
+ * </ul>
+ * Sessions are numbered from 0 in the order written and Blocks likewise, across all Tracks.  Blocks not available for
+ * scheduling, such as lunch, appear as a single Session flagged as block level.
+ * </p>
+ *
+ * @see ScheduleFileReader
+ */
+public class ScheduleFileWriter {
+
+    static final int MAGIC = 0x53434842;
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 4 * 6 + 8 * 5;
+    static final int TRACK_BYTES = 4 * 5;
+    static final int BLOCK_BYTES = 4 * 4;
+    static final int SESSION_BYTES = 4 * 6;
+
+    static final int FLAG_BLOCK_LEVEL = 1;
+
+    /**
+     * Writes the Tracks to a file
+     *
+     * @param tracks Tracks whose Sessions have start offsets
+     * @param file complete path of the file to write
+     * @throws IllegalStateException if a Session has not been scheduled
+     * @throws IOException when errors occur in writing
+     */
+    public void writeFile(Track[] tracks, String file) throws IllegalStateException, IOException {
+	OutputStream out = new FileOutputStream(file);
+	try {
+	    write(tracks, out);
+	} finally {
+	    out.close();
+	}
+    }
+
+    /**
+     * Writes the Tracks; the stream is flushed but not closed
+     *
+     * @param tracks Tracks whose Sessions have start offsets
+     * @param stream where the bytes go
+     * @throws IllegalStateException if a Session has not been scheduled
+     * @throws IOException when errors occur in writing
+     */
+    public void write(Track[] tracks, OutputStream stream) throws IllegalStateException, IOException {
+	//string pool, and the size of each table
+	ArrayList<byte[]> names = new ArrayList<byte[]>();
+	HashMap<String, Integer> nameIds = new HashMap<String, Integer>();
+	Charset utf8 = Charset.forName("UTF-8");
+	long blockCount = 0;
+	long sessionCount = 0;
+	for (Track t : tracks) {
+	    nameId(t.getLabel(), names, nameIds, utf8);
+	    for (ScheduleBlock sb : t.getScheduleBlocks()) {
+		nameId(sb.getBlockName(), names, nameIds, utf8);
+		for (Session s : sb.getSessions())
+		    nameId(s.getName(), names, nameIds, utf8);
+		sessionCount += sb.getSessions().size();
+	    }
+	    blockCount += t.getScheduleBlocks().length;
+	}
+	if (blockCount > Integer.MAX_VALUE || sessionCount > Integer.MAX_VALUE)
+	    throw new IllegalArgumentException("Too many Blocks or Sessions to write: " + sessionCount);
+
+	long trackTable = HEADER_BYTES;
+	long blockTable = trackTable + (long)TRACK_BYTES * tracks.length;
+	long sessionTable = blockTable + BLOCK_BYTES * blockCount;
+	long nameIndex = sessionTable + SESSION_BYTES * sessionCount;
+	long nameData = nameIndex + 8L * (names.size() + 1);
+
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+	out.writeInt(MAGIC);
+	out.writeInt(VERSION);
+	out.writeInt(tracks.length);
+	out.writeInt((int)blockCount);
+	out.writeInt((int)sessionCount);
+	out.writeInt(names.size());
+	out.writeLong(trackTable);
+	out.writeLong(blockTable);
+	out.writeLong(sessionTable);
+	out.writeLong(nameIndex);
+	out.writeLong(nameData);
+
+	int block = 0;
+	int session = 0;
+	for (Track t : tracks) {
+	    int sessions = 0;
+	    for (ScheduleBlock sb : t.getScheduleBlocks())
+		sessions += sb.getSessions().size();
+	    out.writeInt(nameIds.get(t.getLabel()));
+	    out.writeInt(block);
+	    out.writeInt(t.getScheduleBlocks().length);
+	    out.writeInt(session);
+	    out.writeInt(sessions);
+	    block += t.getScheduleBlocks().length;
+	    session += sessions;
+	}
+
+	session = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock sb : t.getScheduleBlocks()) {
+		out.writeInt(nameIds.get(sb.getBlockName()));
+		out.writeInt(sb.getStartMinuteOffset());
+		out.writeInt(session);
+		out.writeInt(sb.getSessions().size());
+		session += sb.getSessions().size();
+	    }
+
+	block = 0;
+	for (int track = 0; track < tracks.length; track++)
+	    for (ScheduleBlock sb : tracks[track].getScheduleBlocks()) {
+		for (Session s : sb.getSessions()) {
+		    out.writeInt(nameIds.get(s.getName()));
+		    out.writeInt(s.getMinutes());
+		    out.writeInt(s.getStartOffset());
+		    out.writeInt(track);
+		    out.writeInt(block);
+		    out.writeInt(s.isBlockLevelSession() ? FLAG_BLOCK_LEVEL : 0);
+		}
+		block++;
+	    }
+
+	long offset = 0;
+	for (byte[] name : names) {
+	    out.writeLong(offset);
+	    offset += name.length;
+	}
+	out.writeLong(offset);
+	for (byte[] name : names)
+	    out.write(name);
+	out.flush();
+    }
+
+    private static int nameId(String name, ArrayList<byte[]> names, HashMap<String, Integer> nameIds, Charset utf8) {
+	Integer id = nameIds.get(name);
+	if (id == null) {
+	    id = names.size();
+	    names.add(name.getBytes(utf8));
+	    nameIds.put(name, id);
+	}
+	return id;
+    }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An immutable index over a finished schedule for answering time queries without scanning every Block.
+ * <p>
+ * Sessions are copied as {@link ScheduledSession}s, numbered from 0 in Track and time order, each running over the half
+ * open interval from its start offset to its start offset plus its minutes.
+ * <ul>
+ * <li>{@link #getRunningAt(int)} uses a centered interval tree: O(log n + k) for k Sessions found</li>
+ * <li>{@link #getStartingBetween(int, int)} uses a binary search over the start offsets: O(log n + k)</li>
+ * <li>{@link #find(String)} uses a hash of the names</li>
+ * </ul>
+ * Later edits to the Schedule are not seen; build a new index once the Schedule changes.  Instances are safe to share
+ * between threads.
+ * </p>
+ *
+ * @see Schedule#makeSchedule()
+ */
+public class ScheduleIndex {
+
+    private final ScheduledSession[] sessions;
+
+    //session ids ordered by start offset, and those start offsets
+    private final int[] byStart;
+    private final int[] starts;
+
+    private final Node root;
+    private final HashMap<String, List<ScheduledSession>> byName;
+
+    /**
+     * A node of the interval tree: the Sessions running at its center, with those starting before the center to the
+     * left and those starting after it to the right
+     */
+    private static class Node {
+	int center;
+	//running at the center, by start ascending and by end descending
+	int[] byStart;
+	int[] byEnd;
+	Node left;
+	Node right;
+    }
+
+    /**
+     * Indexes the Sessions of scheduled Tracks, including block level Sessions such as lunch
+     *
+     * @param tracks Tracks whose Sessions have start offsets
+     * @throws IllegalStateException if a Session has not been scheduled
+     */
+    public ScheduleIndex(Track[] tracks) throws IllegalStateException {
+	ArrayList<ScheduledSession> all = new ArrayList<ScheduledSession>();
+	for (int t = 0; t < tracks.length; t++)
+	    for (ScheduleBlock sb : tracks[t].getScheduleBlocks())
+		for (Session s : sb.getSessions())
+		    all.add(new ScheduledSession(all.size(), s.getName(), s.getMinutes(), s.getStartOffset(), t,
+			    sb.getBlockName(), s.isBlockLevelSession()));
+	sessions = all.toArray(new ScheduledSession[all.size()]);
+
+	//start offsets are not negative, so (start, id) sorts as one long
+	long[] keys = new long[sessions.length];
+	for (int i = 0; i < sessions.length; i++)
+	    keys[i] = ((long)sessions[i].getStartOffset() << 32) | i;
+	Arrays.sort(keys);
+	byStart = new int[sessions.length];
+	starts = new int[sessions.length];
+	for (int k = 0; k < keys.length; k++) {
+	    byStart[k] = (int)keys[k];
+	    starts[k] = (int)(keys[k] >>> 32);
+	}
+	root = build(byStart);
+
+	byName = new HashMap<String, List<ScheduledSession>>();
+	for (ScheduledSession s : sessions) {
+	    List<ScheduledSession> named = byName.get(s.getName());
+	    if (named == null) {
+		named = new ArrayList<ScheduledSession>(1);
+		byName.put(s.getName(), named);
+	    }
+	    named.add(s);
+	}
+	for (String name : byName.keySet())
+	    byName.put(name, Collections.unmodifiableList(byName.get(name)));
+    }
+
+    private static int end(ScheduledSession s) {
+	return s.getStartOffset() + s.getMinutes();
+    }
+
+    /**
+     * Builds the subtree of Sessions given in start order.  The center is the median start, which is within the
+     * Session starting there, so each side holds at most half the Sessions.
+     */
+    private Node build(int[] ids) {
+	if (ids.length == 0)
+	    return null;
+	Node node = new Node();
+	node.center = sessions[ids[ids.length / 2]].getStartOffset();
+	int[] left = new int[ids.length];
+	int[] right = new int[ids.length];
+	int[] here = new int[ids.length];
+	int l = 0, r = 0, h = 0;
+	for (int id : ids) {
+	    ScheduledSession s = sessions[id];
+	    if (end(s) <= node.center)
+		left[l++] = id;
+	    else if (s.getStartOffset() > node.center)
+		right[r++] = id;
+	    else
+		here[h++] = id;
+	}
+	node.byStart = Arrays.copyOf(here, h);
+	long[] keys = new long[h];
+	for (int k = 0; k < h; k++)
+	    keys[k] = ((long)end(sessions[here[k]]) << 32) | here[k];
+	Arrays.sort(keys);
+	node.byEnd = new int[h];
+	for (int k = 0; k < h; k++)
+	    node.byEnd[k] = (int)keys[h - 1 - k];
+	node.left = build(Arrays.copyOf(left, l));
+	node.right = build(Arrays.copyOf(right, r));
+	return node;
+    }
+
+    /**
+     * @return the number of Sessions indexed
+     */
+    public int getSessionCount() {
+	return sessions.length;
+    }
+
+    /**
+     * @param id Session number, from 0 in Track and time order
+     * @return the Session
+     */
+    public ScheduledSession getSession(int id) {
+	return sessions[id];
+    }
+
+    /**
+     * Finds what is running at a time across all Tracks.  A Session runs from its start up to but not including its end,
+     * so a Session ending at the time is not included and one starting at it is.
+     *
+     * @param minuteOffset minutes from time zero
+     * @return the Sessions running, in Track order
+     */
+    public List<ScheduledSession> getRunningAt(int minuteOffset) {
+	ArrayList<Integer> found = new ArrayList<Integer>();
+	Node node = root;
+	while (node != null) {
+	    if (minuteOffset < node.center) {
+		for (int k = 0; k < node.byStart.length && sessions[node.byStart[k]].getStartOffset() <= minuteOffset; k++)
+		    found.add(node.byStart[k]);
+		node = node.left;
+	    } else if (minuteOffset > node.center) {
+		for (int k = 0; k < node.byEnd.length && end(sessions[node.byEnd[k]]) > minuteOffset; k++)
+		    found.add(node.byEnd[k]);
+		node = node.right;
+	    } else {
+		for (int id : node.byStart)
+		    found.add(id);
+		break;
+	    }
+	}
+	//ids are in Track order
+	Collections.sort(found);
+	ArrayList<ScheduledSession> result = new ArrayList<ScheduledSession>(found.size());
+	for (int id : found)
+	    result.add(sessions[id]);
+	return result;
+    }
+
+    /**
+     * Finds the Sessions starting in a range of times
+     *
+     * @param from minutes from time zero, inclusive
+     * @param to minutes from time zero, exclusive
+     * @return the Sessions in order of start, then Track
+     */
+    public List<ScheduledSession> getStartingBetween(int from, int to) {
+	ArrayList<ScheduledSession> result = new ArrayList<ScheduledSession>();
+	for (int k = lowerBound(from); k < starts.length && starts[k] < to; k++)
+	    result.add(sessions[byStart[k]]);
+	return result;
+    }
+
+    /**
+     * @return the first position in start order whose start is at least the time
+     */
+    private int lowerBound(int minuteOffset) {
+	int low = 0;
+	int high = starts.length;
+	while (low < high) {
+	    int mid = (low + high) >>> 1;
+	    if (starts[mid] < minuteOffset)
+		low = mid + 1;
+	    else
+		high = mid;
+	}
+	return low;
+    }
+
+    /**
+     * Finds where and when a Session runs
+     *
+     * @param name the Session name
+     * @return every Session of the name in Track and time order; empty if none
+     */
+    public List<ScheduledSession> find(String name) {
+	List<ScheduledSession> named = byName.get(name == null ? null : name.trim());
+	if (named == null)
+	    return Collections.emptyList();
+	return named;
+    }
+
+}
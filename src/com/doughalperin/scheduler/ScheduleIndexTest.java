@@ -0,0 +1,111 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the ScheduleIndex class against scans of every Session
+ *
+ * @see ScheduleIndex
+ */
+public class ScheduleIndexTest {
+
+    private static Track[] makeTracks(ConferenceGenerator.Distribution distribution, int count) {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : new ConferenceGenerator(distribution, 11).nextSessions(count))
+	    schedule.addSession(s);
+	schedule.makeSchedule();
+	return schedule.getTracks();
+    }
+
+    private static String ids(List<ScheduledSession> sessions) {
+	StringBuilder sb = new StringBuilder();
+	for (ScheduledSession s : sessions)
+	    sb.append(s.getId()).append(',');
+	return sb.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleIndex#getRunningAt(int)}.
+     */
+    @Test
+    public void testRunningAt() {
+	for (ConferenceGenerator.Distribution d : ConferenceGenerator.Distribution.values()) {
+	    ScheduleIndex index = new ScheduleIndex(makeTracks(d, 400));
+	    for (int t = 8 * 60; t <= 22 * 60; t++) {
+		ArrayList<ScheduledSession> expected = new ArrayList<ScheduledSession>();
+		for (int id = 0; id < index.getSessionCount(); id++) {
+		    ScheduledSession s = index.getSession(id);
+		    if (s.getStartOffset() <= t && t < s.getStartOffset() + s.getMinutes())
+			expected.add(s);
+		}
+		assertEquals(d + " at " + t, ids(expected), ids(index.getRunningAt(t)));
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleIndex#getStartingBetween(int, int)}.
+     */
+    @Test
+    public void testStartingBetween() {
+	ScheduleIndex index = new ScheduleIndex(makeTracks(ConferenceGenerator.Distribution.LONG_TAIL, 300));
+	for (int from = 8 * 60; from <= 18 * 60; from += 7)
+	    for (int to = from; to <= from + 90; to += 13) {
+		List<ScheduledSession> found = index.getStartingBetween(from, to);
+		int count = 0;
+		for (int id = 0; id < index.getSessionCount(); id++) {
+		    int start = index.getSession(id).getStartOffset();
+		    if (from <= start && start < to)
+			count++;
+		}
+		assertEquals(count, found.size());
+		for (int k = 1; k < found.size(); k++) {
+		    ScheduledSession a = found.get(k - 1);
+		    ScheduledSession b = found.get(k);
+		    assertTrue(a.getStartOffset() < b.getStartOffset()
+			    || a.getStartOffset() == b.getStartOffset() && a.getTrack() < b.getTrack());
+		}
+	    }
+	assertTrue(index.getStartingBetween(10 * 60, 9 * 60).isEmpty());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleIndex#find(String)}.
+     */
+    @Test
+    public void testFind() {
+	Track[] tracks = makeTracks(ConferenceGenerator.Distribution.UNIFORM, 100);
+	ScheduleIndex index = new ScheduleIndex(tracks);
+	for (int t = 0; t < tracks.length; t++)
+	    for (ScheduleBlock sb : tracks[t].getWorkingBlocks())
+		for (Session s : sb.getSessions()) {
+		    List<ScheduledSession> found = index.find(s.getName());
+		    assertEquals(1, found.size());
+		    assertEquals(t, found.get(0).getTrack());
+		    assertEquals(s.getStartOffset(), found.get(0).getStartOffset());
+		    assertEquals(sb.getBlockName(), found.get(0).getBlockName());
+		}
+	assertEquals(tracks.length, index.find("Lunch").size());
+	assertTrue(index.find("No Such Talk").isEmpty());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleIndex#ScheduleIndex(Track[])}.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testUnscheduled() {
+	Track track = new Track(Config.BLOCKS);
+	track.getWorkingBlocks()[0].place(new Session("Unscheduled", 30));
+	new ScheduleIndex(new Track[] {track});
+    }
+
+}
@@ -0,0 +1,219 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes scheduled Tracks as text: each Track label, then one line per Session giving its start time, name and length,
+ * then a blank line.  The text is the same as printing each Session's {@link TimeOffset} and details line by line.
+ * <p>
+ * Time labels for every minute of the day are built once, and the text is assembled in a reusable character buffer that
+ * is passed to the Writer as it fills, so no Strings are built per line.
+ * </p>
+ * <p>
+ * Note this is not thread-safe.
+ * </p>
+ *
+ * @see TimeOffset#toString()
+ */
+public class ScheduleRenderer {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    //"hh:mmAM" for each minute of the day
+    private static final char[][] TIME_LABELS = new char[MINUTES_PER_DAY][];
+    static {
+	for (int m = 0; m < MINUTES_PER_DAY; m++) {
+	    int hour = m / 60;
+	    int minute = m % 60;
+	    int shown = hour >= 12 ? hour - (hour == 12 ? 0 : 12) : hour;
+	    TIME_LABELS[m] = new char[] {
+		    (char)('0' + shown / 10), (char)('0' + shown % 10), ':',
+		    (char)('0' + minute / 10), (char)('0' + minute % 10),
+		    hour >= 12 ? 'P' : 'A', 'M'};
+	}
+    }
+
+    private final boolean includeDay;
+    private final char[] lineSeparator;
+    private final char[] buffer;
+    private int length;
+
+    /**
+     * Instantiates a renderer that includes the day number as configured
+     *
+     * @see Config#INCLUDE_DAYNUMBER
+     */
+    public ScheduleRenderer() {
+	this(Config.INCLUDE_DAYNUMBER);
+    }
+
+    /**
+     * @param includeDay whether each time is preceded by its day number
+     */
+    public ScheduleRenderer(boolean includeDay) {
+	this.includeDay = includeDay;
+	lineSeparator = System.lineSeparator().toCharArray();
+	buffer = new char[8192];
+    }
+
+    /**
+     * Writes the Tracks and flushes the Writer
+     *
+     * @param tracks Tracks whose Sessions have start offsets
+     * @param out where the text goes
+     * @throws IOException when errors occur in writing
+     */
+    public void render(Track[] tracks, Writer out) throws IOException {
+	length = 0;
+	for (Track track : tracks) {
+	    append(track.getLabel(), out);
+	    newLine(out);
+	    for (ScheduleBlock sb : track.getScheduleBlocks())
+		for (Session s : sb.getSessions())
+		    appendSession(s.getStartOffset(), s.getName(), s.getMinutes(), s.isBlockLevelSession(), out);
+	    newLine(out);
+	}
+	out.write(buffer, 0, length);
+	length = 0;
+	out.flush();
+    }
+
+    /**
+     * Writes a schedule snapshot as its Tracks would be written, and flushes the Writer
+     *
+     * @param schedule the schedule
+     * @param out where the text goes
+     * @throws IOException when errors occur in writing
+     */
+    public void render(ScheduleSnapshot schedule, Writer out) throws IOException {
+	length = 0;
+	for (int t = 0; t < schedule.getTrackCount(); t++) {
+	    append(schedule.getTrackLabel(t), out);
+	    newLine(out);
+	    for (ScheduledSession s : schedule.getTrack(t))
+		appendSession(s.getStartOffset(), s.getName(), s.getMinutes(), s.isBlockLevelSession(), out);
+	    newLine(out);
+	}
+	out.write(buffer, 0, length);
+	length = 0;
+	out.flush();
+    }
+
+    /**
+     * Writes the Tracks of a store as they would be written as Track objects, and flushes the Writer
+     *
+     * @param store Tracks whose schedule has been set
+     * @param out where the text goes
+     * @throws IOException when errors occur in writing
+     * @throws IllegalStateException if the schedule of the store has not been set
+     */
+    public void render(TrackStore store, Writer out) throws IOException, IllegalStateException {
+	length = 0;
+	BlockFormat[] blocks = store.getTemplate().getBlocks();
+	SessionTable table = store.getTable();
+	int workingCount = store.getTemplate().getWorkingCount();
+	for (int t = 0; t < store.getTrackCount(); t++) {
+	    append(Config.TRACK_LABEL_PREFIX, out);
+	    appendInt(t + 1, out);
+	    newLine(out);
+	    for (int i = 0, w = 0; i < blocks.length; i++) {
+		if (!blocks[i].isAvailableForScheduling()) {
+		    appendSession(store.getBlockStartOffset(i), blocks[i].getName(), blocks[i].getMinDuration(), true, out);
+		    continue;
+		}
+		for (int s = store.getFirstSession(t * workingCount + w); s != TrackStore.NONE; s = store.getNextSession(s))
+		    appendSession(table.getStartOffset(s), table.getName(s), table.getMinutes(s), false, out);
+		w++;
+	    }
+	    newLine(out);
+	}
+	out.write(buffer, 0, length);
+	length = 0;
+	out.flush();
+    }
+
+    private void appendSession(int startOffset, String name, int minutes, boolean blockLevel, Writer out)
+	    throws IOException {
+	appendTime(startOffset, out);
+	append(' ', out);
+	append(name, out);
+	if (!blockLevel) {
+	    append(" [", out);
+	    appendInt(minutes, out);
+	    append("min]", out);
+	}
+	newLine(out);
+    }
+
+    private void appendTime(int offset, Writer out) throws IOException {
+	if (includeDay) {
+	    appendInt(offset / MINUTES_PER_DAY, out);
+	    append(' ', out);
+	}
+	char[] label = TIME_LABELS[offset % MINUTES_PER_DAY];
+	reserve(label.length, out);
+	System.arraycopy(label, 0, buffer, length, label.length);
+	length += label.length;
+    }
+
+    private void appendInt(int value, Writer out) throws IOException {
+	if (value < 0) {
+	    append('-', out);
+	    if (value == Integer.MIN_VALUE) {
+		append("2147483648", out);
+		return;
+	    }
+	    value = -value;
+	}
+	int digits = 1;
+	for (int v = value; v >= 10; v /= 10)
+	    digits++;
+	reserve(digits, out);
+	for (int i = length + digits - 1; i >= length; i--) {
+	    buffer[i] = (char)('0' + value % 10);
+	    value /= 10;
+	}
+	length += digits;
+    }
+
+    private void append(String s, Writer out) throws IOException {
+	int from = 0;
+	int n = s.length();
+	while (from < n) {
+	    if (length == buffer.length) {
+		out.write(buffer, 0, length);
+		length = 0;
+	    }
+	    int count = Math.min(n - from, buffer.length - length);
+	    s.getChars(from, from + count, buffer, length);
+	    length += count;
+	    from += count;
+	}
+    }
+
+    private void append(char c, Writer out) throws IOException {
+	reserve(1, out);
+	buffer[length++] = c;
+    }
+
+    private void newLine(Writer out) throws IOException {
+	reserve(lineSeparator.length, out);
+	System.arraycopy(lineSeparator, 0, buffer, length, lineSeparator.length);
+	length += lineSeparator.length;
+    }
+
+    /**
+     * Makes room for a short run of characters, writing out the buffer if need be
+     */
+    private void reserve(int count, Writer out) throws IOException {
+	if (length + count > buffer.length) {
+	    out.write(buffer, 0, length);
+	    length = 0;
+	}
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests ScheduleRenderer class against printing with TimeOffset
+ *
+ * @see ScheduleRenderer
+ */
+public class ScheduleRendererTest {
+
+    final int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 90, 200};
+
+    /**
+     * Prints the Tracks line by line as the Scheduler did before the renderer
+     */
+    private String print(Track[] tracks, boolean includeDay) {
+	String nl = System.lineSeparator();
+	StringBuilder sb = new StringBuilder();
+	for (Track track : tracks) {
+	    sb.append(track.getLabel()).append(nl);
+	    for (ScheduleBlock block : track.getScheduleBlocks())
+		for (Session s : block.getSessions()) {
+		    TimeOffset time = new TimeOffset(s.getStartOffset());
+		    time.setIncludeDay(includeDay);
+		    sb.append(time + " " + s.getName() 
+			    + (s.isBlockLevelSession() ? "" : " [" + s.getMinutes() + "min]")).append(nl);
+		}
+	    sb.append(nl);
+	}
+	return sb.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleRenderer#render(Track[], java.io.Writer)}.
+     */
+    @Test
+    public void testMatchesPrintedSchedule() throws IOException {
+	Random random = new Random(11);
+	for (int trial = 0; trial < 10; trial++) {
+	    Schedule schedule = new Schedule();
+	    schedule.setBlocks(Config.BLOCKS);
+	    for (int i = 0; i < trial * 50; i++)
+		schedule.addSession(new Session("Caf\u00e9 Talk " + (char)('a' + random.nextInt(26)), 
+			durations[random.nextInt(durations.length)]));
+	    schedule.makeSchedule();
+
+	    boolean[] includeDay = {false, true};
+	    for (boolean b : includeDay) {
+		StringWriter out = new StringWriter();
+		new ScheduleRenderer(b).render(schedule.getTracks(), out);
+		assertEquals("trial#" + trial, print(schedule.getTracks(), b), out.toString());
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleRenderer#render(Track[], java.io.Writer)}.
+     */
+    @Test
+    public void testEveryMinute() throws IOException {
+	BlockFormat[] blocks = {new BlockFormat("Sessions", new TimeOffset(0, 0, 0), true, true, 1, 1)};
+	Track[] tracks = new Track[3 * 24 * 60];
+	for (int m = 0; m < tracks.length; m++) {
+	    tracks[m] = new Track(blocks);
+	    Session s = new Session("Minute", 1);
+	    s.setStartOffset(m);
+	    tracks[m].getWorkingBlocks()[0].place(s);
+	}
+	boolean[] includeDay = {false, true};
+	for (boolean b : includeDay) {
+	    StringWriter out = new StringWriter();
+	    new ScheduleRenderer(b).render(tracks, out);
+	    assertEquals(print(tracks, b), out.toString());
+	}
+    }
+
+}
@@ -0,0 +1,452 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Schedules conferences over HTTP, so a warm JVM serves every request rather than each paying for startup.
+ * <p>
+ * <code>POST /schedule</code> takes Session lines as in an input file, in UTF-8, optionally preceded by lines
+ * describing the Blocks of each Track:
+ * <pre>
+ * &#64;block Morning Sessions, 09:00, true, true, 180, 180
+ * </pre>
+ * giving the name, start time, whether available for scheduling, whether a fixed start, and the minimum and maximum
+ * minutes.  Without them {@link Config#BLOCKS} are used.  Each distinct set of Block lines is parsed and checked once and
+ * then reused.  The response is the schedule as text, or with <code>?format=binary</code> in the format of
+ * {@link ScheduleFileWriter}.  Invalid input gets status 400 with the reason, and a request not scheduled within
+ * {@link Config#SERVER_REQUEST_TIMEOUT_MILLIS} gets 504.  Line numbers in errors count from the first Session line.
+ * </p>
+ * <p>
+ * <code>GET /metrics</code> gives request counts, a latency histogram and the counters of the strategy, one
+ * <i>name value</i> pair per line.
+ * </p>
+ * <p>
+ * Requests are handled on a virtual thread each when the JVM has them, and otherwise on a pool of
+ * {@link Config#SERVER_THREADS} threads.  Scheduling itself runs on one thread per processor, so a burst of requests
+ * queues rather than overloading the CPUs.
+ * </p>
+ *
+ * @see Scheduler#main(String[])
+ */
+public class ScheduleServer {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String BLOCK_PREFIX = "@block";
+
+    //upper bounds in milliseconds of the latency histogram buckets
+    private static final long[] LATENCY_BUCKETS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ExecutorService scheduleExecutor;
+    private final boolean virtualThreads;
+    private final SchedulingStrategy strategy;
+    private final long timeoutMillis;
+
+    //Block lines to the Blocks they describe, checked once
+    private final BlockTemplate defaultTemplate;
+    private final ConcurrentHashMap<String, BlockTemplate> templates;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder[] latencyBuckets;
+
+    /**
+     * Instantiates a server with the default strategy and timeout; it does not listen until started
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ScheduleServer(int port) throws IOException {
+	this(port, Config.DEFAULT_STRATEGY, Config.SERVER_REQUEST_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Instantiates a server; it does not listen until started
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param strategy the strategy used for every request; shared by concurrent requests
+     * @param timeoutMillis most milliseconds a request waits for its schedule
+     * @throws IllegalArgumentException if the strategy is null or the timeout is not positive
+     * @throws IOException if the port cannot be bound
+     */
+    public ScheduleServer(int port, SchedulingStrategy strategy, long timeoutMillis)
+	    throws IllegalArgumentException, IOException {
+	if (strategy == null)
+	    throw new IllegalArgumentException("Strategy must be specified.");
+	if (timeoutMillis <= 0)
+	    throw new IllegalArgumentException("Timeout must be greater than zero.");
+	this.strategy = strategy;
+	this.timeoutMillis = timeoutMillis;
+	defaultTemplate = new BlockTemplate(Config.BLOCKS);
+	templates = new ConcurrentHashMap<String, BlockTemplate>();
+	latencyBuckets = new LongAdder[LATENCY_BUCKETS_MILLIS.length + 1];
+	for (int i = 0; i < latencyBuckets.length; i++)
+	    latencyBuckets[i] = new LongAdder();
+
+	ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+	virtualThreads = virtual != null;
+	requestExecutor = virtualThreads ? virtual
+		: Executors.newFixedThreadPool(Config.SERVER_THREADS, new DaemonThreadFactory("schedule-request-"));
+	scheduleExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+		new DaemonThreadFactory("schedule-worker-"));
+
+	server = HttpServer.create(new InetSocketAddress(port), 0);
+	server.setExecutor(requestExecutor);
+	server.createContext("/schedule", new HttpHandler() {
+	    @Override
+	    public void handle(HttpExchange exchange) throws IOException {
+		handleSchedule(exchange);
+	    }
+	});
+	server.createContext("/metrics", new HttpHandler() {
+	    @Override
+	    public void handle(HttpExchange exchange) throws IOException {
+		handleMetrics(exchange);
+	    }
+	});
+    }
+
+    /**
+     * Looks up the virtual thread executor by reflection, so the server also runs on JVMs without virtual threads
+     *
+     * @return an executor starting a virtual thread per task, or null if there are no virtual threads
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+	try {
+	    Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+	    return (ExecutorService)factory.invoke(null);
+	} catch (Exception e) {
+	    //before Java 21, or a preview feature not enabled
+	    return null;
+	}
+    }
+
+    /**
+     * Starts listening, after a few runs of the strategy so the first requests are not served by cold code.  The runs
+     * stop after {@link Config#SERVER_WARMUP_RUNS} or {@link Config#SERVER_WARMUP_MILLIS}, whichever comes first, and are
+     * not counted in the metrics of the strategy.
+     */
+    public void start() {
+	final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Config.SERVER_WARMUP_MILLIS);
+	Future<?> warmup = scheduleExecutor.submit(new Runnable() {
+	    @Override
+	    public void run() {
+		ConferenceGenerator generator = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 1);
+		for (int i = 0; i < Config.SERVER_WARMUP_RUNS && System.nanoTime() < deadline; i++)
+		    //not apply, which would record the run
+		    strategy.schedule(Config.BLOCKS, generator.nextSessions(200), new StrategyMetrics.Run());
+	    }
+	});
+	try {
+	    warmup.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+	} catch (TimeoutException e) {
+	    //a run still going when time is up is stopped at its next step
+	    warmup.cancel(true);
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof Error)
+		throw (Error)e.getCause();
+	    //otherwise the server still starts, only colder, and requests report the failure
+	} catch (InterruptedException e) {
+	    warmup.cancel(true);
+	    Thread.currentThread().interrupt();
+	}
+	server.start();
+    }
+
+    /**
+     * Stops listening and releases the threads
+     *
+     * @param delaySeconds most seconds to wait for requests in progress
+     */
+    public void stop(int delaySeconds) {
+	server.stop(delaySeconds);
+	requestExecutor.shutdownNow();
+	scheduleExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the port listened on
+     */
+    public int getPort() {
+	return server.getAddress().getPort();
+    }
+
+    /**
+     * @return whether requests are handled on virtual threads
+     */
+    public boolean isVirtualThreads() {
+	return virtualThreads;
+    }
+
+    private void handleSchedule(HttpExchange exchange) throws IOException {
+	long start = System.nanoTime();
+	requests.increment();
+	inFlight.increment();
+	try {
+	    if (!"POST".equals(exchange.getRequestMethod())) {
+		rejected.increment();
+		exchange.getResponseHeaders().set("Allow", "POST");
+		respond(exchange, 405, "Use POST with Session lines.");
+		return;
+	    }
+	    final byte[] body = readBody(exchange.getRequestBody());
+	    if (body == null) {
+		rejected.increment();
+		respond(exchange, 413, "Request larger than " + Config.SERVER_MAX_REQUEST_BYTES + " bytes.");
+		return;
+	    }
+	    final boolean binary = "format=binary".equals(exchange.getRequestURI().getRawQuery());
+	    Future<byte[]> result = scheduleExecutor.submit(new Callable<byte[]>() {
+		@Override
+		public byte[] call() throws IOException {
+		    return schedule(body, binary);
+		}
+	    });
+	    byte[] response;
+	    try {
+		response = result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+	    } catch (TimeoutException e) {
+		//strategies check for the interrupt as they go, so the worker is free again soon
+		result.cancel(true);
+		timeouts.increment();
+		respond(exchange, 504, "Schedule not made within " + timeoutMillis + " milliseconds.");
+		return;
+	    } catch (InterruptedException e) {
+		result.cancel(true);
+		Thread.currentThread().interrupt();
+		errors.increment();
+		respond(exchange, 503, "Server stopping.");
+		return;
+	    } catch (ExecutionException e) {
+		if (e.getCause() instanceof IllegalArgumentException) {
+		    rejected.increment();
+		    respond(exchange, 400, e.getCause().getMessage());
+		} else {
+		    errors.increment();
+		    respond(exchange, 500, String.valueOf(e.getCause()));
+		}
+		return;
+	    }
+	    scheduled.increment();
+	    exchange.getResponseHeaders().set("Content-Type",
+		    binary ? "application/octet-stream" : "text/plain; charset=UTF-8");
+	    exchange.sendResponseHeaders(200, response.length);
+	    OutputStream out = exchange.getResponseBody();
+	    out.write(response);
+	    out.close();
+	} finally {
+	    exchange.close();
+	    inFlight.decrement();
+	    recordLatency(System.nanoTime() - start);
+	}
+    }
+
+    /**
+     * @return the request body, or null if longer than allowed
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+	ByteArrayOutputStream body = new ByteArrayOutputStream();
+	byte[] buffer = new byte[8192];
+	int n;
+	while ((n = in.read(buffer)) > 0) {
+	    if (body.size() + n > Config.SERVER_MAX_REQUEST_BYTES)
+		return null;
+	    body.write(buffer, 0, n);
+	}
+	return body.toByteArray();
+    }
+
+    /**
+     * Schedules the Sessions of a request body
+     *
+     * @return the response body
+     * @throws IllegalArgumentException if the Blocks or Sessions are invalid or cannot be scheduled
+     */
+    byte[] schedule(byte[] body, boolean binary) throws IllegalArgumentException, IOException {
+	//leading Block lines
+	int sessionsStart = 0;
+	while (startsWith(body, sessionsStart, BLOCK_PREFIX)) {
+	    int end = sessionsStart;
+	    while (end < body.length && body[end] != '\n')
+		end++;
+	    sessionsStart = Math.min(body.length, end + 1);
+	}
+	BlockTemplate blocks = defaultTemplate;
+	if (sessionsStart > 0)
+	    blocks = getBlocks(new String(body, 0, sessionsStart, UTF8));
+
+	ArrayList<Session> sessions = new SessionFileParser(UTF8)
+		.parse(ByteBuffer.wrap(body, sessionsStart, body.length - sessionsStart));
+	Schedule schedule = new Schedule();
+	schedule.setStrategy(strategy);
+	schedule.setBlocks(blocks);
+	for (Session s : sessions)
+	    schedule.addSession(s);
+	ScheduleSnapshot snapshot = schedule.makeSchedule();
+
+	if (binary) {
+	    ByteArrayOutputStream out = new ByteArrayOutputStream();
+	    new ScheduleFileWriter().write(schedule.getTracks(), out);
+	    return out.toByteArray();
+	}
+	StringWriter out = new StringWriter();
+	new ScheduleRenderer().render(snapshot, out);
+	return out.toString().getBytes(UTF8);
+    }
+
+    private static boolean startsWith(byte[] body, int start, String prefix) {
+	if (body.length - start < prefix.length())
+	    return false;
+	for (int i = 0; i < prefix.length(); i++)
+	    if (body[start + i] != prefix.charAt(i))
+		return false;
+	return true;
+    }
+
+    /**
+     * @param lines Block lines, each <i>&#64;block name, hh:mm, available, fixed start, min, max</i>
+     * @return the Blocks, parsed and checked the first time the lines are seen
+     * @throws IllegalArgumentException if the lines do not describe Blocks in time order
+     */
+    BlockTemplate getBlocks(String lines) throws IllegalArgumentException {
+	BlockTemplate blocks = templates.get(lines);
+	if (blocks == null) {
+	    blocks = parseBlocks(lines);
+	    if (templates.size() >= Config.SERVER_MAX_TEMPLATES)
+		templates.clear();
+	    templates.put(lines, blocks);
+	}
+	return blocks;
+    }
+
+    private static BlockTemplate parseBlocks(String lines) throws IllegalArgumentException {
+	ArrayList<BlockFormat> blocks = new ArrayList<BlockFormat>();
+	for (String line : lines.split("\n")) {
+	    String[] fields = line.substring(BLOCK_PREFIX.length()).split(",");
+	    if (fields.length != 6)
+		throw new IllegalArgumentException("Invalid block line:" + line.trim());
+	    String[] time = fields[1].trim().split(":");
+	    try {
+		if (time.length != 2)
+		    throw new NumberFormatException(fields[1]);
+		blocks.add(new BlockFormat(fields[0].trim(),
+			new TimeOffset(0, Integer.parseInt(time[0]), Integer.parseInt(time[1])),
+			parseBoolean(fields[2], line), parseBoolean(fields[3], line),
+			Integer.parseInt(fields[4].trim()), Integer.parseInt(fields[5].trim())));
+	    } catch (NumberFormatException e) {
+		throw new IllegalArgumentException("Invalid block line:" + line.trim(), e);
+	    }
+	}
+	return new BlockTemplate(blocks.toArray(new BlockFormat[blocks.size()]));
+    }
+
+    private static boolean parseBoolean(String field, String line) throws IllegalArgumentException {
+	String value = field.trim();
+	if (value.equalsIgnoreCase("true"))
+	    return true;
+	if (value.equalsIgnoreCase("false"))
+	    return false;
+	throw new IllegalArgumentException("Invalid block line:" + line.trim());
+    }
+
+    private void recordLatency(long nanos) {
+	latencyNanos.add(nanos);
+	long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+	int bucket = 0;
+	while (bucket < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[bucket])
+	    bucket++;
+	latencyBuckets[bucket].increment();
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+	try {
+	    if (!"GET".equals(exchange.getRequestMethod())) {
+		exchange.getResponseHeaders().set("Allow", "GET");
+		respond(exchange, 405, "Use GET.");
+		return;
+	    }
+	    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+	    byte[] response = getMetrics().getBytes(UTF8);
+	    exchange.sendResponseHeaders(200, response.length);
+	    OutputStream out = exchange.getResponseBody();
+	    out.write(response);
+	    out.close();
+	} finally {
+	    exchange.close();
+	}
+    }
+
+    /**
+     * @return the counters of the server and its strategy, one <i>name value</i> pair per line
+     */
+    public String getMetrics() {
+	StringBuilder sb = new StringBuilder();
+	metric(sb, "requests", requests.sum());
+	metric(sb, "scheduled", scheduled.sum());
+	metric(sb, "rejected", rejected.sum());
+	metric(sb, "timeouts", timeouts.sum());
+	metric(sb, "errors", errors.sum());
+	metric(sb, "in_flight", inFlight.sum());
+	metric(sb, "latency_nanos_total", latencyNanos.sum());
+	long cumulative = 0;
+	for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+	    cumulative += latencyBuckets[i].sum();
+	    metric(sb, "latency_millis_le_" + LATENCY_BUCKETS_MILLIS[i], cumulative);
+	}
+	metric(sb, "latency_millis_le_inf", cumulative + latencyBuckets[LATENCY_BUCKETS_MILLIS.length].sum());
+	metric(sb, "block_templates", templates.size());
+	metric(sb, "virtual_threads", virtualThreads ? 1 : 0);
+	StrategyMetrics m = strategy.getMetrics();
+	metric(sb, "strategy_runs", m.getRuns());
+	metric(sb, "strategy_failures", m.getFailures());
+	metric(sb, "strategy_placement_attempts", m.getPlacementAttempts());
+	metric(sb, "strategy_tracks_created", m.getTracksCreated());
+	metric(sb, "strategy_place_nanos", m.getPlaceNanos());
+	return sb.toString();
+    }
+
+    private static void metric(StringBuilder sb, String name, long value) {
+	sb.append("scheduler_").append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+	byte[] body = (message + "\n").getBytes(UTF8);
+	exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+	exchange.sendResponseHeaders(status, body.length);
+	OutputStream out = exchange.getResponseBody();
+	out.write(body);
+	out.close();
+    }
+
+}
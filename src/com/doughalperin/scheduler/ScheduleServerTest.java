@@ -0,0 +1,263 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the ScheduleServer class over HTTP
+ *
+ * @see ScheduleServer
+ */
+public class ScheduleServerTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Takes far longer than the server allows when a Session is called Slow, scheduling over and over on the
+     * processor; only the interrupt checks of first fit decreasing stop it early
+     */
+    static class SlowStrategy extends FirstFitDecreasingStrategy {
+	@Override
+	protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+		throws IllegalArgumentException {
+	    for (Session s : sessions)
+		if (s.getName().equals("Slow")) {
+		    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		    while (System.nanoTime() < end)
+			super.schedule(blocks, sessions, run);
+		}
+	    return super.schedule(blocks, sessions, run);
+	}
+    }
+
+    /**
+     * First fit decreasing, counting the runs it makes however it is called
+     */
+    static class CountingStrategy extends FirstFitDecreasingStrategy {
+	final AtomicInteger runs = new AtomicInteger();
+
+	@Override
+	protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+		throws IllegalArgumentException {
+	    runs.incrementAndGet();
+	    return super.schedule(blocks, sessions, run);
+	}
+    }
+
+    /**
+     * Never finishes a run, stopping only when interrupted
+     */
+    static class EndlessStrategy extends FirstFitDecreasingStrategy {
+	@Override
+	protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+		throws IllegalArgumentException {
+	    while (true) {
+		checkCancelled();
+		super.schedule(blocks, sessions, run);
+	    }
+	}
+    }
+
+    private ScheduleServer server;
+
+    @Before
+    public void setUp() throws IOException {
+	server = new ScheduleServer(0, new SlowStrategy(), 500);
+	server.start();
+    }
+
+    @After
+    public void tearDown() {
+	server.stop(0);
+    }
+
+    private static class Response {
+	int status;
+	String body;
+	byte[] bytes;
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+	HttpURLConnection c = (HttpURLConnection)new URL("http://localhost:" + server.getPort() + path).openConnection();
+	c.setRequestMethod(method);
+	if (body != null) {
+	    c.setDoOutput(true);
+	    OutputStream out = c.getOutputStream();
+	    out.write(body.getBytes(UTF8));
+	    out.close();
+	}
+	Response r = new Response();
+	r.status = c.getResponseCode();
+	InputStream in = r.status < 400 ? c.getInputStream() : c.getErrorStream();
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	byte[] buffer = new byte[8192];
+	int n;
+	while ((n = in.read(buffer)) > 0)
+	    bytes.write(buffer, 0, n);
+	in.close();
+	r.bytes = bytes.toByteArray();
+	r.body = new String(r.bytes, UTF8);
+	return r;
+    }
+
+    private static String expected(BlockFormat[] blocks, String lines) throws IOException {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(blocks);
+	for (String line : lines.split("\n"))
+	    schedule.addSession(Session.getInstanceFromString(line));
+	schedule.makeSchedule();
+	StringWriter out = new StringWriter();
+	new ScheduleRenderer().render(schedule.getTracks(), out);
+	return out.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleServer#schedule(byte[], boolean)}.
+     */
+    @Test
+    public void testSchedule() throws IOException {
+	String lines = "Writing Fast Tests Against Enterprise Rails 60min\nOverdoing it in Python 45min\n"
+		+ "Lua for the Masses 30min\nRails for Python Developers lightning\n";
+	Response r = request("POST", "/schedule", lines);
+	assertEquals(r.body, 200, r.status);
+	assertEquals(expected(Config.BLOCKS, lines), r.body);
+
+	String blockLines = "@block Morning, 10:00, true, true, 60, 60\n@block Lunch, 11:00, false, true, 30, 30\n"
+		+ "@block Afternoon, 11:30, true, true, 90, 90\n";
+	BlockFormat[] blocks = {
+		new BlockFormat("Morning", new TimeOffset(0, 10, 0), true, true, 60, 60),
+		new BlockFormat("Lunch", new TimeOffset(0, 11, 0), false, true, 30, 30),
+		new BlockFormat("Afternoon", new TimeOffset(0, 11, 30), true, true, 90, 90)};
+	for (int i = 0; i < 2; i++) {
+	    r = request("POST", "/schedule", blockLines + lines);
+	    assertEquals(r.body, 200, r.status);
+	    assertEquals(expected(blocks, lines), r.body);
+	}
+	assertTrue(r.body.contains("Lunch"));
+	assertTrue(server.getMetrics(), server.getMetrics().contains("scheduler_block_templates 1\n"));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleServer#schedule(byte[], boolean)} in binary.
+     */
+    @Test
+    public void testBinary() throws IOException {
+	Response r = request("POST", "/schedule?format=binary", "A 60min\nB 45min\n");
+	assertEquals(200, r.status);
+	File f = File.createTempFile("schedule", ".bin");
+	f.deleteOnExit();
+	OutputStream out = new FileOutputStream(f);
+	out.write(r.bytes);
+	out.close();
+	ScheduleFileReader reader = new ScheduleFileReader(f.getPath());
+	try {
+	    assertEquals(1, reader.getTrackCount());
+	    assertEquals("A", reader.getSession(0).getName());
+	} finally {
+	    reader.close();
+	}
+    }
+
+    /**
+     * Invalid requests get their reason
+     */
+    @Test
+    public void testInvalid() throws IOException {
+	Response r = request("POST", "/schedule", "A 60min\nB\n");
+	assertEquals(400, r.status);
+	assertTrue(r.body, r.body.startsWith("Failed input line 2:"));
+
+	r = request("POST", "/schedule", "A 500min\n");
+	assertEquals(400, r.status);
+	assertTrue(r.body, r.body.startsWith("A viable schedule could not be made:"));
+
+	r = request("POST", "/schedule", "@block Morning, 10:00, yes, true, 60, 60\nA 30min\n");
+	assertEquals(400, r.status);
+	assertTrue(r.body, r.body.startsWith("Invalid block line:@block Morning"));
+
+	r = request("GET", "/schedule", null);
+	assertEquals(405, r.status);
+    }
+
+    /**
+     * A request not scheduled in time gets 504, its worker stops, and the server keeps serving
+     */
+    @Test
+    public void testTimeout() throws IOException {
+	Response r = request("POST", "/schedule", "Slow 30min\n");
+	assertEquals(504, r.status);
+	//the only worker on one processor must have been freed within the timeout
+	assertEquals(200, request("POST", "/schedule", "Fast 30min\n").status);
+	assertEquals(200, request("POST", "/schedule", "Fast 30min\n").status);
+	assertTrue(server.getMetrics().contains("scheduler_timeouts 1\n"));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleServer#getMetrics()}.
+     */
+    @Test
+    public void testMetrics() throws IOException {
+	request("POST", "/schedule", "A 60min\n");
+	request("POST", "/schedule", "A\n");
+	Response r = request("GET", "/metrics", null);
+	assertEquals(200, r.status);
+	assertTrue(r.body, r.body.contains("scheduler_requests 2\n"));
+	assertTrue(r.body, r.body.contains("scheduler_scheduled 1\n"));
+	assertTrue(r.body, r.body.contains("scheduler_rejected 1\n"));
+	assertTrue(r.body, r.body.contains("scheduler_latency_millis_le_inf 2\n"));
+	assertTrue(r.body, r.body.contains("scheduler_strategy_runs "));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleServer#start()}.
+     */
+    @Test
+    public void testWarmupNotCounted() throws IOException {
+	CountingStrategy strategy = new CountingStrategy();
+	server.stop(0);
+	server = new ScheduleServer(0, strategy, 500);
+	server.start();
+	assertEquals(Config.SERVER_WARMUP_RUNS, strategy.runs.get());
+	Response r = request("GET", "/metrics", null);
+	assertTrue(r.body, r.body.contains("scheduler_strategy_runs 0\n"));
+	assertEquals(0, strategy.getMetrics().getRuns());
+
+	request("POST", "/schedule", "A 60min\n");
+	r = request("GET", "/metrics", null);
+	assertTrue(r.body, r.body.contains("scheduler_strategy_runs 1\n"));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.ScheduleServer#start()}.
+     */
+    @Test
+    public void testWarmupBounded() throws IOException {
+	server.stop(0);
+	server = new ScheduleServer(0, new EndlessStrategy(), 500);
+	long start = System.nanoTime();
+	server.start();
+	long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	assertTrue("Warmup took " + millis + " ms", millis < Config.SERVER_WARMUP_MILLIS + 1000);
+	assertEquals(200, request("GET", "/metrics", null).status);
+    }
+
+}
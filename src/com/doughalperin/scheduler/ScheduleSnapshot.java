@@ -0,0 +1,160 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable copy of a finished schedule, as returned by {@link Schedule#makeSchedule()}.  Later edits to the Schedule
+ * or its Tracks do not change it, so it can be shared between threads without locks.
+ * <p>
+ * Sessions are numbered by their Schedule in the order they are added or read from the file; the number of a removed
+ * Session is not used again, so a Session keeps its number in every version of the schedule.  Block level Sessions
+ * such as lunch have no number and are found only in their Tracks.
+ * </p>
+ * <p>
+ * A snapshot taken after edits shares the Sessions of every Track the edits left alone with the snapshot before it.
+ * </p>
+ *
+ * @see ScheduledSession
+ * @see PublishedSchedule
+ */
+public final class ScheduleSnapshot {
+
+    private final long version;
+    private final String[] labels;
+    private final List<List<ScheduledSession>> tracks;
+    private final int[] scheduledCounts;
+    private final int sessionCount;
+    private final int scheduledCount;
+    private final int numberLimit;
+
+    //by number, built when first asked for
+    private volatile ScheduledSession[] numbered;
+
+    /**
+     * Copies scheduled Tracks
+     *
+     * @param result Tracks whose Sessions have start offsets and numbers
+     * @param previous an earlier snapshot of the same Tracks; null to copy every Track
+     * @param changed the Tracks changed since the earlier snapshot; the others are shared with it
+     * @param numberLimit more than the highest Session number
+     * @throws IllegalStateException if a Session has not been scheduled
+     */
+    ScheduleSnapshot(Track[] result, ScheduleSnapshot previous, BitSet changed, int numberLimit)
+	    throws IllegalStateException {
+	version = previous == null ? 1 : previous.version + 1;
+	this.numberLimit = numberLimit;
+	labels = new String[result.length];
+	tracks = new ArrayList<List<ScheduledSession>>(result.length);
+	scheduledCounts = new int[result.length];
+	int all = 0;
+	int scheduled = 0;
+	for (int t = 0; t < result.length; t++) {
+	    if (previous != null && t < previous.tracks.size() && !changed.get(t)) {
+		labels[t] = previous.labels[t];
+		tracks.add(previous.tracks.get(t));
+		scheduledCounts[t] = previous.scheduledCounts[t];
+	    } else {
+		labels[t] = result[t].getLabel();
+		ArrayList<ScheduledSession> track = new ArrayList<ScheduledSession>();
+		for (ScheduleBlock sb : result[t].getScheduleBlocks())
+		    for (Session s : sb.getSessions()) {
+			track.add(new ScheduledSession(s.isBlockLevelSession() ? -1 : s.getNumber(), s.getName(),
+				s.getMinutes(), s.getStartOffset(), t, sb.getBlockName(), s.isBlockLevelSession()));
+			if (!s.isBlockLevelSession())
+			    scheduledCounts[t]++;
+		    }
+		track.trimToSize();
+		tracks.add(Collections.unmodifiableList(track));
+	    }
+	    all += tracks.get(t).size();
+	    scheduled += scheduledCounts[t];
+	}
+	sessionCount = all;
+	scheduledCount = scheduled;
+    }
+
+    /**
+     * @return the version of the schedule, from 1, one more than the snapshot it was taken after
+     */
+    public long getVersion() {
+	return version;
+    }
+
+    /**
+     * @return the number of Tracks
+     */
+    public int getTrackCount() {
+	return tracks.size();
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the Track label
+     */
+    public String getTrackLabel(int track) {
+	return labels[track];
+    }
+
+    /**
+     * @param track Track number, from 0
+     * @return the Sessions of the Track in time order, including block level Sessions
+     */
+    public List<ScheduledSession> getTrack(int track) {
+	return tracks.get(track);
+    }
+
+    /**
+     * @return the number of Sessions, including block level Sessions
+     */
+    public int getSessionCount() {
+	return sessionCount;
+    }
+
+    /**
+     * @return the number of Sessions of the Schedule, excluding block level Sessions
+     */
+    public int getScheduledCount() {
+	return scheduledCount;
+    }
+
+    /**
+     * @param number Session number
+     * @return the Session; null if no Session of the schedule has that number
+     */
+    public ScheduledSession getSession(int number) {
+	ScheduledSession[] n = getNumbered();
+	return number < 0 || number >= n.length ? null : n[number];
+    }
+
+    /**
+     * @return the Sessions of the Schedule, excluding block level Sessions, in number order
+     */
+    public List<ScheduledSession> getSessions() {
+	ArrayList<ScheduledSession> sessions = new ArrayList<ScheduledSession>(scheduledCount);
+	for (ScheduledSession s : getNumbered())
+	    if (s != null)
+		sessions.add(s);
+	return Collections.unmodifiableList(sessions);
+    }
+
+    private ScheduledSession[] getNumbered() {
+	ScheduledSession[] n = numbered;
+	if (n == null) {
+	    //racing threads build equal arrays
+	    n = new ScheduledSession[numberLimit];
+	    for (List<ScheduledSession> track : tracks)
+		for (ScheduledSession s : track)
+		    if (!s.isBlockLevelSession())
+			n[s.getId()] = s;
+	    numbered = n;
+	}
+	return n;
+    }
+
+}
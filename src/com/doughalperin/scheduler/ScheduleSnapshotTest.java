@@ -0,0 +1,141 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests the ScheduleSnapshot class and that Schedules leave their input Sessions alone
+ *
+ * @see ScheduleSnapshot
+ * @see Schedule#makeSchedule()
+ */
+public class ScheduleSnapshotTest {
+
+    private static Schedule newSchedule(SchedulingStrategy strategy, Session[] sessions) {
+	Schedule schedule = new Schedule();
+	schedule.setStrategy(strategy);
+	schedule.setBlocks(Config.BLOCKS);
+	for (Session s : sessions)
+	    schedule.addSession(s);
+	return schedule;
+    }
+
+    private static String render(ScheduleSnapshot snapshot) throws IOException {
+	StringWriter out = new StringWriter();
+	new ScheduleRenderer().render(snapshot, out);
+	return out.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#makeSchedule()}.
+     */
+    @Test
+    public void testInputsNotChanged() throws IOException {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 4).nextSessions(120);
+	Schedule schedule = newSchedule(new FirstFitDecreasingStrategy(), sessions);
+	ScheduleSnapshot snapshot = schedule.makeSchedule();
+	for (Session s : sessions) {
+	    boolean exceptionOccurred = false;
+	    try {
+		s.getStartOffset();
+	    } catch (IllegalStateException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Input Session was scheduled " + s, exceptionOccurred);
+	}
+
+	assertEquals(sessions.length, snapshot.getScheduledCount());
+	for (int i = 0; i < sessions.length; i++) {
+	    assertEquals(i, snapshot.getSession(i).getId());
+	    assertEquals(sessions[i].getName(), snapshot.getSession(i).getName());
+	    assertEquals(sessions[i].getMinutes(), snapshot.getSession(i).getMinutes());
+	}
+	StringWriter tracks = new StringWriter();
+	new ScheduleRenderer().render(schedule.getTracks(), tracks);
+	assertEquals(tracks.toString(), render(snapshot));
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#getSnapshot()}.
+     */
+    @Test
+    public void testEditsAfterSnapshot() throws IOException {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, 8).nextSessions(60);
+	Schedule schedule = newSchedule(new FirstFitDecreasingStrategy(), sessions);
+	ScheduleSnapshot before = schedule.makeSchedule();
+	String text = render(before);
+
+	int minutes = sessions[0].getMinutes();
+	schedule.changeDuration(sessions[0], minutes == 30 ? 45 : 30);
+	schedule.removeSession(sessions[1]);
+	schedule.addSession(sessions[1]);
+	assertEquals(minutes, sessions[0].getMinutes());
+	assertEquals(text, render(before));
+
+	ScheduleSnapshot after = schedule.getSnapshot();
+	assertEquals(sessions.length, after.getScheduledCount());
+	assertEquals(minutes == 30 ? 45 : 30, after.getSession(0).getMinutes());
+	assertNull(after.getSession(1));
+	assertEquals(sessions[1].getName(), after.getSession(sessions.length).getName());
+	assertEquals(sessions.length, after.getSessions().size());
+	assertEquals(before.getVersion() + 1, after.getVersion());
+	assertSame(after, schedule.getSnapshot());
+
+	boolean exceptionOccurred = false;
+	try {
+	    schedule.addSession(sessions[2]);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Session added twice", exceptionOccurred);
+    }
+
+    /**
+     * Many Schedules sharing one strategy, the same Blocks and the same input Sessions made at once match those made one
+     * at a time
+     */
+    @Test
+    public void testConcurrentSchedules() throws Exception {
+	final SchedulingStrategy strategy = new BestFitDecreasingStrategy();
+	final Session[][] inputs = new Session[8][];
+	String[] expected = new String[inputs.length];
+	for (int i = 0; i < inputs.length; i++) {
+	    inputs[i] = new ConferenceGenerator(ConferenceGenerator.Distribution.values()[i % 4], i).nextSessions(300);
+	    expected[i] = render(newSchedule(strategy, inputs[i]).makeSchedule());
+	}
+
+	ExecutorService pool = Executors.newFixedThreadPool(4);
+	try {
+	    List<Future<String>> results = new ArrayList<Future<String>>();
+	    for (int run = 0; run < 64; run++) {
+		final int i = run % inputs.length;
+		results.add(pool.submit(new Callable<String>() {
+		    @Override
+		    public String call() throws IOException {
+			return render(newSchedule(strategy, inputs[i]).makeSchedule());
+		    }
+		}));
+	    }
+	    for (int run = 0; run < results.size(); run++)
+		assertEquals("run#" + run, expected[run % inputs.length], results.get(run).get());
+	} finally {
+	    pool.shutdownNow();
+	}
+    }
+
+}
@@ -0,0 +1,301 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the editing methods of the Schedule class
+ *
+ * @see Schedule
+ */
+public class ScheduleTest {
+
+    final BlockFormat[] blocks = {
+	    new BlockFormat("Morning Sessions", new TimeOffset(0, 9, 0), true, true, 180, 180),
+	    new BlockFormat("Lunch", new TimeOffset(0, 12, 0), false, true, 60, 60),
+	    new BlockFormat("Afternoon Sessions", new TimeOffset(0, 13, 0), true, true, 180, 240),
+	    new BlockFormat("Networking Event", new TimeOffset(0, 16, 0), false, false, 60, 60)
+    };
+
+    final int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 90, 200};
+
+    private Schedule makeSchedule(ArrayList<Session> sessions, Random random, int count) {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(blocks);
+	for (int i = 0; i < count; i++) {
+	    Session s = new Session("Session" + i, durations[random.nextInt(durations.length)]);
+	    sessions.add(s);
+	    schedule.addSession(s);
+	}
+	schedule.makeSchedule();
+	return schedule;
+    }
+
+    /**
+     * Asserts every Session is scheduled once within its Block limits, and that the times match those of a schedule
+     * timed from scratch
+     */
+    private void assertConsistent(String message, Schedule schedule, ArrayList<Session> sessions) {
+	Track[] tracks = schedule.getTracks();
+	IdentityHashMap<Session, Integer> offsets = new IdentityHashMap<Session, Integer>();
+	int[] max = null;
+	for (Track t : tracks) {
+	    for (ScheduleBlock sb : t.getScheduleBlocks()) {
+		assertTrue(message + " " + sb, sb.getUsedMinutes() <= sb.getMaxDuration());
+		for (Session s : sb.getSessions())
+		    if (!s.isBlockLevelSession())
+			assertNull(message + " twice " + s, offsets.put(s, s.getStartOffset()));
+	    }
+	    int[] used = t.getBlockUsedMinutes();
+	    if (max == null)
+		max = used;
+	    for (int j = 0; j < used.length; j++)
+		max[j] = Math.max(max[j], used[j]);
+	}
+	assertEquals(message, sessions.size(), offsets.size());
+
+	ArrayList<Integer> before = new ArrayList<Integer>();
+	for (Track t : tracks)
+	    for (ScheduleBlock sb : t.getScheduleBlocks())
+		for (Session s : sb.getSessions())
+		    before.add(s.getStartOffset());
+	for (Track t : tracks)
+	    t.setSchedule(max);
+	int k = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock sb : t.getScheduleBlocks()) {
+		assertEquals(message + " placeholder", sb.isAvailableForScheduling() ? sb.getSessions().size() : 1,
+			sb.getSessions().size());
+		for (Session s : sb.getSessions())
+		    assertEquals(message + " " + s, before.get(k++).intValue(), s.getStartOffset());
+	    }
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#addSession(Session)},
+     * {@link com.doughalperin.scheduler.Schedule#removeSession(Session)} and
+     * {@link com.doughalperin.scheduler.Schedule#changeDuration(Session, int)}.
+     */
+    @Test
+    public void testEditsMatchFullTiming() {
+	Random random = new Random(9);
+	for (int trial = 0; trial < 20; trial++) {
+	    ArrayList<Session> sessions = new ArrayList<Session>();
+	    Schedule schedule = makeSchedule(sessions, random, 1 + random.nextInt(60));
+	    assertConsistent("trial#" + trial + " start", schedule, sessions);
+	    for (int edit = 0; edit < 50; edit++) {
+		int kind = random.nextInt(3);
+		if (kind == 0 || sessions.isEmpty()) {
+		    Session s = new Session("Added" + edit, durations[random.nextInt(durations.length)]);
+		    schedule.addSession(s);
+		    sessions.add(s);
+		} else if (kind == 1) 
+		    schedule.removeSession(sessions.remove(random.nextInt(sessions.size())));
+		else 
+		    schedule.changeDuration(sessions.get(random.nextInt(sessions.size())), 
+			    durations[random.nextInt(durations.length)]);
+		assertConsistent("trial#" + trial + " edit#" + edit, schedule, sessions);
+	    }
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#changeDuration(Session, int)}.
+     */
+    @Test
+    public void testFailedEditsChangeNothing() {
+	ArrayList<Session> sessions = new ArrayList<Session>();
+	Schedule schedule = makeSchedule(sessions, new Random(3), 10);
+	Session s = sessions.get(0);
+	int minutes = s.getMinutes();
+	int[] invalid = {0, -5, 241};
+	for (int m : invalid) {
+	    boolean exceptionOccurred = false;
+	    try {
+		schedule.changeDuration(s, m);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Unexpectedly succeeded for " + m, exceptionOccurred);
+	    assertEquals(minutes, s.getMinutes());
+	}
+
+	boolean exceptionOccurred = false;
+	try {
+	    schedule.removeSession(new Session("Stranger", 30));
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly removed", exceptionOccurred);
+	assertConsistent("after failures", schedule, sessions);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#removeSession(Session)}.
+     */
+    @Test
+    public void testRemovedSessionsLeaveNumbers() {
+	ArrayList<Session> sessions = new ArrayList<Session>();
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(blocks);
+	for (int i = 0; i < 6; i++) {
+	    Session s = new Session("Session" + i, 30);
+	    sessions.add(s);
+	    schedule.addSession(s);
+	}
+	schedule.removeSession(sessions.remove(4));
+	schedule.removeSession(sessions.remove(1));
+	ScheduleSnapshot snapshot = schedule.makeSchedule();
+	assertConsistent("made", schedule, sessions);
+	assertEquals(4, snapshot.getScheduledCount());
+	assertNull(snapshot.getSession(1));
+	assertEquals("Session5", snapshot.getSession(5).getName());
+
+	//by its copy in the Tracks, then again by the Session given
+	Session given = sessions.remove(2);
+	Session copy = null;
+	for (ScheduleBlock sb : schedule.getTracks()[0].getWorkingBlocks())
+	    for (Session s : sb.getSessions())
+		if (s.getName().equals(given.getName()))
+		    copy = s;
+	schedule.removeSession(copy);
+	boolean exceptionOccurred = false;
+	try {
+	    schedule.removeSession(given);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Removed twice", exceptionOccurred);
+	schedule.addSession(given);
+	sessions.add(given);
+	snapshot = schedule.makeSchedule();
+	assertConsistent("made again", schedule, sessions);
+	assertEquals(4, snapshot.getScheduledCount());
+	assertEquals("Session3", snapshot.getSession(6).getName());
+    }
+
+    /**
+     * @return every Session of the Tracks with its number, length and start, Track by Track
+     */
+    private String layout(Schedule schedule) {
+	StringBuilder sb = new StringBuilder();
+	for (Track t : schedule.getTracks()) {
+	    sb.append(t.getLabel()).append('\n');
+	    for (ScheduleBlock b : t.getScheduleBlocks())
+		for (Session s : b.getSessions())
+		    sb.append(s.getNumber()).append(' ').append(s.getName()).append(' ').append(s.getMinutes())
+			    .append('@').append(s.getStartOffset()).append('\n');
+	}
+	return sb.toString();
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#undoEdit()}.
+     */
+    @Test
+    public void testUndoneEditsChangeNothing() {
+	Random random = new Random(12);
+	for (int trial = 0; trial < 20; trial++) {
+	    ArrayList<Session> sessions = new ArrayList<Session>();
+	    Schedule schedule = makeSchedule(sessions, random, 1 + random.nextInt(60));
+	    ScheduleSnapshot before = schedule.getSnapshot();
+	    String layout = layout(schedule);
+
+	    //enough long Sessions to need new Tracks, with the edits of testEditsMatchFullTiming among them
+	    ArrayList<Session> edited = new ArrayList<Session>(sessions);
+	    schedule.beginEdit();
+	    for (int edit = 0; edit < 50; edit++) {
+		int kind = random.nextInt(4);
+		if (kind == 0 || edited.isEmpty()) {
+		    Session s = new Session("Added" + edit, durations[random.nextInt(durations.length)]);
+		    schedule.addSession(s);
+		    edited.add(s);
+		} else if (kind == 1) 
+		    schedule.removeSession(edited.remove(random.nextInt(edited.size())));
+		else if (kind == 2)
+		    schedule.changeDuration(edited.get(random.nextInt(edited.size())), 
+			    durations[random.nextInt(durations.length)]);
+		else
+		    schedule.addSession(new Session("Long" + edit, 200));
+		if (edit == 25)
+		    schedule.getSnapshot();
+	    }
+	    schedule.undoEdit();
+	    assertEquals("trial#" + trial, layout, layout(schedule));
+	    assertSame("trial#" + trial, before, schedule.getSnapshot());
+	    assertConsistent("trial#" + trial + " undone", schedule, sessions);
+
+	    //the edit indexes still follow the schedule
+	    Session s = new Session("After", durations[random.nextInt(durations.length)]);
+	    schedule.addSession(s);
+	    sessions.add(s);
+	    schedule.removeSession(sessions.remove(0));
+	    assertConsistent("trial#" + trial + " after", schedule, sessions);
+	    assertEquals(before.getVersion() + 1, schedule.getSnapshot().getVersion());
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#beginEdit()}.
+     */
+    @Test
+    public void testNotMadeDuringEdit() {
+	ArrayList<Session> sessions = new ArrayList<Session>();
+	Schedule schedule = makeSchedule(sessions, new Random(5), 10);
+	schedule.beginEdit();
+	boolean exceptionOccurred = false;
+	try {
+	    schedule.makeSchedule();
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Made during an edit", exceptionOccurred);
+	schedule.undoEdit();
+	schedule.makeSchedule();
+	assertConsistent("made", schedule, sessions);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Schedule#removeSession(Session)} and
+     * {@link com.doughalperin.scheduler.Schedule#changeDuration(Session, int)}.
+     */
+    @Test
+    public void testNullSession() {
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	schedule.addSession(new Session("Talk", 30));
+	for (int made = 0; made < 2; made++) {
+	    boolean exceptionOccurred = false;
+	    try {
+		schedule.removeSession(null);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Removed null", exceptionOccurred);
+
+	    exceptionOccurred = false;
+	    try {
+		schedule.changeDuration(null, 30);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Changed null", exceptionOccurred);
+	    schedule.makeSchedule();
+	}
+    }
+
+}
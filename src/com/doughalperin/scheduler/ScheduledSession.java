@@ -0,0 +1,90 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+/**
+ * A Session as read back from a finished schedule: its place and time can no longer change.
+ *
+ * @see ScheduleFileReader#getSession(int)
+ * @see ScheduleIndex
+ */
+public final class ScheduledSession {
+
+    private final int id;
+    private final String name;
+    private final int minutes;
+    private final int startOffset;
+    private final int track;
+    private final String blockName;
+    private final boolean blockLevelSession;
+
+    ScheduledSession(int id, String name, int minutes, int startOffset, int track, String blockName,
+	    boolean blockLevelSession) {
+	this.id = id;
+	this.name = name;
+	this.minutes = minutes;
+	this.startOffset = startOffset;
+	this.track = track;
+	this.blockName = blockName;
+	this.blockLevelSession = blockLevelSession;
+    }
+
+    /**
+     * @return the number of the Session within the schedule; -1 for block level Sessions of a {@link ScheduleSnapshot}
+     */
+    public int getId() {
+	return id;
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+	return name;
+    }
+
+    /**
+     * @return the time in minutes
+     */
+    public int getMinutes() {
+	return minutes;
+    }
+
+    /**
+     * @return the offset in minutes from time zero of the beginning of the session
+     */
+    public int getStartOffset() {
+	return startOffset;
+    }
+
+    /**
+     * @return the number of the Track holding the Session, from 0
+     */
+    public int getTrack() {
+	return track;
+    }
+
+    /**
+     * @return the name of the Block holding the Session
+     */
+    public String getBlockName() {
+	return blockName;
+    }
+
+    /**
+     * @return whether the Session stands for a whole Block not available for scheduling
+     */
+    public boolean isBlockLevelSession() {
+	return blockLevelSession;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+	return "Session:" + name + " [" + minutes + " minutes]";
+    }
+
+}
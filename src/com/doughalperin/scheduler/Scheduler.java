@@ -3,7 +3,10 @@
  */
 package com.doughalperin.scheduler;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.List;
 
 import com.doughalperin.scheduler.Schedule.FileEncoding;
 
@@ -23,6 +26,13 @@ public class Scheduler {
      * <ul>
      * <li>file - the name of the input file containing Session information.  This is required.</li>
      * <li>encoding - the type of encoding of the input file.  This is optional.  The only format currently supported is <i>UTF8</i></li>
+     * <li>cache - a directory in which schedules are kept between runs.  This is optional.</li>
+     * <li>binary - a file to which the schedule is also written in binary.  This is optional.</li>
+     * <li>server - a port on which to serve schedules over HTTP rather than schedule the file.  This is optional.</li>
+     * <li>batch - a directory or comma separated list of input files to schedule rather than the file, each into its own
+     * output.  This is optional.</li>
+     * <li>output - the directory for batch outputs.  This is optional and defaults to beside each input.</li>
+     * <li>threads - the most batch inputs scheduled at a time.  This is optional and defaults to the processors.</li>
      * </ul>
      * </p>
      * 
@@ -33,6 +43,27 @@ public class Scheduler {
 	System.out.println("Welcome to the Conference Track Manager!");
 	System.out.flush();
 	
+	String port = System.getProperty("server");
+	if (port != null) {
+	    try {
+		ScheduleServer server = new ScheduleServer(Integer.parseInt(port));
+		server.start();
+		System.out.println("Serving schedules on port " + server.getPort()
+			+ (server.isVirtualThreads() ? " with virtual threads" : ""));
+	    } catch (NumberFormatException e) {
+		System.err.println("Invalid server port specified.");
+	    } catch (IOException e) {
+		e.printStackTrace();
+	    }
+	    return;
+	}
+	
+	String batch = System.getProperty("batch");
+	if (batch != null) {
+	    runBatch(batch);
+	    return;
+	}
+	
 	String file = System.getProperty( "file");
 	if (file == null) {
 	    System.err.println("File listing Conference Tracks not specified.");
@@ -56,9 +87,13 @@ public class Scheduler {
 	Schedule schedule = new Schedule();
 	schedule.setStrategy(Config.DEFAULT_STRATEGY);
 	try {
-	    schedule.setSessionsFromFile(file, encoding);
 	    schedule.setBlocks(Config.BLOCKS);
-	    schedule.makeSchedule();
+	    String cache = System.getProperty("cache");
+	    if (cache == null) {
+		schedule.setSessionsFromFile(file, encoding);
+		schedule.makeSchedule();
+	    } else
+		schedule.makeSchedule(file, encoding, new ScheduleCache(new File(cache), Config.CACHE_MAX_BYTES));
 	} catch (IllegalArgumentException e) {
 	    System.err.println(e.getMessage());
 	    return;
@@ -69,15 +104,53 @@ public class Scheduler {
 	}
 	
 	Track tracks[] = schedule.getTracks();
-	for (Track track : tracks) {
-	    System.out.println(track.getLabel());
-	    for (ScheduleBlock sb : track.getScheduleBlocks()) {
-		for (Session s : sb.getSessions())
-		    System.out.println((new TimeOffset(s.getStartOffset())) + " " + s.getName() 
-			    + (s.isBlockLevelSession() ? "" : " [" + s.getMinutes() + "min]"));
-	    }
-	    System.out.println();
+	try {
+	    String binary = System.getProperty("binary");
+	    if (binary != null)
+		new ScheduleFileWriter().writeFile(tracks, binary);
+	    new ScheduleRenderer().render(tracks, new OutputStreamWriter(System.out));
+	} catch (IOException e) {
+	    e.printStackTrace();
+	}
+    }
+
+    /**
+     * Schedules a batch of input files, reporting each failure and a summary
+     * 
+     * @param batch a directory or comma separated list of input files
+     */
+    private static void runBatch(String batch) {
+	FileEncoding encoding;
+	BatchScheduler scheduler;
+	try {
+	    encoding = FileEncoding.getFileEncodingByName(System.getProperty( "encoding"));
+	    scheduler = new BatchScheduler(Config.BLOCKS, Config.DEFAULT_STRATEGY, encoding, Integer.parseInt(
+		    System.getProperty("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+	} catch (IllegalArgumentException e) {
+	    System.err.println("Unsupported File Encoding or invalid threads specified.");
+	    return;
+	}
+	String output = System.getProperty("output");
+	List<File> inputs = BatchScheduler.listInputs(batch);
+	List<BatchScheduler.Result> results;
+	try {
+	    results = scheduler.run(inputs, output == null ? null : new File(output));
+	} catch (IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    return;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return;
+	}
+	int succeeded = 0;
+	for (BatchScheduler.Result r : results) {
+	    if (r.isSucceeded()) {
+		succeeded++;
+		System.out.println(r.getInput() + " -> " + r.getOutput() + " (" + r.getTrackCount() + " tracks)");
+	    } else
+		System.err.println(r.getInput() + ": " + r.getError());
 	}
+	System.out.println("Scheduled " + succeeded + " of " + results.size() + " files.");
     }
 
 }
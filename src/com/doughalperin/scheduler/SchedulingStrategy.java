@@ -4,13 +4,28 @@
 package com.doughalperin.scheduler;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
 
 /**
  * This abstract class defines the basic functionality required for a scheduling strategy 
  * that places a series of Sessions into TrackBlocks
- * 
- *
+ * <p>
+ * One instance may be used by many threads at once, so implementations keep all working state in each call, holding
+ * only settings such as time budgets in fields.  They place the Sessions given into new Tracks without changing them.
+ * </p>
+ * <p>
+ * A strategy stops soon after its thread is interrupted, so a caller that no longer wants the result, such as a
+ * {@link PortfolioStrategy} or a server past its deadline, can free the thread with {@link java.util.concurrent.Future#cancel(boolean)}.
+ * </p>
+ * <p>
+ * Subclasses place the Sessions in {@link #schedule(BlockFormat[], Session[], StrategyMetrics.Run)} and leave
+ * {@link #apply(BlockFormat[], Session[])} to record the run.  A subclass written before schedule existed, overriding
+ * apply, still works unchanged, but its runs are not recorded; to have them recorded, rename its apply to schedule,
+ * adding the run parameter and making it protected.
+ * </p>
  *
  */
 public abstract class SchedulingStrategy {
@@ -27,13 +42,153 @@ public abstract class SchedulingStrategy {
     enum PlacementResult {PLACED, COULD_PLACE_AT_MAX, FAILED}
     
     /**
+     * Schedules the Sessions, recording the run in the metrics of the strategy and as a flight recorder event
+     * 
      * @param blocks time blocks in which Tracks are divided
      * @param sessions all the Sessions to schedule
      * @return the Tracks with Sessions scheduled
      * @throws IllegalArgumentException if a Session cannot be scheduled for example if the duration of a Session 
      * is longer than the total time in a Track
+     * @see #getMetrics()
+     * @see ScheduleEvents.ApplyStrategy
+     */
+    public Track[] apply(BlockFormat[] blocks, Session[] sessions) throws IllegalArgumentException {
+	ScheduleEvents.ApplyStrategy event = new ScheduleEvents.ApplyStrategy();
+	event.begin();
+	StrategyMetrics.Run run = new StrategyMetrics.Run();
+	Track[] tracks = null;
+	try {
+	    tracks = schedule(blocks, sessions, run);
+	    return tracks;
+	} finally {
+	    run.finish(tracks == null ? -1 : tracks.length);
+	    getMetrics().record(run);
+	    if (event.shouldCommit()) {
+		event.strategy = getClass().getName();
+		event.sessionCount = sessions.length;
+		event.trackCount = tracks == null ? 0 : tracks.length;
+		event.succeeded = tracks != null;
+		event.commit();
+	    }
+	}
+    }
+    
+    /**
+     * Places the Sessions into new Tracks.  A strategy that schedules with the help of another calls the other's
+     * schedule with its own run, so the work is counted once, by the strategy applied.
+     * <p>
+     * Every subclass overrides this or {@link #apply(BlockFormat[], Session[])}.  This implementation calls apply, for
+     * subclasses that override apply alone, and counts nothing in the run.
+     * </p>
+     * 
+     * @param blocks time blocks in which Tracks are divided
+     * @param sessions all the Sessions to schedule
+     * @param run the counts of the current run
+     * @return the Tracks with Sessions scheduled
+     * @throws IllegalArgumentException if a Session cannot be scheduled
+     */
+    protected Track[] schedule(BlockFormat[] blocks, Session[] sessions, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	return apply(blocks, sessions);
+    }
+    
+    /**
+     * Places the Sessions of a table, giving the slot of each rather than building Tracks, and records the run as
+     * {@link #apply(BlockFormat[], Session[])} does
+     * 
+     * @param blocks time blocks in which Tracks are divided
+     * @param table all the Sessions to schedule
+     * @return the slot of each Session: track * number of working blocks + working block
+     * @throws IllegalArgumentException if a Session cannot be scheduled
+     * @see SessionTable#setSchedule(BlockFormat[], int[])
+     */
+    public final int[] assign(BlockFormat[] blocks, SessionTable table) throws IllegalArgumentException {
+	StrategyMetrics.Run run = new StrategyMetrics.Run();
+	int tracks = -1;
+	try {
+	    int[] slots = assign(blocks, table, run);
+	    int workingCount = new BlockTemplate(blocks).getWorkingCount();
+	    tracks = 1;
+	    for (int slot : slots)
+		tracks = Math.max(tracks, slot / workingCount + 1);
+	    return slots;
+	} finally {
+	    run.finish(tracks);
+	    getMetrics().record(run);
+	}
+    }
+    
+    /**
+     * Places the Sessions of a table.  This implementation creates a Session for each row and schedules them;
+     * strategies that can work on the table directly override it.
+     * 
+     * @param blocks time blocks in which Tracks are divided
+     * @param table all the Sessions to schedule
+     * @param run the counts of the current run
+     * @return the slot of each Session: track * number of working blocks + working block
+     * @throws IllegalArgumentException if a Session cannot be scheduled
+     */
+    protected int[] assign(BlockFormat[] blocks, SessionTable table, StrategyMetrics.Run run) 
+	    throws IllegalArgumentException {
+	Session[] sessions = new Session[table.size()];
+	IdentityHashMap<Session, Integer> rows = new IdentityHashMap<Session, Integer>(sessions.length * 2);
+	for (int i = 0; i < sessions.length; i++) {
+	    sessions[i] = new Session(table.getName(i), table.getMinutes(i));
+	    rows.put(sessions[i], i);
+	}
+	Track[] tracks = schedule(blocks, sessions, run);
+	int[] slots = new int[sessions.length];
+	for (int t = 0; t < tracks.length; t++) {
+	    ScheduleBlock[] working = tracks[t].getWorkingBlocks();
+	    for (int w = 0; w < working.length; w++)
+		for (Session s : working[w].getSessions())
+		    slots[rows.get(s)] = t * working.length + w;
+	}
+	return slots;
+    }
+    
+    /**
+     * Stops a strategy whose thread has been interrupted.  Strategies call it once per step of their main loops.
+     * 
+     * @throws CancellationException if the current thread is interrupted; the interrupt is left set
+     */
+    protected static void checkCancelled() throws CancellationException {
+	if (Thread.currentThread().isInterrupted())
+	    throw new CancellationException("Scheduling was cancelled.");
+    }
+    
+    /**
+     * Identifies the schedules this strategy makes, so a cache keeps the schedules of differently configured strategies
+     * apart.  This implementation gives the class name, which is enough for strategies without settings; strategies
+     * with settings that change their schedules add them.
+     * 
+     * @return the class name followed by any settings that change the schedules made
+     * @see ScheduleCache
+     */
+    public String getCacheIdentity() {
+	return getClass().getName();
+    }
+    
+    /**
+     * @return the scheduling counters shared by all instances of this strategy class
+     * @see StrategyMetrics
+     */
+    public StrategyMetrics getMetrics() {
+	return StrategyMetrics.forStrategy(getClass());
+    }
+    
+    /**
+     * Groups sessions as {@link #groupSessions(Session[])} does, counting the time taken in the run
+     * 
+     * @param sessions the Sessions to group
+     * @param run the counts of the current run
      */
-    public abstract Track[] apply(BlockFormat[] blocks, Session[] sessions) throws IllegalArgumentException;
+    protected TreeMap<Integer, ArrayList<Session>> groupSessions(Session[] sessions, StrategyMetrics.Run run) {
+	long start = System.nanoTime();
+	TreeMap<Integer, ArrayList<Session>> groups = groupSessions(sessions);
+	run.grouped(System.nanoTime() - start);
+	return groups;
+    }
     
     /**
      * Group sessions into like length groups and counts.  This is an important optimization step available to all SchedulingStrategy
@@ -55,5 +210,53 @@ public abstract class SchedulingStrategy {
 	return groups;
 	
     }
+    
+    /**
+     * Computes a lower bound on the number of Tracks any strategy needs to schedule the grouped Sessions.  It is the larger
+     * of the total Session minutes divided by the maximum minutes of a Track and, for Sessions longer than half the longest
+     * Block (no two of which can share a Block), their count divided by the number of Blocks per Track long enough for them.
+     * 
+     * @param blocks time blocks in which Tracks are divided
+     * @param groups the Sessions grouped by duration
+     * @return the fewest Tracks that could possibly hold the Sessions; at least 1
+     * @throws IllegalArgumentException if a Session does not fit in any Block
+     */
+    protected static int minimumTracks(BlockFormat[] blocks, TreeMap<Integer, ArrayList<Session>> groups) 
+	    throws IllegalArgumentException {
+	long trackMinutes = 0;
+	int longestBlock = 0;
+	for (BlockFormat b : blocks) 
+	    if (b.isAvailableForScheduling()) {
+		trackMinutes += b.getMaxDuration();
+		longestBlock = Math.max(longestBlock, b.getMaxDuration());
+	    }
+	
+	long totalMinutes = 0;
+	for (Map.Entry<Integer, ArrayList<Session>> group : groups.entrySet())
+	    totalMinutes += (long)group.getKey() * group.getValue().size();
+	if (totalMinutes == 0)
+	    return 1;
+	if (groups.lastKey() > longestBlock) {
+	    Session s = groups.lastEntry().getValue().get(0);
+	    throw new IllegalArgumentException("Session [" + s.getName() + "] of " + s.getMinutes() 
+		    + " minutes does not fit in any track.");
+	}
+	long bound = (totalMinutes + trackMinutes - 1) / trackMinutes;
+	
+	//Sessions longer than half the longest Block each need a Block of their own
+	long longSessions = 0;
+	for (Map.Entry<Integer, ArrayList<Session>> group : groups.descendingMap().entrySet()) {
+	    int minutes = group.getKey();
+	    if (minutes * 2 <= longestBlock)
+		break;
+	    longSessions += group.getValue().size();
+	    int blocksPerTrack = 0;
+	    for (BlockFormat b : blocks) 
+		if (b.isAvailableForScheduling() && b.getMaxDuration() >= minutes)
+		    blocksPerTrack++;
+	    bound = Math.max(bound, (longSessions + blocksPerTrack - 1) / blocksPerTrack);
+	}
+	return (int)Math.max(1, bound);
+    }
 
 }
@@ -24,6 +24,7 @@ public class Session {
     private int minutes;
     private Integer startOffset;
     private boolean isBlockLevelSession;
+    private int number = -1;
     
     /*
      * Decode a line containing Session name and time length
@@ -168,6 +169,20 @@ public class Session {
     public void setBlockLevelSession(boolean isBlockLevelSession) {
         this.isBlockLevelSession = isBlockLevelSession;
     }
+
+    /**
+     * @return the number given by the Schedule holding this Session; -1 if none
+     */
+    int getNumber() {
+	return number;
+    }
+
+    /**
+     * @param number the number given by the Schedule holding this Session
+     */
+    void setNumber(int number) {
+	this.number = number;
+    }
     
 
 }
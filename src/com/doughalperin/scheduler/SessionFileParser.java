@@ -0,0 +1,475 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads Sessions from a file by memory-mapping it and scanning the raw bytes, rather than decoding each line to a String
+ * and matching it against {@link Session#LINE_PATTERN}.
+ * <p>
+ * Lines are recognized by a hand-written state machine that accepts exactly what
+ * {@link Session#getInstanceFromString(String)} accepts and produces the same Sessions and the same error messages.  Only
+ * Session names, and lines that fail, are decoded to Strings.  The input must use an ASCII-compatible encoding such as
+ * UTF-8.
+ * </p>
+ * <p>
+ * Lines end with a line feed, a carriage return, or a carriage return followed by a line feed, as with
+ * {@link java.io.BufferedReader#readLine()}.  Errors give the number of the failing line, counting blank and comment
+ * lines.
+ * </p>
+ *
+ */
+public class SessionFileParser {
+
+    //largest piece of the file mapped at once
+    private static final int WINDOW_BYTES = 1 << 28;
+
+    private static final byte[] LIGHTNING = {'l', 'i', 'g', 'h', 't', 'n', 'i', 'n', 'g'};
+    private static final byte[] HOUR = {'h', 'o', 'u', 'r'};
+    private static final byte[] HR = {'h', 'r'};
+    private static final byte[] MINUTE = {'m', 'i', 'n', 'u', 't', 'e'};
+    private static final byte[] MIN = {'m', 'i', 'n'};
+
+    private final Charset charset;
+    //files of at least parallelMinBytes are parsed in chunks of about chunkBytes on up to parallelism processors
+    private final long parallelMinBytes;
+    private final int chunkBytes;
+    private final int parallelism;
+    private final ArrayList<Session> sessions;
+    //when reading into a table rather than into Sessions
+    private SessionTable table;
+    private byte[] scratch;
+    
+    //lines read so far and the first that failed, if any
+    private int lines;
+    private int failedLine;
+    private String failedText;
+    private IllegalArgumentException failure;
+
+    /**
+     * @param charset the encoding of the input; must be ASCII-compatible
+     */
+    public SessionFileParser(Charset charset) {
+	this(charset, Config.PARALLEL_PARSE_MIN_BYTES, Config.PARALLEL_PARSE_CHUNK_BYTES,
+		Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param charset the encoding of the input; must be ASCII-compatible
+     * @param parallelMinBytes smallest file split into chunks parsed concurrently
+     * @param chunkBytes least size of a chunk
+     * @param parallelism processors to use; a file is parsed in one piece if 1
+     */
+    SessionFileParser(Charset charset, long parallelMinBytes, int chunkBytes, int parallelism) {
+	if (chunkBytes <= 0 || parallelism <= 0)
+	    throw new IllegalArgumentException("Chunk size and parallelism must be greater than zero.");
+	this.charset = charset;
+	this.parallelMinBytes = parallelMinBytes;
+	this.chunkBytes = chunkBytes;
+	this.parallelism = parallelism;
+	sessions = new ArrayList<Session>();
+	scratch = new byte[256];
+    }
+
+    /**
+     * Reads every Session in a file.  Files of at least {@link Config#PARALLEL_PARSE_MIN_BYTES} are split into chunks at
+     * line boundaries that are parsed concurrently and merged back in file order.
+     *
+     * @param file complete path to file to read
+     * @return the Sessions in file order
+     * @throws IllegalArgumentException when file not found or lines of the file are not valid Session data; the message
+     * gives the line number within the file
+     * @throws IOException when errors occur in reading the file
+     */
+    public ArrayList<Session> parseFile(String file) throws IllegalArgumentException, IOException {
+	read(file);
+	return sessions;
+    }
+
+    /**
+     * Reads every Session in a file into a table, as {@link #parseFile(String)} does, so that no Session objects are
+     * kept
+     *
+     * @param file complete path to file to read
+     * @return the Sessions in file order
+     * @throws IllegalArgumentException when file not found or lines of the file are not valid Session data; the message
+     * gives the line number within the file
+     * @throws IOException when errors occur in reading the file
+     */
+    public SessionTable parseFileToTable(String file) throws IllegalArgumentException, IOException {
+	table = new SessionTable();
+	read(file);
+	return table;
+    }
+
+    private void read(String file) throws IllegalArgumentException, IOException {
+	RandomAccessFile raf;
+	try {
+	    raf = new RandomAccessFile(file, "r");
+	} catch (FileNotFoundException e) {
+	    throw new IllegalArgumentException("File " + file + " not found.", e);
+	}
+	try {
+	    FileChannel channel = raf.getChannel();
+	    long size = channel.size();
+	    boolean parallel = size >= parallelMinBytes && parallelism > 1;
+	    long position = 0;
+	    int window = WINDOW_BYTES;
+	    while (position < size) {
+		int length = (int)Math.min(window, size - position);
+		boolean last = position + length == size;
+		ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		int consumed = parallel ? parseChunks(buffer, length, last) : parse(buffer, 0, length, last);
+		throwIfFailed();
+		if (consumed == 0 && !last) {
+		    //a single line longer than the window
+		    if (window == Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Failed input line " + (lines + 1) + ": line too long");
+		    window = (int)Math.min(Integer.MAX_VALUE, window * 2L);
+		    continue;
+		}
+		position += consumed;
+	    }
+	} finally {
+	    raf.close();
+	}
+    }
+
+    /**
+     * Reads the Sessions in a buffer of complete lines, for example a request body
+     *
+     * @param buffer the input from its position to its limit
+     * @return the Sessions in input order
+     * @throws IllegalArgumentException when lines are not valid Session data
+     */
+    public ArrayList<Session> parse(ByteBuffer buffer) throws IllegalArgumentException {
+	parse(buffer, buffer.position(), buffer.limit(), true);
+	throwIfFailed();
+	return sessions;
+    }
+
+    /**
+     * Splits the complete lines of a buffer into chunks that are parsed concurrently, each by its own parser, and then
+     * merges their Sessions and line counts in order.
+     *
+     * @param buffer the input starting at index 0
+     * @param limit end of the input in the buffer
+     * @param endOfInput whether the buffer ends the input; if not a trailing partial line is left for the next buffer
+     * @return number of bytes consumed
+     * @throws IOException if interrupted while waiting for the chunks
+     */
+    private int parseChunks(final ByteBuffer buffer, int limit, boolean endOfInput) throws IOException {
+	//chunks end just after a line feed so none splits a line
+	int end = limit;
+	if (!endOfInput) {
+	    while (end > 0 && buffer.get(end - 1) != '\n')
+		end--;
+	    if (end == 0)
+		//no line feeds at all
+		return parse(buffer, 0, limit, false);
+	}
+	int count = (int)Math.min(parallelism * 4L, end / chunkBytes);
+	if (count <= 1)
+	    return parse(buffer, 0, end, true);
+
+	ArrayList<Callable<SessionFileParser>> tasks = new ArrayList<Callable<SessionFileParser>>();
+	int from = 0;
+	for (int j = 1; j <= count; j++) {
+	    int to = j == count ? end : Math.max(from, (int)((long)end * j / count));
+	    while (to < end && (to == 0 || buffer.get(to - 1) != '\n'))
+		to++;
+	    if (to == from)
+		continue;
+	    final int chunkStart = from;
+	    final int chunkEnd = to;
+	    tasks.add(new Callable<SessionFileParser>() {
+		@Override
+		public SessionFileParser call() {
+		    SessionFileParser chunk = new SessionFileParser(charset);
+		    if (table != null)
+			chunk.table = new SessionTable();
+		    chunk.parse(buffer, chunkStart, chunkEnd, true);
+		    return chunk;
+		}
+	    });
+	    from = to;
+	}
+
+	List<Future<SessionFileParser>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+	for (Future<SessionFileParser> result : results) {
+	    SessionFileParser chunk;
+	    try {
+		chunk = result.get();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new InterruptedIOException("Interrupted while parsing.");
+	    } catch (ExecutionException e) {
+		//failed lines are recorded, so anything thrown is unexpected
+		if (e.getCause() instanceof Error)
+		    throw (Error)e.getCause();
+		throw new IllegalStateException(e.getCause());
+	    }
+	    //the first failure in file order wins
+	    if (chunk.failure != null) {
+		failedLine = lines + chunk.failedLine;
+		failedText = chunk.failedText;
+		failure = chunk.failure;
+		return end;
+	    }
+	    if (table != null)
+		table.addAll(chunk.table);
+	    else
+		sessions.addAll(chunk.sessions);
+	    lines += chunk.lines;
+	}
+	return end;
+    }
+
+    /**
+     * Reads the complete lines of a buffer, adding their Sessions.  Reading stops at the first line that fails.
+     *
+     * @param buffer the input
+     * @param begin index in the buffer at which a line starts
+     * @param limit end of the input in the buffer
+     * @param endOfInput whether the buffer ends the input; if not a trailing partial line is left for the next buffer
+     * @return number of bytes consumed from begin
+     */
+    private int parse(ByteBuffer buffer, int begin, int limit, boolean endOfInput) {
+	int start = begin;
+	for (int i = begin; i < limit; i++) {
+	    byte b = buffer.get(i);
+	    if (b != '\n' && b != '\r')
+		continue;
+	    int next = i + 1;
+	    if (b == '\r') {
+		if (next == limit && !endOfInput)
+		    //cannot yet tell whether a line feed follows
+		    return start - begin;
+		if (next < limit && buffer.get(next) == '\n')
+		    next++;
+	    }
+	    if (!addLine(buffer, start, i))
+		return start - begin;
+	    start = next;
+	    i = next - 1;
+	}
+	if (!endOfInput)
+	    return start - begin;
+	if (start < limit)
+	    addLine(buffer, start, limit);
+	return limit - begin;
+    }
+
+    /**
+     * Adds the Session on a line, if any
+     * 
+     * @return false if the line is not valid Session data
+     */
+    private boolean addLine(ByteBuffer buffer, int start, int end) {
+	lines++;
+	Session s;
+	try {
+	    s = parseLine(buffer, start, end);
+	} catch (IllegalArgumentException e) {
+	    failedLine = lines;
+	    failedText = decode(buffer, start, end);
+	    failure = e;
+	    return false;
+	}
+	//no value on the line
+	if (s == null)
+	    return true;
+	if (table != null)
+	    table.add(s.getName(), s.getMinutes());
+	else
+	    sessions.add(s);
+	return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the line that failed, if any
+     */
+    private void throwIfFailed() throws IllegalArgumentException {
+	if (failure != null)
+	    throw new IllegalArgumentException("Failed input line " + failedLine + ":" + failedText + "\n" 
+		    + failure.getMessage(), failure);
+    }
+
+    /**
+     * Decodes a line containing Session name and time length, as {@link Session#getInstanceFromString(String)} does
+     *
+     * @return the Session or null for blank and comment lines
+     * @throws IllegalArgumentException if the line is not valid Session data
+     */
+    private Session parseLine(ByteBuffer buffer, int start, int end) throws IllegalArgumentException {
+	//trim as String.trim does
+	while (start < end && (buffer.get(start) & 0xff) <= ' ')
+	    start++;
+	while (end > start && (buffer.get(end - 1) & 0xff) <= ' ')
+	    end--;
+	if (start == end || buffer.get(start) == '#')
+	    return null;
+
+	int firstDigit = start;
+	while (firstDigit < end && !isDigit(buffer.get(firstDigit)))
+	    firstDigit++;
+
+	//the time starts at the first digit, or is lightning if there are none
+	int timeStart = firstDigit;
+	if (firstDigit == end) {
+	    timeStart = end - LIGHTNING.length;
+	    if (timeStart <= start || !matchIgnoreCase(buffer, timeStart, end, LIGHTNING))
+		throw invalid(buffer, start, end);
+	}
+
+	//name is what precedes the whitespace before the time
+	int nameEnd = timeStart;
+	while (nameEnd > start && isSpace(buffer.get(nameEnd - 1)))
+	    nameEnd--;
+	if (nameEnd == timeStart || nameEnd == start)
+	    throw invalid(buffer, start, end);
+
+	int mins;
+	if (firstDigit == end)
+	    //decoding the time is case sensitive; any other case finds no hours or minutes
+	    mins = matchExact(buffer, timeStart, LIGHTNING) ? Config.LIGHTNING_MINUTES : 0;
+	else
+	    mins = parseTime(buffer, timeStart, end, start);
+
+	return new Session(decode(buffer, start, nameEnd), mins);
+    }
+
+    /**
+     * Matches (\d+)\s*(hour|hr)s? | (\d+)\s*(minute|min)s? | (\d+)\s*(hour|hr)s?\s*(\d+)\s*(minute|min)s? against the
+     * whole time, ignoring case
+     *
+     * @return the minutes of the time
+     * @throws IllegalArgumentException if the time does not match
+     */
+    private int parseTime(ByteBuffer buffer, int pos, int end, int lineStart) throws IllegalArgumentException {
+	int firstStart = pos;
+	while (pos < end && isDigit(buffer.get(pos)))
+	    pos++;
+	int firstEnd = pos;
+	pos = skipSpace(buffer, pos, end);
+
+	int unitEnd = matchUnit(buffer, pos, end, HOUR, HR);
+	if (unitEnd < 0) {
+	    //minutes only
+	    unitEnd = matchUnit(buffer, pos, end, MINUTE, MIN);
+	    if (unitEnd != end)
+		throw invalid(buffer, lineStart, end);
+	    return parseDigits(buffer, firstStart, firstEnd);
+	}
+	if (unitEnd == end)
+	    //hours only
+	    return parseDigits(buffer, firstStart, firstEnd) * 60;
+
+	//hours then minutes
+	pos = skipSpace(buffer, unitEnd, end);
+	int secondStart = pos;
+	while (pos < end && isDigit(buffer.get(pos)))
+	    pos++;
+	int secondEnd = pos;
+	if (secondEnd == secondStart)
+	    throw invalid(buffer, lineStart, end);
+	pos = skipSpace(buffer, pos, end);
+	if (matchUnit(buffer, pos, end, MINUTE, MIN) != end)
+	    throw invalid(buffer, lineStart, end);
+	int mins = parseDigits(buffer, firstStart, firstEnd) * 60;
+	return mins + parseDigits(buffer, secondStart, secondEnd);
+    }
+
+    /**
+     * Matches (long|short)s? ignoring case
+     *
+     * @return position after the unit or -1 if it does not match
+     */
+    private int matchUnit(ByteBuffer buffer, int pos, int end, byte[] longForm, byte[] shortForm) {
+	int after;
+	if (pos + longForm.length <= end && matchIgnoreCase(buffer, pos, pos + longForm.length, longForm))
+	    after = pos + longForm.length;
+	else if (pos + shortForm.length <= end && matchIgnoreCase(buffer, pos, pos + shortForm.length, shortForm))
+	    after = pos + shortForm.length;
+	else
+	    return -1;
+	if (after < end && toLower(buffer.get(after)) == 's')
+	    after++;
+	return after;
+    }
+
+    /**
+     * Converts digits as Integer.parseInt does, including its exception when the value is too large
+     */
+    private int parseDigits(ByteBuffer buffer, int start, int end) throws NumberFormatException {
+	long value = 0;
+	for (int i = start; i < end; i++) {
+	    value = value * 10 + (buffer.get(i) - '0');
+	    if (value > Integer.MAX_VALUE)
+		return Integer.parseInt(decode(buffer, start, end));
+	}
+	return (int)value;
+    }
+
+    private int skipSpace(ByteBuffer buffer, int pos, int end) {
+	while (pos < end && isSpace(buffer.get(pos)))
+	    pos++;
+	return pos;
+    }
+
+    private boolean matchIgnoreCase(ByteBuffer buffer, int start, int end, byte[] lower) {
+	for (int i = start; i < end; i++)
+	    if (toLower(buffer.get(i)) != lower[i - start])
+		return false;
+	return true;
+    }
+
+    private boolean matchExact(ByteBuffer buffer, int start, byte[] value) {
+	for (int i = 0; i < value.length; i++)
+	    if (buffer.get(start + i) != value[i])
+		return false;
+	return true;
+    }
+
+    private IllegalArgumentException invalid(ByteBuffer buffer, int start, int end) {
+	return new IllegalArgumentException("Invalid Session line [" + decode(buffer, start, end) + "]");
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+	int length = end - start;
+	if (scratch.length < length)
+	    scratch = new byte[Math.max(length, scratch.length * 2)];
+	buffer.get(start, scratch, 0, length);
+	return new String(scratch, 0, length, charset);
+    }
+
+    private static boolean isDigit(byte b) {
+	return b >= '0' && b <= '9';
+    }
+
+    /**
+     * @return whether the byte is matched by \s: space, tab, line feed, vertical tab, form feed or carriage return
+     */
+    private static boolean isSpace(byte b) {
+	return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    private static byte toLower(byte b) {
+	return b >= 'A' && b <= 'Z' ? (byte)(b + ('a' - 'A')) : b;
+    }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/**
+ * Tests SessionFileParser class against Session.getInstanceFromString
+ *
+ * @see SessionFileParser
+ */
+public class SessionFileParserTest {
+
+    final Charset utf8 = Charset.forName("UTF-8");
+
+    final String[] lines = {
+	    "Common Ruby Errors 2hrs45min",
+	    "Rails for Python Developers lightning",
+	    "Communicating Over Distance 60 min",
+	    "Accounting-Driven Development 4  HOURS  5 minS",
+	    "    Clojure Ate Scala (on my project) 45min",
+	    "Testy 3HRS",
+	    "a#### goo 002HRS",
+	    "beeee 1  mIN",
+	    "Caf\u00e9 Talks 1hour30minutes",
+	    "",
+	    "   ",
+	    "# a comment 30min"
+    };
+
+    final String[] failingLines = {
+	    "Overdoing it in P2ython 45min",
+	    "Ruby Errors from Mismatched Gem Versions 45minh",
+	    "Ruby on Rails: Why We Should Move On 60miin",
+	    "a#### goo 002HRS-6MINS",
+	    "    30MIN",
+	    "Shouting LIGHTNING",
+	    "Nothing 0min",
+	    "Too Big 99999999999min",
+	    "lightning"
+    };
+
+    /**
+     * Writes lines to a temporary file
+     */
+    private File write(String[] content, String terminator) throws IOException {
+	File f = File.createTempFile("sessions", ".txt");
+	f.deleteOnExit();
+	FileOutputStream out = new FileOutputStream(f);
+	try {
+	    for (String line : content)
+		out.write((line + terminator).getBytes(utf8));
+	} finally {
+	    out.close();
+	}
+	return f;
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFile(String)}.
+     */
+    @Test
+    public void testMatchesSessionLines() throws IOException {
+	String[] terminators = {"\n", "\r\n", "\r"};
+	for (String terminator : terminators) {
+	    File f = write(lines, terminator);
+	    ArrayList<Session> sessions = new SessionFileParser(utf8).parseFile(f.getPath());
+	    int i = 0;
+	    for (String line : lines) {
+		Session expected = Session.getInstanceFromString(line);
+		if (expected == null)
+		    continue;
+		Session actual = sessions.get(i++);
+		assertEquals(line, expected.getName(), actual.getName());
+		assertEquals(line, expected.getMinutes(), actual.getMinutes());
+	    }
+	    assertEquals(i, sessions.size());
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFileToTable(String)}.
+     */
+    @Test
+    public void testTableMatchesSessions() throws IOException {
+	File f = write(lines, "\n");
+	ArrayList<Session> sessions = new SessionFileParser(utf8).parseFile(f.getPath());
+	SessionTable table = new SessionFileParser(utf8).parseFileToTable(f.getPath());
+	assertEquals(sessions.size(), table.size());
+	for (int i = 0; i < sessions.size(); i++) {
+	    assertEquals(sessions.get(i).getName(), table.getName(i));
+	    assertEquals(sessions.get(i).getMinutes(), table.getMinutes(i));
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFile(String)}.
+     */
+    @Test
+    public void testSameErrors() throws IOException {
+	for (int i = 0; i < failingLines.length; i++) {
+	    String line = failingLines[i];
+	    String expected = null;
+	    try {
+		Session.getInstanceFromString(line);
+	    } catch (IllegalArgumentException e) {
+		expected = "Failed input line 2:" + line + "\n" + e.getMessage();
+	    }
+	    assertNotNull("case#" + i, expected);
+
+	    File f = write(new String[]{"Fine 30min", line, "Also Fine 5min"}, "\n");
+	    String actual = null;
+	    try {
+		new SessionFileParser(utf8).parseFile(f.getPath());
+	    } catch (IllegalArgumentException e) {
+		actual = e.getMessage();
+	    }
+	    assertEquals("case#" + i, expected, actual);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFile(String)}.
+     */
+    @Test
+    public void testErrorLineNumber() throws IOException {
+	String[] content = {"# header", "", "Fine 30min", "   ", "Broken 30mins5", "Also Fine 5min"};
+	String[] terminators = {"\n", "\r\n", "\r"};
+	for (String terminator : terminators) {
+	    File f = write(content, terminator);
+	    String actual = null;
+	    try {
+		new SessionFileParser(utf8).parseFile(f.getPath());
+	    } catch (IllegalArgumentException e) {
+		actual = e.getMessage();
+	    }
+	    assertNotNull(actual);
+	    assertTrue(actual, actual.startsWith("Failed input line 5:Broken 30mins5\n"));
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFile(String)}.
+     */
+    @Test
+    public void testFileNotFound() throws IOException {
+	boolean exceptionOccurred = false;
+	try {
+	    new SessionFileParser(utf8).parseFile("no/such/file.txt");
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionFileParser#parseFile(String)}, splitting a file into many
+     * small chunks.
+     */
+    @Test
+    public void testChunks() throws IOException {
+	String[] content = new String[200];
+	for (int i = 0; i < content.length; i++)
+	    content[i] = i % 7 == 3 ? "" : (char)('a' + i % 26) + " " + lines[i % 9];
+	String[] terminators = {"\n", "\r\n"};
+	for (String terminator : terminators) {
+	    File f = write(content, terminator);
+	    ArrayList<Session> expected = new SessionFileParser(utf8).parseFile(f.getPath());
+	    for (int chunk = 1; chunk <= 64; chunk *= 4) {
+		ArrayList<Session> actual = new SessionFileParser(utf8, 0, chunk, 4).parseFile(f.getPath());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+		    assertEquals(chunk + "#" + i, expected.get(i).getName(), actual.get(i).getName());
+		    assertEquals(chunk + "#" + i, expected.get(i).getMinutes(), actual.get(i).getMinutes());
+		}
+	    }
+
+	    //the first failure in file order, by its line in the file
+	    String[] failing = content.clone();
+	    failing[150] = "Broken 30mins5";
+	    failing[97] = "Broken Earlier 30mins5";
+	    f = write(failing, terminator);
+	    for (int chunk = 1; chunk <= 64; chunk *= 4) {
+		String actual = null;
+		try {
+		    new SessionFileParser(utf8, 0, chunk, 4).parseFile(f.getPath());
+		} catch (IllegalArgumentException e) {
+		    actual = e.getMessage();
+		}
+		assertNotNull(actual);
+		assertTrue(actual, actual.startsWith("Failed input line 98:Broken Earlier 30mins5\n"));
+	    }
+	}
+    }
+
+}
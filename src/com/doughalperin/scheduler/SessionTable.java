@@ -0,0 +1,392 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A compact table of Sessions for very large conferences.  Rather than one object per Session, the minutes and start
+ * offsets of all Sessions are held in int arrays and each name is stored once in a dictionary, Sessions sharing a name
+ * referring to the same entry.
+ * <p>
+ * Sessions are numbered from 0 in the order added.  {@link #group()} orders them by length with a counting sort over the
+ * range of minutes, and {@link SchedulingStrategy#assign(BlockFormat[], SessionTable)} places them without creating
+ * Session or Track objects.
+ * </p>
+ * <p>
+ * Note this is not thread-safe.
+ * </p>
+ *
+ * @see Session
+ */
+public class SessionTable {
+
+    /**
+     * Start offset of a Session not yet scheduled
+     */
+    public static final int UNSCHEDULED = -1;
+
+    //largest minutes for which groups are found by counting sort rather than by sorting the distinct lengths
+    private static final int COUNTING_SORT_MAX_MINUTES = 1 << 16;
+
+    private int size;
+    private int[] minutes;
+    private int[] nameIds;
+    private int[] startOffsets;
+    private final ArrayList<String> names;
+    private final HashMap<String, Integer> nameIndex;
+
+    /**
+     * Sessions of a table ordered by length: shortest first, and equal-length Sessions in the order they were added
+     */
+    public static class Groups {
+	private final int[] minutes;
+	private final int[] start;
+	private final int[] order;
+
+	Groups(int[] minutes, int[] start, int[] order) {
+	    this.minutes = minutes;
+	    this.start = start;
+	    this.order = order;
+	}
+
+	/**
+	 * @return number of distinct lengths
+	 */
+	public int count() {
+	    return minutes.length;
+	}
+
+	/**
+	 * @param g group number, 0 being the shortest
+	 * @return the length of the Sessions in the group
+	 */
+	public int getMinutes(int g) {
+	    return minutes[g];
+	}
+
+	/**
+	 * @param g group number
+	 * @return position in the order of the first Session of the group
+	 */
+	public int getStart(int g) {
+	    return start[g];
+	}
+
+	/**
+	 * @param g group number
+	 * @return position in the order just after the last Session of the group
+	 */
+	public int getEnd(int g) {
+	    return start[g + 1];
+	}
+
+	/**
+	 * @param k position in the order
+	 * @return the Session number at the position
+	 */
+	public int getSession(int k) {
+	    return order[k];
+	}
+    }
+
+    /**
+     * Instantiates an empty table
+     */
+    public SessionTable() {
+	this(16);
+    }
+
+    /**
+     * Instantiates an empty table
+     *
+     * @param initialCapacity the number of Sessions expected; the table grows as needed
+     */
+    public SessionTable(int initialCapacity) {
+	int capacity = Math.max(1, initialCapacity);
+	minutes = new int[capacity];
+	nameIds = new int[capacity];
+	startOffsets = new int[capacity];
+	names = new ArrayList<String>();
+	nameIndex = new HashMap<String, Integer>();
+	size = 0;
+    }
+
+    /**
+     * @param sessions the Sessions to copy
+     * @return a table holding the names and lengths of the Sessions in order
+     */
+    public static SessionTable of(Session[] sessions) {
+	SessionTable table = new SessionTable(sessions.length);
+	for (Session s : sessions)
+	    table.add(s.getName(), s.getMinutes());
+	return table;
+    }
+
+    /**
+     * Adds a Session
+     *
+     * @param name what the session is called
+     * @param mins how long the session is in minutes
+     * @return the number of the new Session
+     * @throws IllegalArgumentException if Name is not specified or minutes are less than or equal to zero
+     */
+    public int add(String name, int mins) throws IllegalArgumentException {
+	if (name == null || name.trim().length() == 0)
+	    throw new IllegalArgumentException("Name must be specified and not be whitespace.");
+	if (mins <= 0)
+	    throw new IllegalArgumentException("Minutes must be greater than zero.");
+	return append(nameId(name.trim()), mins);
+    }
+
+    /**
+     * Adds all the Sessions of another table, in order
+     *
+     * @param other the table to copy
+     */
+    public void addAll(SessionTable other) {
+	int[] ids = new int[other.names.size()];
+	for (int j = 0; j < ids.length; j++)
+	    ids[j] = nameId(other.names.get(j));
+	for (int i = 0; i < other.size; i++)
+	    append(ids[other.nameIds[i]], other.minutes[i]);
+    }
+
+    private int nameId(String name) {
+	Integer id = nameIndex.get(name);
+	if (id == null) {
+	    id = names.size();
+	    names.add(name);
+	    nameIndex.put(name, id);
+	}
+	return id;
+    }
+
+    private int append(int nameId, int mins) {
+	if (size == minutes.length) {
+	    int capacity = (int)Math.min(Integer.MAX_VALUE - 8, size * 2L);
+	    minutes = Arrays.copyOf(minutes, capacity);
+	    nameIds = Arrays.copyOf(nameIds, capacity);
+	    startOffsets = Arrays.copyOf(startOffsets, capacity);
+	}
+	minutes[size] = mins;
+	nameIds[size] = nameId;
+	startOffsets[size] = UNSCHEDULED;
+	return size++;
+    }
+
+    /**
+     * @return the number of Sessions
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * @return the number of distinct names
+     */
+    public int getNameCount() {
+	return names.size();
+    }
+
+    /**
+     * @param i Session number
+     * @return the length of the Session in minutes
+     */
+    public int getMinutes(int i) {
+	checkIndex(i);
+	return minutes[i];
+    }
+
+    /**
+     * @param i Session number
+     * @return the name of the Session
+     */
+    public String getName(int i) {
+	checkIndex(i);
+	return names.get(nameIds[i]);
+    }
+
+    /**
+     * @param i Session number
+     * @return the number of the name of the Session, from 0 in order of first use
+     */
+    int getNameId(int i) {
+	checkIndex(i);
+	return nameIds[i];
+    }
+
+    /**
+     * @param id name number
+     * @return the name
+     */
+    String getNameById(int id) {
+	return names.get(id);
+    }
+
+    /**
+     * @param i Session number
+     * @return whether the Session has a start offset
+     */
+    public boolean isScheduled(int i) {
+	checkIndex(i);
+	return startOffsets[i] != UNSCHEDULED;
+    }
+
+    /**
+     * @param i Session number
+     * @return the offset in minutes from time zero of the beginning of the session
+     * @throws IllegalStateException if the Session has not yet been scheduled into a time slot
+     */
+    public int getStartOffset(int i) throws IllegalStateException {
+	checkIndex(i);
+	if (startOffsets[i] == UNSCHEDULED)
+	    throw new IllegalStateException("Start Offset is not yet set.");
+	return startOffsets[i];
+    }
+
+    /**
+     * @param i Session number
+     * @param offset the offset in minutes from time zero of the beginning of the session
+     */
+    void setStartOffset(int i, int offset) {
+	startOffsets[i] = offset;
+    }
+
+    /**
+     * @param i Session number
+     * @return a new Session with the name, length and any start offset of the Session
+     */
+    public Session getSession(int i) {
+	Session s = new Session(getName(i), minutes[i]);
+	if (startOffsets[i] != UNSCHEDULED)
+	    s.setStartOffset(startOffsets[i]);
+	return s;
+    }
+
+    private void checkIndex(int i) {
+	if (i < 0 || i >= size)
+	    throw new IndexOutOfBoundsException("Session " + i + " of " + size);
+    }
+
+    /**
+     * Orders the Sessions by length.  When the longest Session is at most {@value #COUNTING_SORT_MAX_MINUTES} minutes,
+     * this is a counting sort costing O(sessions + minutes) with no boxing.
+     *
+     * @return the Sessions grouped by length
+     */
+    public Groups group() {
+	int max = 0;
+	for (int i = 0; i < size; i++)
+	    max = Math.max(max, minutes[i]);
+
+	//distinct lengths, ascending, and the group of each length
+	int[] distinct;
+	int[] groupOf = null;
+	if (max <= COUNTING_SORT_MAX_MINUTES) {
+	    int[] count = new int[max + 1];
+	    for (int i = 0; i < size; i++)
+		count[minutes[i]]++;
+	    int types = 0;
+	    for (int m = 0; m <= max; m++)
+		if (count[m] > 0)
+		    types++;
+	    distinct = new int[types];
+	    groupOf = count;
+	    for (int m = 0, g = 0; m <= max; m++)
+		if (count[m] > 0) {
+		    distinct[g] = m;
+		    groupOf[m] = g++;
+		}
+	} else {
+	    int[] sorted = Arrays.copyOf(minutes, size);
+	    Arrays.sort(sorted);
+	    int types = 0;
+	    for (int i = 0; i < size; i++)
+		if (i == 0 || sorted[i] != sorted[i - 1])
+		    sorted[types++] = sorted[i];
+	    distinct = Arrays.copyOf(sorted, types);
+	}
+
+	int types = distinct.length;
+	int[] start = new int[types + 1];
+	int[] group = new int[size];
+	for (int i = 0; i < size; i++) {
+	    group[i] = groupOf != null ? groupOf[minutes[i]] : Arrays.binarySearch(distinct, minutes[i]);
+	    start[group[i] + 1]++;
+	}
+	for (int g = 0; g < types; g++)
+	    start[g + 1] += start[g];
+	int[] next = Arrays.copyOf(start, types);
+	int[] order = new int[size];
+	for (int i = 0; i < size; i++)
+	    order[next[group[i]]++] = i;
+	return new Groups(distinct, start, order);
+    }
+
+    /**
+     * Sets the start offset of every Session from its slot, timing the Blocks as {@link Track#setSchedule(int[])}
+     * does.  Within a Block, Sessions run longest first and equal-length Sessions in the order added.
+     *
+     * @param blocks time blocks in which Tracks are divided
+     * @param slots the slot of each Session: track * number of working blocks + working block
+     * @return the number of Tracks used; at least 1
+     * @throws IllegalArgumentException if there is not one valid slot per Session
+     * @see SchedulingStrategy#assign(BlockFormat[], SessionTable)
+     */
+    public int setSchedule(BlockFormat[] blocks, int[] slots) throws IllegalArgumentException {
+	if (slots.length != size)
+	    throw new IllegalArgumentException("Expected " + size + " slots but found " + slots.length);
+	int workingCount = 0;
+	for (BlockFormat b : blocks)
+	    if (b.isAvailableForScheduling())
+		workingCount++;
+	int tracks = 1;
+	for (int slot : slots) {
+	    if (slot < 0 || workingCount == 0)
+		throw new IllegalArgumentException("Invalid slot " + slot);
+	    tracks = Math.max(tracks, slot / workingCount + 1);
+	}
+
+	//most minutes used in each block across tracks
+	int[] used = new int[tracks * workingCount];
+	for (int i = 0; i < size; i++)
+	    used[slots[i]] += minutes[i];
+	int[] maxBlockUsedMinutes = new int[blocks.length];
+	int[] blockStart = new int[blocks.length];
+	int[] workingStart = new int[workingCount];
+	for (int i = 0, w = 0; i < blocks.length; i++) {
+	    BlockFormat b = blocks[i];
+	    if (b.isAvailableForScheduling()) {
+		for (int t = 0; t < tracks; t++)
+		    maxBlockUsedMinutes[i] = Math.max(maxBlockUsedMinutes[i], used[t * workingCount + w]);
+	    } else
+		maxBlockUsedMinutes[i] = b.getMinDuration();
+
+	    //the start of a block is the same in every track
+	    if (i == 0 || b.isFixedStart())
+		blockStart[i] = b.getStartMinuteOffset();
+	    else
+		blockStart[i] = Math.max(b.getStartMinuteOffset(),
+			blocks[i - 1].getStartMinuteOffset() + maxBlockUsedMinutes[i - 1]);
+	    if (b.isAvailableForScheduling())
+		workingStart[w++] = blockStart[i];
+	}
+
+	int[] offset = new int[tracks * workingCount];
+	for (int slot = 0; slot < offset.length; slot++)
+	    offset[slot] = workingStart[slot % workingCount];
+	Groups groups = group();
+	for (int g = groups.count() - 1; g >= 0; g--)
+	    for (int k = groups.getStart(g); k < groups.getEnd(g); k++) {
+		int i = groups.getSession(k);
+		startOffsets[i] = offset[slots[i]];
+		offset[slots[i]] += minutes[i];
+	    }
+	return tracks;
+    }
+
+}
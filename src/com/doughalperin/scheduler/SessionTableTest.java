@@ -0,0 +1,134 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests SessionTable class
+ *
+ * @see SessionTable
+ */
+public class SessionTableTest {
+
+    final int[] durations = {Config.LIGHTNING_MINUTES, 30, 45, 60, 90, 200};
+
+    private Session[] makeSessions(int count, long seed) {
+	Random random = new Random(seed);
+	Session[] sessions = new Session[count];
+	for (int i = 0; i < count; i++)
+	    sessions[i] = new Session("Session" + random.nextInt(count), durations[random.nextInt(durations.length)]);
+	return sessions;
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionTable#add(String, int)}.
+     */
+    @Test
+    public void testAdd() {
+	SessionTable table = new SessionTable(1);
+	assertEquals(0, table.add("  Talk ", 30));
+	assertEquals(1, table.add("Talk", 45));
+	assertEquals(2, table.add("Other", 5));
+	assertEquals(3, table.size());
+	assertEquals(2, table.getNameCount());
+	assertEquals("Talk", table.getName(1));
+	assertEquals(45, table.getMinutes(1));
+	assertFalse(table.isScheduled(1));
+
+	String[] names = {null, "  ", "Fine"};
+	int[] minutes = {30, 30, 0};
+	for (int i = 0; i < names.length; i++) {
+	    boolean exceptionOccurred = false;
+	    try {
+		table.add(names[i], minutes[i]);
+	    } catch (IllegalArgumentException e) {
+		// what we expect
+		exceptionOccurred = true;
+	    }
+	    assertTrue("Unexpectedly succeeded for case#" + i, exceptionOccurred);
+	}
+	assertEquals(3, table.size());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SessionTable#group()}.
+     */
+    @Test
+    public void testGroup() {
+	//the last case is beyond the counting sort range
+	int[][] cases = {{30, 5, 30, 60, 5}, {}, {7}, {100000, 3, 100000, 200000, 3}};
+	for (int[] minutes : cases) {
+	    SessionTable table = new SessionTable();
+	    for (int m : minutes)
+		table.add("S", m);
+	    SessionTable.Groups groups = table.group();
+	    int k = 0;
+	    int previous = 0;
+	    for (int g = 0; g < groups.count(); g++) {
+		assertTrue(groups.getMinutes(g) > previous);
+		previous = groups.getMinutes(g);
+		assertEquals(k, groups.getStart(g));
+		int last = -1;
+		for (; k < groups.getEnd(g); k++) {
+		    int i = groups.getSession(k);
+		    assertEquals(groups.getMinutes(g), table.getMinutes(i));
+		    assertTrue("stable", i > last);
+		    last = i;
+		}
+	    }
+	    assertEquals(minutes.length, k);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#assign(BlockFormat[], SessionTable)}
+     * and {@link com.doughalperin.scheduler.SessionTable#setSchedule(BlockFormat[], int[])}.
+     */
+    @Test
+    public void testMatchesTracks() {
+	SchedulingStrategy[] strategies = {new FirstFitDecreasingStrategy(), new BestFitDecreasingStrategy()};
+	for (SchedulingStrategy strategy : strategies)
+	    for (int seed = 0; seed < 20; seed++) {
+		Session[] sessions = makeSessions(1 + seed * 37, seed);
+		SessionTable table = SessionTable.of(sessions);
+
+		Schedule schedule = new Schedule();
+		schedule.setBlocks(Config.BLOCKS);
+		schedule.setStrategy(strategy);
+		for (Session s : sessions)
+		    schedule.addSession(s);
+		ScheduleSnapshot snapshot = schedule.makeSchedule();
+
+		int[] slots = strategy.assign(Config.BLOCKS, table);
+		assertEquals("seed#" + seed, snapshot.getTrackCount(), table.setSchedule(Config.BLOCKS, slots));
+		for (int i = 0; i < sessions.length; i++)
+		    assertEquals("seed#" + seed + " session#" + i, snapshot.getSession(i).getStartOffset(),
+			    table.getStartOffset(i));
+	    }
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.FirstFitDecreasingStrategy#assign(BlockFormat[], SessionTable)}.
+     */
+    @Test
+    public void testAssignTooLong() {
+	SessionTable table = new SessionTable();
+	table.add("Fine", 30);
+	table.add("Too Long", 500);
+	boolean exceptionOccurred = false;
+	try {
+	    new FirstFitDecreasingStrategy().assign(Config.BLOCKS, table);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Unexpectedly succeeded", exceptionOccurred);
+    }
+
+}
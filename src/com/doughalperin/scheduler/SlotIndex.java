@@ -0,0 +1,50 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+/**
+ * The residual capacities of a growing sequence of slots (for example every working ScheduleBlock of every Track, in
+ * Track order) and the query first fit placement asks of them: which is the first slot with at least N minutes left.
+ *
+ * @see CapacityIndex
+ * @see ResidualScan
+ */
+interface SlotIndex {
+
+    /**
+     * @return the number of slots
+     */
+    int size();
+
+    /**
+     * Appends a slot to the end
+     *
+     * @param value the residual capacity of the new slot
+     * @return the position of the new slot
+     */
+    int add(int value);
+
+    /**
+     * @param slot position of the slot
+     * @return the residual capacity of the slot
+     */
+    int get(int slot);
+
+    /**
+     * Updates the residual capacity of a slot
+     *
+     * @param slot position of the slot
+     * @param value the new residual capacity
+     */
+    void set(int slot, int value);
+
+    /**
+     * Finds the lowest positioned slot with a residual capacity of at least the value
+     *
+     * @param value the capacity required
+     * @return the position of the slot or -1 if no slot has enough capacity
+     */
+    int firstAtLeast(int value);
+
+}
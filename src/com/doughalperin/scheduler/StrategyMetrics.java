@@ -0,0 +1,227 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Scheduling counters of one SchedulingStrategy class, published as the MBean
+ * <i>com.doughalperin.scheduler:type=StrategyMetrics,name=</i>&lt;class name&gt;.
+ * <p>
+ * A strategy counts into a {@link Run} of its own while it works and adds the Run to these counters once at the end,
+ * so placing Sessions touches no shared state.  The counters are LongAdders, so runs on many threads add to them
+ * without locking.
+ * </p>
+ *
+ * @see SchedulingStrategy#getMetrics()
+ */
+public class StrategyMetrics implements StrategyMetricsMBean {
+
+    private static final ConcurrentHashMap<Class<?>, StrategyMetrics> metrics = 
+	    new ConcurrentHashMap<Class<?>, StrategyMetrics>();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder placementAttempts = new LongAdder();
+    private final LongAdder blocksScanned = new LongAdder();
+    private final LongAdder maxDurationFallbacks = new LongAdder();
+    private final LongAdder tracksCreated = new LongAdder();
+    private final LongAdder groupNanos = new LongAdder();
+    private final LongAdder placeNanos = new LongAdder();
+    private final LongAdder finalizeNanos = new LongAdder();
+    private final LongAdder blockMinutesUsed = new LongAdder();
+    private final LongAdder blockMaxMinutes = new LongAdder();
+
+    /**
+     * Counts of a single run of a strategy, kept by the thread doing the run
+     */
+    public static class Run {
+	private long placementAttempts;
+	private long blocksScanned;
+	private long maxDurationFallbacks;
+	private long tracksCreated;
+	private long groupNanos;
+	private long placeNanos;
+	private boolean failed;
+	private final long start = System.nanoTime();
+
+	/**
+	 * Counts an attempt to place Sessions
+	 *
+	 * @param blocks the number of Blocks examined in the attempt
+	 */
+	public void attempt(int blocks) {
+	    placementAttempts++;
+	    blocksScanned += blocks;
+	}
+
+	/**
+	 * Counts a placement that extended a Block past its minimum duration
+	 */
+	public void maxDurationFallback() {
+	    maxDurationFallbacks++;
+	}
+
+	/**
+	 * Counts placements that extended Blocks past their minimum duration
+	 *
+	 * @param count the number of placements
+	 */
+	public void maxDurationFallbacks(int count) {
+	    maxDurationFallbacks += count;
+	}
+
+	/**
+	 * @param nanos time spent grouping Sessions
+	 */
+	public void grouped(long nanos) {
+	    groupNanos += nanos;
+	}
+
+	/**
+	 * Marks the end of the run
+	 *
+	 * @param tracks the number of Tracks in the schedule, or a negative number if the run failed
+	 */
+	public void finish(int tracks) {
+	    placeNanos = System.nanoTime() - start - groupNanos;
+	    if (tracks < 0)
+		failed = true;
+	    else
+		tracksCreated = tracks;
+	}
+    }
+
+    /**
+     * @param strategy a SchedulingStrategy class
+     * @return the counters of the class, registered as an MBean when first asked for
+     */
+    public static StrategyMetrics forStrategy(Class<? extends SchedulingStrategy> strategy) {
+	StrategyMetrics m = metrics.get(strategy);
+	if (m != null)
+	    return m;
+	StrategyMetrics created = new StrategyMetrics();
+	m = metrics.putIfAbsent(strategy, created);
+	if (m != null)
+	    return m;
+	try {
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(created, 
+		    new ObjectName("com.doughalperin.scheduler:type=StrategyMetrics,name=" + ObjectName.quote(strategy.getName())));
+	} catch (JMException e) {
+	    //still counted, just not published; for example when the name is taken by another class loader
+	}
+	return created;
+    }
+
+    /**
+     * Adds the counts of a finished run
+     *
+     * @param run the run
+     */
+    public void record(Run run) {
+	runs.increment();
+	if (run.failed)
+	    failures.increment();
+	placementAttempts.add(run.placementAttempts);
+	blocksScanned.add(run.blocksScanned);
+	maxDurationFallbacks.add(run.maxDurationFallbacks);
+	tracksCreated.add(run.tracksCreated);
+	groupNanos.add(run.groupNanos);
+	placeNanos.add(run.placeNanos);
+    }
+
+    /**
+     * Adds the time spent giving Sessions their times and how full the working Blocks are
+     *
+     * @param nanos time spent
+     * @param tracks the finalized Tracks
+     */
+    public void recordFinalize(long nanos, Track[] tracks) {
+	finalizeNanos.add(nanos);
+	long used = 0;
+	long max = 0;
+	for (Track t : tracks)
+	    for (ScheduleBlock wb : t.getWorkingBlocks()) {
+		used += wb.getUsedMinutes();
+		max += wb.getMaxDuration();
+	    }
+	blockMinutesUsed.add(used);
+	blockMaxMinutes.add(max);
+    }
+
+    @Override
+    public long getRuns() {
+	return runs.sum();
+    }
+
+    @Override
+    public long getFailures() {
+	return failures.sum();
+    }
+
+    @Override
+    public long getPlacementAttempts() {
+	return placementAttempts.sum();
+    }
+
+    @Override
+    public long getBlocksScanned() {
+	return blocksScanned.sum();
+    }
+
+    @Override
+    public long getMaxDurationFallbacks() {
+	return maxDurationFallbacks.sum();
+    }
+
+    @Override
+    public long getTracksCreated() {
+	return tracksCreated.sum();
+    }
+
+    @Override
+    public long getGroupNanos() {
+	return groupNanos.sum();
+    }
+
+    @Override
+    public long getPlaceNanos() {
+	return placeNanos.sum();
+    }
+
+    @Override
+    public long getFinalizeNanos() {
+	return finalizeNanos.sum();
+    }
+
+    @Override
+    public long getBlockMinutesUsed() {
+	return blockMinutesUsed.sum();
+    }
+
+    @Override
+    public long getBlockMaxMinutes() {
+	return blockMaxMinutes.sum();
+    }
+
+    @Override
+    public double getMaxDurationUtilization() {
+	long max = blockMaxMinutes.sum();
+	return max == 0 ? 0 : (double)blockMinutesUsed.sum() / max;
+    }
+
+    @Override
+    public void reset() {
+	LongAdder[] all = {runs, failures, placementAttempts, blocksScanned, maxDurationFallbacks, tracksCreated,
+		groupNanos, placeNanos, finalizeNanos, blockMinutesUsed, blockMaxMinutes};
+	for (LongAdder a : all)
+	    a.reset();
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+/**
+ * Management interface of the scheduling counters of one SchedulingStrategy class, as published over JMX
+ *
+ * @see StrategyMetrics
+ */
+public interface StrategyMetricsMBean {
+
+    /**
+     * @return runs of the strategy, including those that failed
+     */
+    long getRuns();
+
+    /**
+     * @return runs that could not schedule every Session
+     */
+    long getFailures();
+
+    /**
+     * @return attempts to place a Session or a batch of equal-length Sessions
+     */
+    long getPlacementAttempts();
+
+    /**
+     * @return Blocks examined while placing; for strategies that keep an index of Blocks, index lookups
+     */
+    long getBlocksScanned();
+
+    /**
+     * @return placements that had to extend a Block past its minimum duration
+     */
+    long getMaxDurationFallbacks();
+
+    /**
+     * @return Tracks in the schedules made
+     */
+    long getTracksCreated();
+
+    /**
+     * @return nanoseconds spent grouping Sessions by length
+     */
+    long getGroupNanos();
+
+    /**
+     * @return nanoseconds spent placing Sessions, not counting grouping
+     */
+    long getPlaceNanos();
+
+    /**
+     * @return nanoseconds spent giving Sessions their times once placed
+     */
+    long getFinalizeNanos();
+
+    /**
+     * @return minutes used in working Blocks of finalized schedules
+     */
+    long getBlockMinutesUsed();
+
+    /**
+     * @return maximum duration in minutes of the working Blocks of finalized schedules
+     */
+    long getBlockMaxMinutes();
+
+    /**
+     * @return the fraction of the maximum duration of working Blocks used, or 0 before any schedule is finalized
+     */
+    double getMaxDurationUtilization();
+
+    /**
+     * Sets every counter back to zero
+     */
+    void reset();
+
+}
@@ -0,0 +1,130 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * Tests StrategyMetrics class
+ *
+ * @see StrategyMetrics
+ */
+public class StrategyMetricsTest {
+
+    /**
+     * Written against the API before schedule existed: overrides apply alone
+     */
+    static class ApplyOnlyStrategy extends SchedulingStrategy {
+	@Override
+	public Track[] apply(BlockFormat[] blocks, Session[] sessions) throws IllegalArgumentException {
+	    return new FirstFitDecreasingStrategy().apply(blocks, sessions);
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.StrategyMetrics#record(StrategyMetrics.Run)}.
+     */
+    @Test
+    public void testCountsRuns() throws Exception {
+	SchedulingStrategy[] strategies = {new BruteForceStrategy(), new FirstFitDecreasingStrategy(),
+		new BestFitDecreasingStrategy(), new PatternStrategy()};
+	for (SchedulingStrategy strategy : strategies) {
+	    String name = strategy.getClass().getSimpleName();
+	    StrategyMetrics metrics = strategy.getMetrics();
+	    assertSame(metrics, StrategyMetrics.forStrategy(strategy.getClass()));
+	    metrics.reset();
+
+	    Schedule schedule = new Schedule();
+	    schedule.setBlocks(Config.BLOCKS);
+	    schedule.setStrategy(strategy);
+	    for (Session s : new ConferenceGenerator(ConferenceGenerator.Distribution.LONG_TAIL, 1).nextSessions(200))
+		schedule.addSession(s);
+	    schedule.makeSchedule();
+
+	    assertEquals(name, 1, metrics.getRuns());
+	    assertEquals(name, 0, metrics.getFailures());
+	    assertEquals(name, schedule.getTracks().length, metrics.getTracksCreated());
+	    assertTrue(name, metrics.getPlacementAttempts() > 0);
+	    assertTrue(name, metrics.getBlocksScanned() >= metrics.getPlacementAttempts());
+	    assertTrue(name, metrics.getMaxDurationFallbacks() > 0);
+	    assertTrue(name, metrics.getGroupNanos() > 0);
+	    assertTrue(name, metrics.getPlaceNanos() > 0);
+	    assertTrue(name, metrics.getFinalizeNanos() > 0);
+	    assertTrue(name, metrics.getMaxDurationUtilization() > 0 && metrics.getMaxDurationUtilization() <= 1);
+
+	    //published over JMX
+	    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+	    ObjectName objectName = new ObjectName("com.doughalperin.scheduler:type=StrategyMetrics,name=" 
+		    + ObjectName.quote(strategy.getClass().getName()));
+	    assertEquals(name, 1L, server.getAttribute(objectName, "Runs"));
+	}
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.StrategyMetrics#record(StrategyMetrics.Run)}.
+     */
+    @Test
+    public void testCountsFailures() {
+	SchedulingStrategy strategy = new FirstFitDecreasingStrategy();
+	StrategyMetrics metrics = strategy.getMetrics();
+	metrics.reset();
+	try {
+	    strategy.apply(Config.BLOCKS, new Session[] {new Session("Too Long", 500)});
+	    fail("Unexpectedly succeeded");
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	}
+	assertEquals(1, metrics.getRuns());
+	assertEquals(1, metrics.getFailures());
+	assertEquals(0, metrics.getTracksCreated());
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SchedulingStrategy#apply(BlockFormat[], Session[])}.
+     */
+    @Test
+    public void testNestedRunsCountOnce() {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.ADVERSARIAL, 2).nextSessions(60);
+	StrategyMetrics greedy = new FirstFitDecreasingStrategy().getMetrics();
+	SchedulingStrategy strategy = new BranchAndBoundStrategy(50);
+	StrategyMetrics metrics = strategy.getMetrics();
+	greedy.reset();
+	metrics.reset();
+	strategy.apply(Config.BLOCKS, sessions);
+	assertEquals(0, greedy.getRuns());
+	assertEquals(1, metrics.getRuns());
+	assertTrue(metrics.getPlacementAttempts() > 0);
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.SchedulingStrategy#schedule(BlockFormat[], Session[], StrategyMetrics.Run)}.
+     */
+    @Test
+    public void testApplyOverridden() {
+	Session[] sessions = new ConferenceGenerator(ConferenceGenerator.Distribution.UNIFORM, 4).nextSessions(100);
+	SchedulingStrategy strategy = new ApplyOnlyStrategy();
+	strategy.getMetrics().reset();
+
+	Schedule schedule = new Schedule();
+	schedule.setBlocks(Config.BLOCKS);
+	schedule.setStrategy(strategy);
+	for (Session s : sessions)
+	    schedule.addSession(s);
+	int tracks = schedule.makeSchedule().getTrackCount();
+	assertEquals(tracks, new FirstFitDecreasingStrategy().apply(Config.BLOCKS, sessions).length);
+
+	int[] slots = strategy.assign(Config.BLOCKS, SessionTable.of(sessions));
+	assertArrayEquals(new FirstFitDecreasingStrategy().assign(Config.BLOCKS, SessionTable.of(sessions)), slots);
+	//the overriding apply records nothing of its own, and assign records its run
+	assertEquals(1, strategy.getMetrics().getRuns());
+    }
+
+}
@@ -8,7 +8,16 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({TimeOffsetTest.class, BlockFormatTest.class, ConfigTest.class, 
-    SessionTest.class,TrackTest.class
+    SessionTest.class,TrackTest.class, FirstFitDecreasingStrategyTest.class,
+    BestFitDecreasingStrategyTest.class, BranchAndBoundStrategyTest.class,
+    PatternStrategyTest.class, PortfolioStrategyTest.class, SessionFileParserTest.class,
+    ScheduleTest.class, SessionTableTest.class,
+    ScheduleRendererTest.class, ConferenceGeneratorTest.class,
+    StrategyMetricsTest.class, ScheduleEventsTest.class, ScheduleCacheTest.class,
+    ScheduleFileTest.class, ScheduleIndexTest.class, ScheduleServerTest.class,
+    BatchSchedulerTest.class, ScheduleSnapshotTest.class,
+    PublishedScheduleTest.class, BlockTemplateTest.class, TrackStoreTest.class,
+    CapacityIndexTest.class, ResidualScanTest.class
     })
 
 /**
@@ -24,6 +24,9 @@ public class Track {
     //original blocks
     private BlockFormat[] originalBlocks;
     
+    //checked blocks shared by Tracks made alike
+    private final BlockTemplate template;
+    
     //schedule blocks
     private ScheduleBlock[] scheduleBlocks;
     
@@ -37,27 +40,30 @@ public class Track {
      * @throws IllegalArgumentException if the blocks are invalid, for example if they are not sequential in time.
      */
     public Track(BlockFormat[] blocks) throws IllegalArgumentException {
-	
-	BlockFormat.checkBlockOrder(blocks);
+	this(new BlockTemplate(blocks));
 	originalBlocks = blocks;
+    }
+    
+    /**
+     * Constructs a new Track from Blocks already checked, which is how strategies making many Tracks make them
+     * 
+     * @param template the time blocks for the Track
+     * @throws IllegalArgumentException if the template is null
+     */
+    public Track(BlockTemplate template) throws IllegalArgumentException {
+	if (template == null)
+	    throw new IllegalArgumentException("Template cannot be null.");
+	this.template = template;
+	originalBlocks = template.blocks();
 	
-	scheduleBlocks = new ScheduleBlock[blocks.length];
-	int countSchedulable = 0;
 	//create working blocks that will be filled as we go along
-	for (int i = 0; i < blocks.length; i++) {
-	    scheduleBlocks[i] = new ScheduleBlock(blocks[i]);
-	    if (blocks[i].isAvailableForScheduling()) 
-		countSchedulable++;
-	}
+	scheduleBlocks = new ScheduleBlock[originalBlocks.length];
+	for (int i = 0; i < originalBlocks.length; i++)
+	    scheduleBlocks[i] = new ScheduleBlock(originalBlocks[i]);
 	//as a shortcut to those used for placement to avoid continued lookup
-	workingBlocks = new ScheduleBlock[countSchedulable];
-	int i = 0;
-	for (ScheduleBlock sb : scheduleBlocks) {
-	    if (!sb.isAvailableForScheduling())
-		continue;
-	    workingBlocks[i] = sb;
-	    i++;
-	}	
+	workingBlocks = new ScheduleBlock[template.getWorkingCount()];
+	for (int w = 0; w < workingBlocks.length; w++)
+	    workingBlocks[w] = scheduleBlocks[template.getScheduleIndex(w)];
 	
 	//as a placeholder
 	label = getClass().getSimpleName();
@@ -87,6 +93,13 @@ public class Track {
         return originalBlocks;
     }
 
+    /**
+     * @return the checked Blocks the Track was made from, for making more Tracks like it
+     */
+    public BlockTemplate getTemplate() {
+	return template;
+    }
+
     /**
      * @return blocks being used during scheduling
      */
@@ -106,35 +119,62 @@ public class Track {
      * 
      */
     public void setSchedule(int[] maxBlockUsedMinutes) {
-	for (int i = 0; i < scheduleBlocks.length; i++) {
-	    ScheduleBlock bs = scheduleBlocks[i];
-	    
-	    //set startTimeOffset based on start and whether fixedStart
-	    if (i == 0 || bs.isFixedStart())
+	ScheduleEvents.TrackSchedule event = new ScheduleEvents.TrackSchedule();
+	event.begin();
+	for (int i = 0; i < scheduleBlocks.length; i++) 
+	    setBlockSchedule(i, maxBlockUsedMinutes);
+	if (event.shouldCommit()) {
+	    int sessionCount = 0;
+	    for (ScheduleBlock wb : workingBlocks)
+		sessionCount += wb.getSessions().size();
+	    event.track = label;
+	    event.sessionCount = sessionCount;
+	    event.commit();
+	}
+    }
+
+    /**
+     * Sets the times of one ScheduleBlock and its Sessions.  Its start depends only on the Block before it, so after an
+     * edit only the edited Block and, if the most minutes used in that Block across Tracks changed, the Block after it
+     * need new times.
+     * <p>
+     * The placeholder Session of a Block not available for scheduling is created only once, so this may be called
+     * again as the schedule is edited.
+     * </p>
+     * 
+     * @param i index of the Block within the schedule blocks
+     * @param maxBlockUsedMinutes most minutes used in each Block across all Tracks
+     */
+    public void setBlockSchedule(int i, int[] maxBlockUsedMinutes) {
+	ScheduleBlock bs = scheduleBlocks[i];
+
+	//set startTimeOffset based on start and whether fixedStart
+	if (i == 0 || bs.isFixedStart())
+	    bs.setStartMinuteOffset(bs.getBlockStartTimeOffset());
+	else { 
+	    //may move up based on maxBlockUsedMinutes 
+	    int endTimeOffset = scheduleBlocks[i - 1].getBlockStartTimeOffset() + maxBlockUsedMinutes[i- 1];
+	    if (endTimeOffset < bs.getBlockStartTimeOffset())
 		bs.setStartMinuteOffset(bs.getBlockStartTimeOffset());
-	    else { 
-		//may move up based on maxBlockUsedMinutes 
-		int endTimeOffset = scheduleBlocks[i - 1].getBlockStartTimeOffset() + maxBlockUsedMinutes[i- 1];
-		if (endTimeOffset < bs.getBlockStartTimeOffset())
-		    bs.setStartMinuteOffset(bs.getBlockStartTimeOffset());
-		else
-		    bs.setStartMinuteOffset(endTimeOffset);
+	    else
+		bs.setStartMinuteOffset(endTimeOffset);
+	}
+
+	//set Session schedules
+	if (bs.isAvailableForScheduling()) {
+	    int offset = bs.getStartMinuteOffset();
+	    for (Session s : bs.getSessions()) {
+	      s.setStartOffset(offset);
+	      offset += s.getMinutes();
 	    }
-	    
-	    //set Session schedules
-	    if (bs.isAvailableForScheduling()) {
-		int offset = bs.getStartMinuteOffset();
-		for (Session s : bs.getSessions()) {
-		  s.setStartOffset(offset);
-		  offset += s.getMinutes();
-		}
-	    } else {
-		//establish a session matching the block
+	} else {
+	    //establish a session matching the block
+	    if (bs.getSessions().isEmpty()) {
 		Session s = new Session(bs.getBlockName(), bs.getMinDuration());
 		bs.place(s);
-		s.setStartOffset(bs.getStartMinuteOffset());
 		s.setBlockLevelSession(true);
 	    }
+	    bs.getSessions().get(0).setStartOffset(bs.getStartMinuteOffset());
 	}
     }
 
@@ -0,0 +1,291 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Tracks of a very large schedule held in int arrays rather than as Track objects.
+ * <p>
+ * The Sessions are the rows of a {@link SessionTable}.  For each slot, that is track * number of working blocks +
+ * working block, the store keeps the minutes used and the first and last Session placed there, and each Session keeps
+ * the next Session of its slot, so the Sessions of every Block are lists threaded through one array in the order
+ * placed.  Blocks not available for scheduling, such as lunch, hold nothing: they start at the same time in every Track
+ * and their entries are derived when asked for.  A Track costs three ints per working block instead of a Track, its
+ * ScheduleBlocks, their lists and a placeholder Session per block like lunch.
+ * </p>
+ * <p>
+ * {@link #getTrack(int)} builds a Track of one Track for code wanting the Track API.  Start offsets are kept in the
+ * table.
+ * </p>
+ * <p>
+ * Note this is not thread-safe.
+ * </p>
+ *
+ * @see SchedulingStrategy#assign(BlockFormat[], SessionTable)
+ */
+public class TrackStore {
+
+    /**
+     * Slot or Session of an empty list
+     */
+    public static final int NONE = -1;
+
+    private final BlockTemplate template;
+    private final SessionTable table;
+    private final int workingCount;
+    private int trackCount;
+
+    //per slot
+    private int[] used;
+    private int[] first;
+    private int[] last;
+
+    //per Session
+    private int[] next;
+    private int[] slots;
+
+    //most minutes used in each block across tracks; null until scheduled
+    private int[] maxBlockUsedMinutes;
+    private int[] blockStarts;
+
+    /**
+     * Instantiates a store with no Tracks
+     *
+     * @param template time blocks in which Tracks are divided
+     * @param table the Sessions to place
+     * @throws IllegalArgumentException if the template or table is null, or the template has no working blocks
+     */
+    public TrackStore(BlockTemplate template, SessionTable table) throws IllegalArgumentException {
+	if (template == null || table == null)
+	    throw new IllegalArgumentException("Blocks and Sessions must be specified.");
+	if (template.getWorkingCount() == 0)
+	    throw new IllegalArgumentException("No block is available for scheduling.");
+	this.template = template;
+	this.table = table;
+	workingCount = template.getWorkingCount();
+	used = new int[workingCount * 16];
+	first = new int[used.length];
+	last = new int[used.length];
+	next = new int[table.size()];
+	slots = new int[table.size()];
+	Arrays.fill(slots, NONE);
+    }
+
+    /**
+     * Places the Sessions of a table as assigned by a strategy.  Within a Block, Sessions are placed longest first and
+     * equal-length Sessions in the order added, as {@link SessionTable#setSchedule(BlockFormat[], int[])} times them.
+     *
+     * @param template time blocks in which Tracks are divided
+     * @param table the Sessions
+     * @param assignment the slot of each Session
+     * @return a store holding the Sessions, not yet timed
+     * @throws IllegalArgumentException if there is not one valid slot per Session
+     */
+    public static TrackStore of(BlockTemplate template, SessionTable table, int[] assignment)
+	    throws IllegalArgumentException {
+	if (assignment.length != table.size())
+	    throw new IllegalArgumentException("Expected " + table.size() + " slots but found " + assignment.length);
+	TrackStore store = new TrackStore(template, table);
+	int tracks = 1;
+	for (int slot : assignment) {
+	    if (slot < 0)
+		throw new IllegalArgumentException("Invalid slot " + slot);
+	    tracks = Math.max(tracks, slot / store.workingCount + 1);
+	}
+	while (store.trackCount < tracks)
+	    store.addTrack();
+	SessionTable.Groups groups = table.group();
+	for (int g = groups.count() - 1; g >= 0; g--)
+	    for (int k = groups.getStart(g); k < groups.getEnd(g); k++) {
+		int i = groups.getSession(k);
+		store.place(i, assignment[i]);
+	    }
+	return store;
+    }
+
+    /**
+     * Adds an empty Track
+     *
+     * @return the number of the new Track
+     */
+    public int addTrack() {
+	int end = (trackCount + 1) * workingCount;
+	if (end > used.length) {
+	    int capacity = (int)Math.min(Integer.MAX_VALUE - 8, Math.max(end, used.length * 2L));
+	    used = Arrays.copyOf(used, capacity);
+	    first = Arrays.copyOf(first, capacity);
+	    last = Arrays.copyOf(last, capacity);
+	}
+	Arrays.fill(first, trackCount * workingCount, end, NONE);
+	Arrays.fill(last, trackCount * workingCount, end, NONE);
+	maxBlockUsedMinutes = null;
+	return trackCount++;
+    }
+
+    /**
+     * Places a Session at the end of a Block
+     *
+     * @param session Session number in the table
+     * @param slot track * number of working blocks + working block
+     * @throws IllegalArgumentException if the Session is already placed or the slot is not in a Track of the store
+     */
+    public void place(int session, int slot) throws IllegalArgumentException {
+	if (slot < 0 || slot >= trackCount * workingCount)
+	    throw new IllegalArgumentException("Invalid slot " + slot);
+	if (session < 0 || session >= slots.length)
+	    throw new IllegalArgumentException("Session " + session + " is not in the table.");
+	if (slots[session] != NONE)
+	    throw new IllegalArgumentException("Session " + session + " is already placed.");
+	slots[session] = slot;
+	next[session] = NONE;
+	if (last[slot] == NONE)
+	    first[slot] = session;
+	else
+	    next[last[slot]] = session;
+	last[slot] = session;
+	used[slot] += table.getMinutes(session);
+	maxBlockUsedMinutes = null;
+    }
+
+    /**
+     * Gives every placed Session its start offset, timing the Blocks as {@link Track#setSchedule(int[])} does
+     */
+    public void setSchedule() {
+	BlockFormat[] blocks = template.blocks();
+	maxBlockUsedMinutes = new int[blocks.length];
+	blockStarts = new int[blocks.length];
+	for (int i = 0, w = 0; i < blocks.length; i++) {
+	    BlockFormat b = blocks[i];
+	    if (b.isAvailableForScheduling()) {
+		for (int slot = w; slot < trackCount * workingCount; slot += workingCount)
+		    maxBlockUsedMinutes[i] = Math.max(maxBlockUsedMinutes[i], used[slot]);
+		w++;
+	    } else
+		maxBlockUsedMinutes[i] = b.getMinDuration();
+
+	    //the start of a block is the same in every track
+	    if (i == 0 || b.isFixedStart())
+		blockStarts[i] = b.getStartMinuteOffset();
+	    else
+		blockStarts[i] = Math.max(b.getStartMinuteOffset(),
+			blocks[i - 1].getStartMinuteOffset() + maxBlockUsedMinutes[i - 1]);
+	}
+
+	for (int slot = 0; slot < trackCount * workingCount; slot++) {
+	    int offset = blockStarts[template.getScheduleIndex(slot % workingCount)];
+	    for (int s = first[slot]; s != NONE; s = next[s]) {
+		table.setStartOffset(s, offset);
+		offset += table.getMinutes(s);
+	    }
+	}
+    }
+
+    /**
+     * @return the time blocks in which Tracks are divided
+     */
+    public BlockTemplate getTemplate() {
+	return template;
+    }
+
+    /**
+     * @return the Sessions
+     */
+    public SessionTable getTable() {
+	return table;
+    }
+
+    /**
+     * @return the number of Tracks
+     */
+    public int getTrackCount() {
+	return trackCount;
+    }
+
+    /**
+     * @param session Session number in the table
+     * @return the slot holding the Session; {@link #NONE} if not placed
+     */
+    public int getSlot(int session) {
+	return slots[session];
+    }
+
+    /**
+     * @param slot track * number of working blocks + working block
+     * @return the minutes used by Sessions in the Block
+     */
+    public int getUsedMinutes(int slot) {
+	checkSlot(slot);
+	return used[slot];
+    }
+
+    /**
+     * @param slot track * number of working blocks + working block
+     * @param useMax whether against the maximum rather than the minimum duration of the Block
+     * @return the minutes of the Block not used by Sessions
+     */
+    public int getAvailableMinutes(int slot, boolean useMax) {
+	checkSlot(slot);
+	int w = slot % workingCount;
+	return (useMax ? template.getMaxDuration(w) : template.getMinDuration(w)) - used[slot];
+    }
+
+    /**
+     * @param slot track * number of working blocks + working block
+     * @return the first Session in the Block; {@link #NONE} if empty
+     */
+    public int getFirstSession(int slot) {
+	checkSlot(slot);
+	return first[slot];
+    }
+
+    /**
+     * @param session Session number in the table
+     * @return the Session after it in its Block; {@link #NONE} if last
+     */
+    public int getNextSession(int session) {
+	return next[session];
+    }
+
+    /**
+     * @param i index of the Block among all the Blocks
+     * @return the offset in minutes from time zero at which the Block starts in every Track
+     * @throws IllegalStateException if the Sessions have been placed since the schedule was set
+     */
+    public int getBlockStartOffset(int i) throws IllegalStateException {
+	checkScheduled();
+	return blockStarts[i];
+    }
+
+    /**
+     * Builds a Track holding copies of the Sessions of one Track, with times when scheduled
+     *
+     * @param t Track number, from 0
+     * @return the Track labelled as a Schedule labels it
+     */
+    public Track getTrack(int t) {
+	if (t < 0 || t >= trackCount)
+	    throw new IndexOutOfBoundsException("Track " + t + " of " + trackCount);
+	Track track = new Track(template);
+	track.setLabel(Config.TRACK_LABEL_PREFIX + (t + 1));
+	ScheduleBlock[] working = track.getWorkingBlocks();
+	for (int w = 0; w < workingCount; w++)
+	    for (int s = first[t * workingCount + w]; s != NONE; s = next[s])
+		working[w].place(new Session(table.getName(s), table.getMinutes(s)));
+	if (maxBlockUsedMinutes != null)
+	    track.setSchedule(maxBlockUsedMinutes);
+	return track;
+    }
+
+    private void checkSlot(int slot) {
+	if (slot < 0 || slot >= trackCount * workingCount)
+	    throw new IndexOutOfBoundsException("Slot " + slot + " of " + trackCount * workingCount);
+    }
+
+    private void checkScheduled() throws IllegalStateException {
+	if (maxBlockUsedMinutes == null)
+	    throw new IllegalStateException("Schedule is not set.");
+    }
+
+}
@@ -0,0 +1,106 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests the TrackStore class against Schedules made from Track objects
+ *
+ * @see TrackStore
+ */
+public class TrackStoreTest {
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.TrackStore#of(BlockTemplate, SessionTable, int[])}.
+     */
+    @Test
+    public void testMatchesSchedule() throws IOException {
+	SchedulingStrategy[] strategies = {new FirstFitDecreasingStrategy(), new BestFitDecreasingStrategy()};
+	BlockTemplate template = new BlockTemplate(Config.BLOCKS);
+	for (SchedulingStrategy strategy : strategies)
+	    for (ConferenceGenerator.Distribution d : ConferenceGenerator.Distribution.values()) {
+		Session[] sessions = new ConferenceGenerator(d, 9).nextSessions(400);
+		Schedule schedule = new Schedule();
+		schedule.setBlocks(template);
+		schedule.setStrategy(strategy);
+		for (Session s : sessions)
+		    schedule.addSession(s);
+		schedule.makeSchedule();
+		StringWriter expected = new StringWriter();
+		new ScheduleRenderer().render(schedule.getTracks(), expected);
+
+		SessionTable table = SessionTable.of(sessions);
+		TrackStore store = TrackStore.of(template, table, strategy.assign(Config.BLOCKS, table));
+		store.setSchedule();
+		assertEquals(d.toString(), schedule.getTracks().length, store.getTrackCount());
+		StringWriter actual = new StringWriter();
+		new ScheduleRenderer().render(store, actual);
+		assertEquals(d.toString(), expected.toString(), actual.toString());
+
+		Track[] views = new Track[store.getTrackCount()];
+		for (int t = 0; t < views.length; t++)
+		    views[t] = store.getTrack(t);
+		actual = new StringWriter();
+		new ScheduleRenderer().render(views, actual);
+		assertEquals(d.toString(), expected.toString(), actual.toString());
+	    }
+    }
+
+    /**
+     * Test method for {@link com.doughalperin.scheduler.TrackStore#place(int, int)}.
+     */
+    @Test
+    public void testPlace() {
+	SessionTable table = new SessionTable();
+	table.add("A", 60);
+	table.add("B", 45);
+	table.add("C", 30);
+	TrackStore store = new TrackStore(new BlockTemplate(Config.BLOCKS), table);
+	assertEquals(0, store.addTrack());
+	assertEquals(1, store.addTrack());
+	store.place(0, 3);
+	store.place(2, 3);
+	store.place(1, 0);
+	assertEquals(TrackStore.NONE, store.getFirstSession(1));
+	assertEquals(0, store.getFirstSession(3));
+	assertEquals(2, store.getNextSession(0));
+	assertEquals(TrackStore.NONE, store.getNextSession(2));
+	assertEquals(90, store.getUsedMinutes(3));
+	assertEquals(90, store.getAvailableMinutes(3, false));
+	assertEquals(150, store.getAvailableMinutes(3, true));
+	assertEquals(3, store.getSlot(2));
+
+	boolean exceptionOccurred = false;
+	try {
+	    store.getBlockStartOffset(1);
+	} catch (IllegalStateException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Block started before the schedule was set", exceptionOccurred);
+
+	store.setSchedule();
+	assertEquals(new TimeOffset(0, 12, 0).getOffset(), store.getBlockStartOffset(1));
+	assertEquals(new TimeOffset(0, 16, 0).getOffset(), store.getBlockStartOffset(3));
+	assertEquals(new TimeOffset(0, 13, 0).getOffset(), table.getStartOffset(0));
+	assertEquals(new TimeOffset(0, 14, 0).getOffset(), table.getStartOffset(2));
+	assertEquals(new TimeOffset(0, 9, 0).getOffset(), table.getStartOffset(1));
+
+	exceptionOccurred = false;
+	try {
+	    store.place(0, 1);
+	} catch (IllegalArgumentException e) {
+	    // what we expect
+	    exceptionOccurred = true;
+	}
+	assertTrue("Session placed twice", exceptionOccurred);
+    }
+
+}
@@ -121,6 +121,26 @@ public class TrackTest {
 	assertTrue(c == ret);
     }
 
+    /**
+     * Test method for {@link com.doughalperin.scheduler.Track#Track(com.doughalperin.scheduler.BlockTemplate)}.
+     */
+    @Test
+    public void testTrackFromTemplate() {
+	for (BlockFormat[] c : passing) {
+	    BlockTemplate template = new BlockTemplate(c);
+	    Track t = new Track(template);
+	    Track u = new Track(c);
+	    assertSame(template, t.getTemplate());
+	    assertEquals(u.getScheduleBlocks().length, t.getScheduleBlocks().length);
+	    assertEquals(u.getWorkingBlocks().length, t.getWorkingBlocks().length);
+	    for (int w = 0; w < t.getWorkingBlocks().length; w++) {
+		assertSame(t.getScheduleBlocks()[template.getScheduleIndex(w)], t.getWorkingBlocks()[w]);
+		assertEquals(u.getWorkingBlocks()[w].getBlockName(), t.getWorkingBlocks()[w].getBlockName());
+	    }
+	    assertNotSame(t.getScheduleBlocks()[0], new Track(template).getScheduleBlocks()[0]);
+	}
+    }
+
     /**
      * Test method for {@link com.doughalperin.scheduler.Track#getWorkingBlocks()}.
      */
@@ -0,0 +1,37 @@
+/**
+ * @version 1.0
+ */
+package com.doughalperin.scheduler;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans residual capacities a vector of slots at a time with the JDK Vector API, an incubator module: it is compiled
+ * and run with --add-modules jdk.incubator.vector, and {@link ResidualScan} loads it by name, falling back to its
+ * scalar kernel when this class is missing or the module is not resolved.
+ *
+ * @see ResidualScan.Kernel
+ */
+class VectorResidualKernel implements ResidualScan.Kernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int firstAtLeast(int[] residual, int size, int value) {
+	int i = 0;
+	for (int bound = SPECIES.loopBound(size); i < bound; i += SPECIES.length()) {
+	    VectorMask<Integer> fits = IntVector.fromArray(SPECIES, residual, i).compare(VectorOperators.GE, value);
+	    if (fits.anyTrue())
+		return i + fits.firstTrue();
+	}
+	//the slots after the last whole vector
+	for (; i < size; i++)
+	    if (residual[i] >= value)
+		return i;
+	return -1;
+    }
+
+}